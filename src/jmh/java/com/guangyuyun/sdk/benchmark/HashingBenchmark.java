@@ -0,0 +1,110 @@
+package com.guangyuyun.sdk.benchmark;
+
+import com.guangyuyun.sdk.hash.HashAlgorithm;
+import com.guangyuyun.sdk.hash.HashingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件摘要基准测试：原FileUtils.calculateMD5实现与HashingEngine对比
+ *
+ * 运行：mvn -Pbenchmark package && java -jar target/benchmarks.jar HashingBenchmark
+ * 大文件会在临时目录生成，可用 -p fileSize=1048576,104857600 只测部分规模。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashingBenchmark {
+
+    /** 1MB, 100MB, 1GB, 10GB */
+    @Param({"1048576", "104857600", "1073741824", "10737418240"})
+    public long fileSize;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = File.createTempFile("guangyuyun-hash-", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        new Random(42).nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            long remaining = fileSize;
+            while (remaining > 0) {
+                int n = (int) Math.min(block.length, remaining);
+                out.write(block, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public String legacyMd5() throws IOException {
+        return legacyCalculateMD5(file);
+    }
+
+    @Benchmark
+    public String engineMd5() throws IOException {
+        return HashingEngine.md5(file);
+    }
+
+    @Benchmark
+    public Object engineMd5Sha256Crc32c() throws IOException {
+        return HashingEngine.hash(file, HashAlgorithm.MD5, HashAlgorithm.SHA256, HashAlgorithm.CRC32C);
+    }
+
+    /**
+     * 替换前的FileUtils.calculateMD5实现
+     */
+    private static String legacyCalculateMD5(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("MD5 algorithm not available", e);
+        }
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = fis.read(buffer)) != -1) {
+                md.update(buffer, 0, bytesRead);
+            }
+        }
+
+        byte[] digest = md.digest();
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
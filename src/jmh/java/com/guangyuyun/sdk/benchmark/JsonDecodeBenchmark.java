@@ -0,0 +1,93 @@
+package com.guangyuyun.sdk.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.http.JsonResponseReader;
+import com.guangyuyun.sdk.model.LargeFileUploadResponse;
+import com.guangyuyun.sdk.model.SmallFileUploadResponse;
+import com.guangyuyun.sdk.model.TokenResponse;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应JSON解析基准测试：原先读成字符串再解析的方式与JsonResponseReader流式解析对比
+ *
+ * 运行：mvn -Pbenchmark package && java -jar target/benchmarks.jar JsonDecodeBenchmark -prof gc
+ * 目标负载为每秒1万个响应，-prof gc 输出的 gc.alloc.rate.norm 即每个响应分配的字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JsonDecodeBenchmark {
+
+    @Param({"token", "smallUpload", "largeUpload"})
+    public String responseType;
+
+    private ObjectMapper objectMapper;
+    private Class<?> type;
+    private JsonResponseReader<?> reader;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        String json;
+        if ("token".equals(responseType)) {
+            type = TokenResponse.class;
+            json = "{\"code\":0,\"message\":\"success\",\"data\":{\"token\":\"3f2b9c1e8a7d4f60b5e2c9a1d8f7e6b5\","
+                    + "\"expireTime\":1767225600}}";
+        } else if ("smallUpload".equals(responseType)) {
+            type = SmallFileUploadResponse.class;
+            json = "{\"code\":0,\"message\":\"success\",\"data\":\"f_8c1e0b7a2d9f4e3c\"}";
+        } else {
+            type = LargeFileUploadResponse.class;
+            json = "{\"code\":0,\"message\":\"success\",\"fileIndex\":\"17\",\"id\":\"f_8c1e0b7a2d9f4e3c\"}";
+        }
+        reader = newReader(objectMapper, type);
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object legacyStringDecode() throws IOException {
+        String responseBody = EntityUtils.toString(newResponse().getEntity(), StandardCharsets.UTF_8);
+        return objectMapper.readValue(responseBody, type);
+    }
+
+    @Benchmark
+    public Object streamingReader() throws IOException, GuangYuYunException {
+        return reader.read(newResponse());
+    }
+
+    private HttpResponse newResponse() {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private static <T> JsonResponseReader<T> newReader(ObjectMapper objectMapper, Class<T> type) {
+        return new JsonResponseReader<T>(objectMapper, type);
+    }
+}
@@ -0,0 +1,1197 @@
+package com.guangyuyun.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guangyuyun.sdk.cache.DigestCache;
+import com.guangyuyun.sdk.download.DownloadJournal;
+import com.guangyuyun.sdk.download.DownloadSession;
+import com.guangyuyun.sdk.download.RemoteFileInfo;
+import com.guangyuyun.sdk.download.RemoteFileInfoCache;
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.http.AsyncFileRegionEntity;
+import com.guangyuyun.sdk.http.DefaultKeepAliveStrategy;
+import com.guangyuyun.sdk.http.JsonResponseReader;
+import com.guangyuyun.sdk.model.FileDownloadRequest;
+import com.guangyuyun.sdk.model.FileDownloadResponse;
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+import com.guangyuyun.sdk.model.LargeFileUploadResponse;
+import com.guangyuyun.sdk.model.SmallFileUploadRequest;
+import com.guangyuyun.sdk.model.SmallFileUploadResponse;
+import com.guangyuyun.sdk.model.TokenRequest;
+import com.guangyuyun.sdk.model.TokenResponse;
+import com.guangyuyun.sdk.retry.RetryBudget;
+import com.guangyuyun.sdk.retry.RetryExecutor;
+import com.guangyuyun.sdk.retry.RetryPolicy;
+import com.guangyuyun.sdk.upload.UploadSessionStore;
+import com.guangyuyun.sdk.util.AdaptiveChunkSizer;
+import com.guangyuyun.sdk.util.DownloadUtils;
+import com.guangyuyun.sdk.util.FileUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * GuangYuYun API 异步客户端
+ *
+ * 基于非阻塞HTTP引擎（HttpAsyncClient），所有接口立即返回{@link CompletableFuture}，
+ * 传输过程中不占用调用方线程，少量I/O线程即可承载大量并发传输。
+ * 请求/响应模型与{@link GuangYuYunClient}相同，失败时future以{@link GuangYuYunException}异常完成。
+ * 计算MD5、写入本地文件等阻塞操作在客户端内部的后台线程池中执行，不会阻塞I/O线程。
+ */
+public class AsyncGuangYuYunClient implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncGuangYuYunClient.class);
+
+    private static final String DEFAULT_BASE_URL = ClientConfig.DEFAULT_BASE_URL;
+    private static final String CREATE_TOKEN_ENDPOINT = "/u/createToken";//创建Token
+    private static final String LARGE_FILE_UPLOAD_ENDPOINT = "/v1/addLargeFile";//大文件上传
+    private static final String SMALL_FILE_UPLOAD_ENDPOINT = "/v1/add";//小文件上传
+    private static final String FILE_DOWNLOAD_ENDPOINT = "/v1/cat";//下载
+
+    private static final long SMALL_FILE_MAX_SIZE = 100 * 1024 * 1024; // 100MB
+    private static final int MAX_CONSECUTIVE_RESYNCS = 5; // 服务端连续拒绝同一索引的次数上限
+
+    private final String baseUrl;
+    private final CloseableHttpAsyncClient httpClient;
+    private final ExecutorService blockingExecutor; // 执行MD5计算、文件写入等阻塞操作
+    private final ScheduledExecutorService retryScheduler; // 退避结束后重新发出失败的请求
+    private final ObjectMapper objectMapper;
+    private final JsonResponseReader<TokenResponse> tokenReader;
+    private final JsonResponseReader<SmallFileUploadResponse> smallFileUploadReader;
+    private final JsonResponseReader<LargeFileUploadResponse> largeFileUploadReader;
+    private volatile String authToken; // 统一的认证token
+    private volatile DigestCache digestCache; // 文件MD5持久化缓存（可选）
+    private volatile RemoteFileInfoCache fileInfoCache; // 远端文件信息短期缓存（可选）
+    private volatile UploadSessionStore uploadSessionStore; // 大文件上传会话存储（可选）
+    private volatile boolean adaptiveChunkSizing; // 按实测吞吐调整上传分片大小
+    private volatile RetryExecutor retryExecutor; // 分片/区间请求的重试策略与预算
+
+    /**
+     * 使用默认配置创建客户端
+     */
+    public AsyncGuangYuYunClient() {
+        this(DEFAULT_BASE_URL);
+    }
+
+    /**
+     * 使用自定义基础URL创建客户端
+     */
+    public AsyncGuangYuYunClient(String baseUrl) {
+        this(configWithBaseUrl(baseUrl));
+    }
+
+    /**
+     * 使用自定义配置创建客户端
+     *
+     * 复用{@link ClientConfig}中的连接数、超时与连接保持配置。
+     *
+     * @param config 客户端配置
+     * @throws IllegalArgumentException 配置无效时（如连接数、超时为负数）
+     */
+    public AsyncGuangYuYunClient(ClientConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Client config cannot be null");
+        }
+        config.validate();
+        this.baseUrl = config.getBaseUrl() != null ? config.getBaseUrl() : DEFAULT_BASE_URL;
+        this.httpClient = createHttpClient(config);
+        this.blockingExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "guangyuyun-async-io-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "guangyuyun-async-retry");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.objectMapper = new ObjectMapper();
+        this.tokenReader = new JsonResponseReader<TokenResponse>(objectMapper, TokenResponse.class);
+        this.smallFileUploadReader = new JsonResponseReader<SmallFileUploadResponse>(objectMapper, SmallFileUploadResponse.class);
+        this.largeFileUploadReader = new JsonResponseReader<LargeFileUploadResponse>(objectMapper, LargeFileUploadResponse.class);
+        this.digestCache = config.getDigestCache();
+        this.uploadSessionStore = config.getUploadSessionStore();
+        this.adaptiveChunkSizing = config.isAdaptiveChunkSizing();
+        this.retryExecutor = new RetryExecutor(config.getRetryPolicy(),
+                config.getRetryBudget() != null ? config.getRetryBudget() : new RetryBudget());
+        this.httpClient.start();
+    }
+
+    private static ClientConfig configWithBaseUrl(String baseUrl) {
+        ClientConfig config = new ClientConfig();
+        config.setBaseUrl(baseUrl);
+        return config;
+    }
+
+    private static CloseableHttpAsyncClient createHttpClient(ClientConfig config) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeoutMillis())
+                .setSocketTimeout(config.getSocketTimeoutMillis())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+                .build();
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(config.getConnectTimeoutMillis())
+                .setSoTimeout(config.getSocketTimeoutMillis())
+                .setSoKeepAlive(true)
+                .build();
+
+        return HttpAsyncClients.custom()
+                .setMaxConnTotal(config.getMaxConnectionsTotal())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultRequestConfig(requestConfig)
+                .setDefaultIOReactorConfig(ioReactorConfig)
+                .setKeepAliveStrategy(new DefaultKeepAliveStrategy(config.getKeepAliveMillis()))
+                .build();
+    }
+
+    /**
+     * 设置认证Token
+     *
+     * @param authToken 认证token
+     */
+    public void setAuthToken(String authToken) {
+        this.authToken = authToken;
+    }
+
+    public String getAuthToken() {
+        return authToken;
+    }
+
+    /**
+     * 检查是否已设置认证Token
+     */
+    public boolean hasAuthToken() {
+        return authToken != null && !authToken.trim().isEmpty();
+    }
+
+    /**
+     * 设置文件MD5持久化缓存，null表示不使用缓存
+     */
+    public void setDigestCache(DigestCache digestCache) {
+        this.digestCache = digestCache;
+    }
+
+    public DigestCache getDigestCache() {
+        return digestCache;
+    }
+
+    /**
+     * 设置远端文件信息缓存，null表示不缓存
+     *
+     * @see GuangYuYunClient#setFileInfoCache(RemoteFileInfoCache)
+     */
+    public void setFileInfoCache(RemoteFileInfoCache fileInfoCache) {
+        this.fileInfoCache = fileInfoCache;
+    }
+
+    public RemoteFileInfoCache getFileInfoCache() {
+        return fileInfoCache;
+    }
+
+    /**
+     * 设置大文件上传会话存储，null表示不记录
+     *
+     * @see GuangYuYunClient#setUploadSessionStore(UploadSessionStore)
+     */
+    public void setUploadSessionStore(UploadSessionStore uploadSessionStore) {
+        this.uploadSessionStore = uploadSessionStore;
+    }
+
+    public UploadSessionStore getUploadSessionStore() {
+        return uploadSessionStore;
+    }
+
+    /**
+     * 设置大文件上传是否按实测吞吐自适应调整分片大小
+     *
+     * @see GuangYuYunClient#setAdaptiveChunkSizing(boolean)
+     */
+    public void setAdaptiveChunkSizing(boolean adaptiveChunkSizing) {
+        this.adaptiveChunkSizing = adaptiveChunkSizing;
+    }
+
+    public boolean isAdaptiveChunkSizing() {
+        return adaptiveChunkSizing;
+    }
+
+    /**
+     * 设置重试策略，null表示不重试
+     *
+     * @see GuangYuYunClient#setRetryPolicy(RetryPolicy)
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryExecutor = new RetryExecutor(retryPolicy, retryExecutor.getBudget());
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryExecutor.getPolicy();
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryExecutor.getBudget();
+    }
+
+    /**
+     * 创建Token
+     *
+     * @param account 账号
+     * @param apiKey API密钥
+     * @param expireTime 到期时间戳
+     * @return Token响应结果
+     */
+    public CompletableFuture<TokenResponse> createToken(String account, String apiKey, Long expireTime) {
+        return createToken(new TokenRequest(account, apiKey, expireTime));
+    }
+
+    /**
+     * 创建Token
+     *
+     * @param request Token请求参数
+     * @return Token响应结果
+     */
+    public CompletableFuture<TokenResponse> createToken(TokenRequest request) {
+        try {
+            RequestValidator.validateTokenRequest(request);
+
+            String url = baseUrl + CREATE_TOKEN_ENDPOINT;
+            String jsonRequest = objectMapper.writeValueAsString(request);
+
+            logger.debug("Creating token request to: {}", url);
+            logger.debug("Request body: {}", jsonRequest);
+
+            HttpPost httpPost = new HttpPost(url);
+            httpPost.setHeader("Content-Type", "application/json; charset=UTF-8");
+            httpPost.setEntity(new NStringEntity(jsonRequest, StandardCharsets.UTF_8));
+
+            return logFailure("Create token", execute(httpPost, new ResponseHandler<TokenResponse>() {
+                @Override
+                public TokenResponse handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    return ResponseMapper.checkTokenResponse(tokenReader.read(response));
+                }
+            }));
+
+        } catch (GuangYuYunException e) {
+            return failed(e);
+        } catch (IOException e) {
+            return failed(new GuangYuYunException("Network error: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * 上传小文件
+     *
+     * @param file 要上传的文件
+     * @param authToken 认证令牌
+     * @return 上传结果
+     */
+    public CompletableFuture<SmallFileUploadResponse> uploadSmallFile(File file, String authToken) {
+        return uploadSmallFile(new SmallFileUploadRequest(file, authToken));
+    }
+
+    /**
+     * 上传小文件（使用统一token）
+     *
+     * @param file 要上传的文件
+     * @return 上传结果
+     */
+    public CompletableFuture<SmallFileUploadResponse> uploadSmallFile(File file) {
+        if (!hasAuthToken()) {
+            return failed(new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use uploadSmallFile(file, authToken)"));
+        }
+        return uploadSmallFile(file, this.authToken);
+    }
+
+    /**
+     * 上传小文件
+     *
+     * 请求体为multipart/form-data，文件内容直接从文件通道写入连接。
+     *
+     * @param request 小文件上传请求参数
+     * @return 上传结果
+     */
+    public CompletableFuture<SmallFileUploadResponse> uploadSmallFile(SmallFileUploadRequest request) {
+        FileChannel channel = null;
+        try {
+            RequestValidator.validateSmallFileUploadRequest(request);
+
+            String url = baseUrl + SMALL_FILE_UPLOAD_ENDPOINT;
+
+            logger.debug("Uploading small file to: {}", url);
+            logger.debug("Request: {}", request);
+
+            File file = request.getFile();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            long fileSize = channel.size();
+            if (fileSize > SMALL_FILE_MAX_SIZE) {
+                throw new GuangYuYunException("File size exceeds 100MB. Please use large file upload interface for files larger than 100MB");
+            }
+
+            HttpPost httpPost = new HttpPost(url);
+            httpPost.setHeader("AuthToken", request.getAuthToken());
+            httpPost.setEntity(multipartFileEntity(file.getName(), channel, fileSize));
+
+            final FileChannel openChannel = channel;
+            channel = null;
+            return logFailure("Upload " + file.getName(), execute(httpPost, new ResponseHandler<SmallFileUploadResponse>() {
+                @Override
+                public SmallFileUploadResponse handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    return ResponseMapper.checkSmallFileUploadResponse(smallFileUploadReader.read(response));
+                }
+            }).whenComplete(closing(openChannel)));
+
+        } catch (GuangYuYunException e) {
+            return failed(e);
+        } catch (IOException e) {
+            return failed(new GuangYuYunException("Network error: " + e.getMessage(), e));
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * 构造与同步客户端相同格式的multipart请求体：multipart头部与结尾边界在内存中，文件内容按区间发送
+     */
+    private static HttpEntity multipartFileEntity(String fileName, FileChannel channel, long fileSize) throws IOException {
+        // 以空文件内容生成完整的multipart报文，第一个空行之后即为文件内容的位置
+        HttpEntity framing = MultipartEntityBuilder.create()
+                .addPart("file", new ByteArrayBody(new byte[0], ContentType.DEFAULT_BINARY, fileName))
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        framing.writeTo(out);
+        byte[] frame = out.toByteArray();
+
+        int split = -1;
+        for (int i = 0; i + 3 < frame.length; i++) {
+            if (frame[i] == '\r' && frame[i + 1] == '\n' && frame[i + 2] == '\r' && frame[i + 3] == '\n') {
+                split = i + 4;
+                break;
+            }
+        }
+        if (split < 0) {
+            throw new IOException("Malformed multipart framing");
+        }
+        return new AsyncFileRegionEntity(Arrays.copyOfRange(frame, 0, split), channel, 0, fileSize,
+                Arrays.copyOfRange(frame, split, frame.length), ContentType.parse(framing.getContentType().getValue()));
+    }
+
+    /**
+     * 上传大文件分片
+     *
+     * @param request 大文件上传请求参数
+     * @return 大文件上传响应结果（错误码7不视为失败，由调用方处理）
+     */
+    public CompletableFuture<LargeFileUploadResponse> uploadLargeFileChunk(LargeFileUploadRequest request) {
+        try {
+            RequestValidator.validateLargeFileUploadRequest(request);
+        } catch (GuangYuYunException e) {
+            return failed(e);
+        }
+
+        String url = baseUrl + LARGE_FILE_UPLOAD_ENDPOINT;
+
+        logger.debug("Uploading large file chunk to: {}", url);
+        logger.debug("Request: {}", request);
+
+        HttpPost httpPost = new HttpPost(url);
+
+        // 设置请求头
+        httpPost.setHeader("FileStartIndex", String.valueOf(request.getFileStartIndex()));
+        httpPost.setHeader("FileSize", String.valueOf(request.getFileSize()));
+        httpPost.setHeader("FileName", request.getFileName());
+        httpPost.setHeader("FileMd5", request.getFileMd5());
+        httpPost.setHeader("AuthToken", request.getAuthToken());
+
+        if (request.getNotificationLink() != null && !request.getNotificationLink().trim().isEmpty()) {
+            httpPost.setHeader("NotificationLink", request.getNotificationLink());
+        }
+
+        // 文件区间直接从通道写入连接，避免整片复制到堆内存
+        if (request.hasFileRegion()) {
+            httpPost.setEntity(new AsyncFileRegionEntity(request.getFileChannel(),
+                request.getRegionPosition(), request.getRegionLength(), ContentType.DEFAULT_BINARY));
+        } else {
+            httpPost.setEntity(new NByteArrayEntity(request.getFileData(), request.getFileDataOffset(),
+                (int) request.getChunkLength(), ContentType.DEFAULT_BINARY));
+        }
+
+        return execute(httpPost, new ResponseHandler<LargeFileUploadResponse>() {
+            @Override
+            public LargeFileUploadResponse handle(HttpResponse response) throws IOException, GuangYuYunException {
+                // 408/429/5xx没有业务结果，作为可重试的错误
+                ResponseMapper.checkTransientStatus(response.getStatusLine().getStatusCode());
+                return ResponseMapper.checkLargeFileUploadResponse(largeFileUploadReader.read(response));
+            }
+        });
+    }
+
+    /**
+     * 上传大文件（支持断点续传）
+     *
+     * @param file 要上传的文件
+     * @param authToken 认证令牌
+     * @param chunkSize 分片大小（字节），可选范围1MB-10MB
+     * @param notificationLink 异步通知链接（可选）
+     * @return 上传结果
+     */
+    public CompletableFuture<LargeFileUploadResponse> uploadLargeFile(final File file, final String authToken,
+                                                                     Integer chunkSize, final String notificationLink) {
+        if (file == null || !file.exists()) {
+            return failed(new GuangYuYunException("File does not exist"));
+        }
+
+        if (authToken == null || authToken.trim().isEmpty()) {
+            return failed(new GuangYuYunException("AuthToken cannot be null or empty"));
+        }
+
+        final int resolvedChunkSize;
+        try {
+            resolvedChunkSize = RequestValidator.adjustChunkSizeForLastChunk(file.length(),
+                RequestValidator.resolveLargeFileChunkSize(chunkSize));
+        } catch (GuangYuYunException e) {
+            return failed(e);
+        }
+
+        // 查找上传会话、计算MD5需要读取文件，在后台线程中完成
+        return CompletableFuture.supplyAsync(new Supplier<LargeFileUploadTask>() {
+            @Override
+            public LargeFileUploadTask get() {
+                try {
+                    return createLargeFileUploadTask(file, authToken, resolvedChunkSize, notificationLink);
+                } catch (IOException e) {
+                    throw new CompletionException(new GuangYuYunException("File upload error: " + e.getMessage(), e));
+                }
+            }
+        }, blockingExecutor).thenCompose(new Function<LargeFileUploadTask, CompletionStage<LargeFileUploadResponse>>() {
+            @Override
+            public CompletionStage<LargeFileUploadResponse> apply(LargeFileUploadTask task) {
+                return task.start();
+            }
+        });
+    }
+
+    /**
+     * 创建上传过程：有未完成的上传会话时沿用其MD5与分片大小，从服务端已确认的位置继续
+     */
+    private LargeFileUploadTask createLargeFileUploadTask(File file, String authToken, int chunkSize,
+                                                          String notificationLink) throws IOException {
+        long fileSize = file.length();
+        UploadSessionStore store = uploadSessionStore;
+        UploadSessionStore.Session session = store != null ? store.find(file) : null;
+        String fileMd5;
+        long startIndex = 0;
+        if (session != null) {
+            fileMd5 = session.getFileMd5();
+            chunkSize = session.getChunkSize();
+            startIndex = session.getFileIndex();
+            if (notificationLink == null) {
+                notificationLink = session.getNotificationLink();
+            }
+            logger.info("Resuming upload of {} from {}/{} bytes", file.getName(), startIndex, fileSize);
+        } else {
+            fileMd5 = calculateFileMd5(file);
+            session = store != null ? store.begin(file, fileMd5, chunkSize, notificationLink) : null;
+            logger.info("Starting large file upload: {} ({} bytes)", file.getName(), fileSize);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        return new LargeFileUploadTask(file.getName(), fileMd5, fileSize, chunkSize,
+            authToken, notificationLink, channel, startIndex, session);
+    }
+
+    /**
+     * 上传大文件（使用默认分片大小）
+     *
+     * @param file 要上传的文件
+     * @param authToken 认证令牌
+     * @return 上传结果
+     */
+    public CompletableFuture<LargeFileUploadResponse> uploadLargeFile(File file, String authToken) {
+        return uploadLargeFile(file, authToken, null, null);
+    }
+
+    /**
+     * 上传大文件（使用统一token和默认分片大小）
+     *
+     * @param file 要上传的文件
+     * @return 上传结果
+     */
+    public CompletableFuture<LargeFileUploadResponse> uploadLargeFile(File file) {
+        if (!hasAuthToken()) {
+            return failed(new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use uploadLargeFile(file, authToken)"));
+        }
+        return uploadLargeFile(file, this.authToken, null, null);
+    }
+
+    /**
+     * 下载文件（支持断点续传）
+     *
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @param outputPath 输出文件路径
+     * @return 下载结果
+     */
+    public CompletableFuture<FileDownloadResponse> downloadFile(String fileId, String authToken, String outputPath) {
+        return downloadFile(new FileDownloadRequest(fileId, authToken, outputPath));
+    }
+
+    /**
+     * 下载文件（使用统一token）
+     *
+     * @param fileId 文件ID
+     * @param outputPath 输出文件路径
+     * @return 下载结果
+     */
+    public CompletableFuture<FileDownloadResponse> downloadFile(String fileId, String outputPath) {
+        if (!hasAuthToken()) {
+            return failed(new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use downloadFile(fileId, authToken, outputPath)"));
+        }
+        return downloadFile(fileId, this.authToken, outputPath);
+    }
+
+    /**
+     * 下载文件（支持断点续传）
+     *
+     * @param request 文件下载请求参数
+     * @return 下载结果
+     */
+    public CompletableFuture<FileDownloadResponse> downloadFile(final FileDownloadRequest request) {
+        final Path target;
+        try {
+            RequestValidator.validateDownloadRequest(request);
+
+            logger.info("Starting file download: {} to {}", request.getFileId(), request.getOutputPath());
+
+            DownloadUtils.createDirectories(request.getOutputPath());
+            target = Paths.get(request.getOutputPath());
+        } catch (GuangYuYunException e) {
+            return failed(e);
+        } catch (IOException e) {
+            return failed(new GuangYuYunException("File download error: " + e.getMessage(), e));
+        }
+
+        // 打开临时文件与续传日志涉及磁盘I/O，在后台线程中执行
+        return getFileInfo(request.getFileId(), request.getAuthToken())
+            .thenComposeAsync(new Function<RemoteFileInfo, CompletionStage<FileDownloadResponse>>() {
+                @Override
+                public CompletionStage<FileDownloadResponse> apply(RemoteFileInfo fileInfo) {
+                    long totalSize = fileInfo.getTotalSize();
+                    if (totalSize < 0) {
+                        return failed(new GuangYuYunException("Unable to determine file size"));
+                    }
+                    if (request.isResumeEnabled() && !DownloadSession.hasPendingDownload(target)
+                            && DownloadUtils.fileExists(request.getOutputPath())
+                            && DownloadUtils.getFileSize(request.getOutputPath()) >= totalSize) {
+                        FileDownloadResponse response = new FileDownloadResponse(true, "File already downloaded");
+                        response.setFilePath(request.getOutputPath());
+                        response.setTotalSize(totalSize);
+                        response.setDownloadedSize(totalSize);
+                        response.setFileId(request.getFileId());
+                        response.setCompleted(true);
+                        return CompletableFuture.completedFuture(response);
+                    }
+
+                    if (totalSize == 0) {
+                        // 空文件没有可请求的区间
+                        try {
+                            Files.write(target, new byte[0]);
+                        } catch (IOException e) {
+                            return failed(new GuangYuYunException("File download error: " + e.getMessage(), e));
+                        }
+                        logger.info("File download completed: {} (empty file)", request.getOutputPath());
+                        FileDownloadResponse response = new FileDownloadResponse(true, "Download completed successfully");
+                        response.setFilePath(request.getOutputPath());
+                        response.setTotalSize(0L);
+                        response.setDownloadedSize(0L);
+                        response.setFileId(request.getFileId());
+                        response.setCompleted(true);
+                        return CompletableFuture.completedFuture(response);
+                    }
+
+                    int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : DownloadUtils.getDefaultChunkSize();
+                    if (!DownloadUtils.isValidChunkSize(chunkSize)) {
+                        chunkSize = DownloadUtils.getDefaultChunkSize();
+                    }
+
+                    DownloadSession session;
+                    try {
+                        session = DownloadSession.open(target, request.getFileId(), totalSize,
+                            fileInfo.getValidator(), chunkSize, request.isResumeEnabled());
+                    } catch (IOException e) {
+                        return failed(new GuangYuYunException("File download error: " + e.getMessage(), e));
+                    }
+                    return new DownloadTask(request, session).start();
+                }
+            }, blockingExecutor);
+    }
+
+    /**
+     * 下载文件分片
+     *
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @param startByte 起始字节
+     * @param endByte 结束字节
+     * @return 分片数据
+     */
+    public CompletableFuture<byte[]> downloadFileChunk(String fileId, String authToken, long startByte, long endByte) {
+        return logFailure("Download range " + startByte + "-" + endByte + " of " + fileId,
+            fetchChunk(fileId, authToken, startByte, endByte));
+    }
+
+    /**
+     * 请求一个区间，失败由调用方决定重试或记录
+     */
+    private CompletableFuture<byte[]> fetchChunk(String fileId, String authToken, long startByte, long endByte) {
+        String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + fileId;
+
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setHeader("AuthToken", authToken);
+        httpGet.setHeader("Range", "bytes=" + startByte + "-" + endByte);
+
+        return execute(httpGet, new ResponseHandler<byte[]>() {
+            @Override
+            public byte[] handle(HttpResponse response) throws IOException, GuangYuYunException {
+                ResponseMapper.checkDownloadStatus(response.getStatusLine().getStatusCode());
+
+                HttpEntity entity = response.getEntity();
+                if (entity == null) {
+                    throw new GuangYuYunException("Empty response from server");
+                }
+                return EntityUtils.toByteArray(entity);
+            }
+        });
+    }
+
+    /**
+     * 获取文件大小
+     *
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @return 文件大小，无法确定时为-1
+     */
+    public CompletableFuture<Long> getFileSize(String fileId, String authToken) {
+        return getFileInfo(fileId, authToken).thenApply(new Function<RemoteFileInfo, Long>() {
+            @Override
+            public Long apply(RemoteFileInfo info) {
+                return info.getTotalSize();
+            }
+        });
+    }
+
+    /**
+     * 获取远端文件信息（总大小与校验标识）
+     *
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @return 文件信息，无法确定大小时totalSize为-1
+     */
+    public CompletableFuture<RemoteFileInfo> getFileInfo(final String fileId, String authToken) {
+        final RemoteFileInfoCache cache = fileInfoCache;
+        RemoteFileInfo cached = cache != null ? cache.get(fileId) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + fileId;
+
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setHeader("AuthToken", authToken);
+        httpGet.setHeader("Range", "bytes=0-0"); // 只请求第一个字节
+
+        return logFailure("Get file info of " + fileId, execute(httpGet, new ResponseHandler<RemoteFileInfo>() {
+            @Override
+            public RemoteFileInfo handle(HttpResponse response) throws GuangYuYunException {
+                ResponseMapper.checkRangeStatus(response.getStatusLine().getStatusCode());
+                RemoteFileInfo info = new RemoteFileInfo(fileId, ResponseMapper.parseTotalSizeFromStart(response),
+                    ResponseMapper.parseValidator(response));
+                if (cache != null) {
+                    cache.put(info);
+                }
+                return info;
+            }
+        }));
+    }
+
+    /**
+     * 获取文件大小（使用统一token）
+     *
+     * @param fileId 文件ID
+     * @return 文件大小
+     */
+    public CompletableFuture<Long> getFileSize(String fileId) {
+        if (!hasAuthToken()) {
+            return failed(new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use getFileSize(fileId, authToken)"));
+        }
+        return getFileSize(fileId, this.authToken);
+    }
+
+    /**
+     * 关闭客户端：停止I/O线程并关闭连接，未完成的请求以异常结束
+     */
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.warn("Error closing HTTP client", e);
+        } finally {
+            retryScheduler.shutdownNow();
+            blockingExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 响应处理回调，在I/O线程中执行，响应体已完整接收
+     */
+    private interface ResponseHandler<T> {
+        T handle(HttpResponse response) throws IOException, GuangYuYunException;
+    }
+
+    /**
+     * 发出请求，把HttpAsyncClient回调转换为CompletableFuture并统一错误映射
+     */
+    private <T> CompletableFuture<T> execute(final HttpUriRequest request, final ResponseHandler<T> handler) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    future.complete(handler.handle(response));
+                } catch (GuangYuYunException e) {
+                    future.completeExceptionally(e);
+                } catch (IOException e) {
+                    logger.debug("Error reading response of {}: {}", request.getRequestLine(), e.getMessage());
+                    future.completeExceptionally(ResponseMapper.networkError(e));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(new GuangYuYunException("Response parse error: " + e.getMessage(), e));
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                // 可能还会重试，最终失败由logFailure或传输任务按error级别记录
+                logger.debug("Error executing {}: {}", request.getRequestLine(), ex.getMessage());
+                future.completeExceptionally(ResponseMapper.networkError(ex));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 计算文件MD5（配置了MD5缓存时优先使用缓存）
+     */
+    private String calculateFileMd5(File file) throws IOException {
+        DigestCache cache = digestCache;
+        if (cache != null) {
+            return cache.getOrCompute(file);
+        }
+        return FileUtils.calculateMD5(file);
+    }
+
+    /**
+     * 第attempt次尝试失败后按重试策略安排重新执行
+     *
+     * @return 已安排重试时返回true；不可重试、策略终止、预算耗尽或客户端已关闭时返回false
+     */
+    private boolean scheduleRetry(String operation, int attempt, Throwable error, Runnable retry) {
+        Throwable cause = unwrap(error);
+        long delay = retryExecutor.retryDelay(attempt, cause);
+        if (delay < 0) {
+            return false;
+        }
+        logger.warn("{} failed (attempt {}): {}, retrying in {} ms", operation, attempt, cause.getMessage(), delay);
+        try {
+            retryScheduler.schedule(retry, delay, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 不再重试的操作最终失败时按error级别记录
+     */
+    private static <T> CompletableFuture<T> logFailure(final String operation, CompletableFuture<T> future) {
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable error) {
+                if (error != null) {
+                    logger.error("{} failed: {}", operation, unwrap(error).getMessage());
+                }
+            }
+        });
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 取出CompletionException包装的原始异常
+     */
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private static <T> BiConsumer<T, Throwable> closing(final Closeable resource) {
+        return new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable error) {
+                closeQuietly(resource);
+            }
+        };
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                logger.debug("Error closing resource: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 大文件分片上传过程：上一分片响应到达后发出下一分片，处理服务端返回的fileIndex与码7重新同步
+     */
+    private class LargeFileUploadTask implements BiConsumer<LargeFileUploadResponse, Throwable> {
+
+        private final CompletableFuture<LargeFileUploadResponse> result = new CompletableFuture<LargeFileUploadResponse>();
+        private final String fileName;
+        private final String fileMd5;
+        private final long fileSize;
+        private final int chunkSize;
+        private final String authToken;
+        private final String notificationLink;
+        private final FileChannel channel;
+        private final UploadSessionStore.Session session;
+        private final AdaptiveChunkSizer sizer;
+        private long currentIndex;
+        private int currentChunkSize;
+        private long chunkStartNanos;
+        private int failures; // 当前分片连续失败次数
+        private int resyncs; // 连续收到码7的次数
+        private LargeFileUploadResponse lastResponse;
+
+        private LargeFileUploadTask(String fileName, String fileMd5, long fileSize, int chunkSize,
+                                    String authToken, String notificationLink, FileChannel channel,
+                                    long startIndex, UploadSessionStore.Session session) {
+            this.fileName = fileName;
+            this.fileMd5 = fileMd5;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.authToken = authToken;
+            this.notificationLink = notificationLink;
+            this.channel = channel;
+            this.currentIndex = startIndex;
+            this.session = session;
+            this.sizer = adaptiveChunkSizing ? AdaptiveChunkSizer.forUpload(chunkSize) : null;
+        }
+
+        private CompletableFuture<LargeFileUploadResponse> start() {
+            next();
+            return result;
+        }
+
+        private void next() {
+            if (currentIndex >= fileSize) {
+                finish(null);
+                return;
+            }
+            currentChunkSize = sizer != null
+                ? sizer.nextChunk(fileSize - currentIndex, FileUtils.getMinChunkSize())
+                : (int) Math.min(chunkSize, fileSize - currentIndex);
+
+            LargeFileUploadRequest request = new LargeFileUploadRequest();
+            request.setFileName(fileName);
+            request.setFileMd5(fileMd5);
+            request.setFileSize(fileSize);
+            request.setFileStartIndex(currentIndex);
+            request.setAuthToken(authToken);
+            request.setNotificationLink(notificationLink);
+            request.setFileRegion(channel, currentIndex, currentChunkSize);
+            chunkStartNanos = System.nanoTime();
+
+            if (session != null) {
+                // 记录上传位置需要落盘，不在I/O线程中执行
+                uploadLargeFileChunk(request).whenCompleteAsync(this, blockingExecutor);
+            } else {
+                uploadLargeFileChunk(request).whenComplete(this);
+            }
+        }
+
+        @Override
+        public void accept(LargeFileUploadResponse response, Throwable error) {
+            if (error != null) {
+                if (sizer != null) {
+                    sizer.recordFailure();
+                }
+                // 按原起始位置重发本分片（自适应时长度减半）；服务端若已收到会返回码7，下面据此重新同步
+                if (!scheduleRetry("Upload chunk at " + currentIndex, ++failures, error, new Runnable() {
+                    @Override
+                    public void run() {
+                        next();
+                    }
+                })) {
+                    finish(error);
+                }
+                return;
+            }
+            failures = 0;
+            retryExecutor.recordSuccess();
+            lastResponse = response;
+            if (response.isSuccess()) {
+                resyncs = 0;
+                if (response.isUploadComplete()) {
+                    logger.info("File upload completed successfully. File ID: {}", response.getId());
+                    completeSession();
+                    finish(null);
+                    return;
+                }
+                currentIndex = response.getFileIndexAsLong();
+                if (sizer != null) {
+                    sizer.record(currentChunkSize, System.nanoTime() - chunkStartNanos);
+                }
+                recordProgress();
+            } else if (response.getCode() == 7) {
+                // 文件索引错误：从服务端期望的位置继续上传；服务端反复拒绝时不再重发
+                if (++resyncs > MAX_CONSECUTIVE_RESYNCS) {
+                    logger.error("Upload of {} failed: server rejected index {} {} times in a row", fileName,
+                        response.getFileIndexAsLong(), resyncs);
+                    finish(null);
+                    return;
+                }
+                logger.debug("Server expects index {} instead of {}", response.getFileIndexAsLong(), currentIndex);
+                currentIndex = response.getFileIndexAsLong();
+                recordProgress();
+            } else {
+                logger.error("Upload of {} failed at {}: {} (code {})", fileName, currentIndex,
+                    response.getMessage(), response.getCode());
+                finish(null);
+                return;
+            }
+            logger.debug("Uploaded chunk: {}/{} bytes", currentIndex, fileSize);
+            next();
+        }
+
+        private void recordProgress() {
+            if (session == null) {
+                return;
+            }
+            try {
+                session.acknowledge(currentIndex);
+            } catch (IOException e) {
+                logger.warn("Failed to record upload progress of {}", fileName, e);
+            }
+        }
+
+        private void completeSession() {
+            if (session == null) {
+                return;
+            }
+            try {
+                session.complete();
+            } catch (IOException e) {
+                logger.warn("Failed to remove upload session of {}", fileName, e);
+            }
+        }
+
+        private void finish(Throwable error) {
+            closeQuietly(channel);
+            if (error != null) {
+                logger.error("Upload of {} failed: {}", fileName, unwrap(error).getMessage());
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(lastResponse);
+            }
+        }
+    }
+
+    /**
+     * 分片下载过程：按顺序请求续传日志中缺失的分段，数据到达后在后台线程写入临时文件对应位置并记入日志，
+     * 写完后请求下一分片
+     */
+    private class DownloadTask implements BiConsumer<Integer, Throwable> {
+
+        private final CompletableFuture<FileDownloadResponse> result = new CompletableFuture<FileDownloadResponse>();
+        private final FileDownloadRequest request;
+        private final DownloadSession session;
+        private final DownloadJournal journal;
+        private final int[] missing;
+        private int cursor;
+        private int segmentIndex;
+        private long currentByte;
+        private long segmentEnd;
+        private long downloaded;
+        private int failures; // 当前区间连续失败次数
+
+        private DownloadTask(FileDownloadRequest request, DownloadSession session) {
+            this.request = request;
+            this.session = session;
+            this.journal = session.getJournal();
+            this.missing = journal.missingSegments();
+        }
+
+        private CompletableFuture<FileDownloadResponse> start() {
+            nextSegment();
+            return result;
+        }
+
+        private void nextSegment() {
+            if (cursor >= missing.length) {
+                finish(null);
+                return;
+            }
+            segmentIndex = missing[cursor++];
+            currentByte = journal.segmentStart(segmentIndex);
+            segmentEnd = journal.segmentEnd(segmentIndex);
+            fetch();
+        }
+
+        private void fetch() {
+            final FileChannel channel = session.getChannel();
+            fetchChunk(request.getFileId(), request.getAuthToken(), currentByte, segmentEnd - 1)
+                .thenApplyAsync(new Function<byte[], Integer>() {
+                    @Override
+                    public Integer apply(byte[] chunkData) {
+                        if (chunkData.length == 0) {
+                            throw new CompletionException(new GuangYuYunException("Received empty chunk data"));
+                        }
+                        if (chunkData.length > segmentEnd - currentByte) {
+                            throw new CompletionException(new GuangYuYunException("Received more data than requested"));
+                        }
+                        try {
+                            ByteBuffer buffer = ByteBuffer.wrap(chunkData);
+                            long position = currentByte;
+                            while (buffer.hasRemaining()) {
+                                position += channel.write(buffer, position);
+                            }
+                        } catch (IOException e) {
+                            throw new CompletionException(new GuangYuYunException("File download error: " + e.getMessage(), e));
+                        }
+                        return chunkData.length;
+                    }
+                }, blockingExecutor)
+                .whenCompleteAsync(this, blockingExecutor);
+        }
+
+        @Override
+        public void accept(Integer written, Throwable error) {
+            if (error != null) {
+                // 只重新请求失败的区间
+                if (!scheduleRetry("Download range " + currentByte + "-" + (segmentEnd - 1), ++failures, error,
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                fetch();
+                            }
+                        })) {
+                    finish(error);
+                }
+                return;
+            }
+            failures = 0;
+            retryExecutor.recordSuccess();
+            currentByte += written;
+            downloaded += written;
+            if (currentByte < segmentEnd) {
+                fetch();
+                return;
+            }
+            try {
+                journal.markComplete(segmentIndex);
+            } catch (IOException e) {
+                finish(new GuangYuYunException("File download error: " + e.getMessage(), e));
+                return;
+            }
+            logger.debug("Downloaded {}/{} bytes", journal.getCompletedBytes(), journal.getTotalSize());
+            nextSegment();
+        }
+
+        private void finish(Throwable error) {
+            if (error == null) {
+                try {
+                    session.complete();
+                } catch (IOException e) {
+                    error = new GuangYuYunException("File download error: " + e.getMessage(), e);
+                }
+            }
+            closeQuietly(session);
+            if (error != null) {
+                logger.error("Download of {} failed: {}", request.getFileId(), unwrap(error).getMessage());
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            FileDownloadResponse response = new FileDownloadResponse(true, "Download completed successfully");
+            response.setFilePath(request.getOutputPath());
+            response.setTotalSize(journal.getTotalSize());
+            response.setDownloadedSize(journal.getTotalSize());
+            response.setFileId(request.getFileId());
+            response.setCompleted(true);
+
+            logger.info("File download completed: {} ({} downloaded)", request.getOutputPath(),
+                DownloadUtils.formatFileSize(downloaded));
+            result.complete(response);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.guangyuyun.sdk;
+
+import com.guangyuyun.sdk.auth.TokenProvider;
+import com.guangyuyun.sdk.cache.DigestCache;
+import com.guangyuyun.sdk.cache.DiskBlockCache;
+import com.guangyuyun.sdk.cache.SmallObjectCache;
+import com.guangyuyun.sdk.download.RemoteFileInfoCache;
+import com.guangyuyun.sdk.metrics.ClientMetrics;
+import com.guangyuyun.sdk.retry.ExponentialBackoffRetryPolicy;
+import com.guangyuyun.sdk.retry.RetryBudget;
+import com.guangyuyun.sdk.retry.RetryPolicy;
+import com.guangyuyun.sdk.transfer.TransferListener;
+import com.guangyuyun.sdk.upload.UploadSessionStore;
+import com.guangyuyun.sdk.util.FileUtils;
+
+/**
+ * 客户端配置
+ *
+ * 连接池、超时与传输相关参数。未设置的项使用默认值，可直接构造后通过setter修改，
+ * 也可以使用{@link GuangYuYunClient#builder()}链式创建客户端。
+ */
+public class ClientConfig {
+
+    public static final String DEFAULT_BASE_URL = "https://gw.halome.cc";
+
+    private String baseUrl = DEFAULT_BASE_URL;
+
+    // 连接池
+    private int maxConnectionsTotal = 64;
+    private int maxConnectionsPerRoute = 32;
+
+    // 超时（毫秒）
+    private int connectTimeoutMillis = 10 * 1000;
+    private int socketTimeoutMillis = 60 * 1000;
+    private int connectionRequestTimeoutMillis = 30 * 1000;
+
+    // 连接保持与回收（毫秒）
+    private long keepAliveMillis = 30 * 1000L;
+    private int validateAfterInactivityMillis = 2 * 1000;
+    private long idleConnectionTimeoutMillis = 60 * 1000L;
+    private long leakDetectionThresholdMillis;
+
+    // 传输
+    private long uploadReadAheadBytes;
+    private int uploadSpoolMemoryBytes = 32 * 1024 * 1024;
+    private DigestCache digestCache;
+    private RemoteFileInfoCache fileInfoCache;
+    private DiskBlockCache diskBlockCache;
+    private SmallObjectCache smallObjectCache;
+    private TokenProvider tokenProvider;
+    private UploadSessionStore uploadSessionStore;
+    private int downloadParallelism = 1;
+    private boolean adaptiveChunkSizing;
+    private int batchConcurrency = 8;
+    private TransferListener transferListener;
+    private long progressIntervalMillis = 1000L;
+    private ClientMetrics metrics;
+
+    // 重试
+    private RetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy();
+    private RetryBudget retryBudget;
+
+    public ClientConfig() {
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * 连接池最大连接数
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * 每个路由（目标主机）的最大连接数
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * 建立连接超时，0表示不限
+     */
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+
+    /**
+     * 读取数据超时（两次数据包之间的最长间隔），0表示不限
+     */
+    public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+        this.socketTimeoutMillis = socketTimeoutMillis;
+    }
+
+    public int getConnectionRequestTimeoutMillis() {
+        return connectionRequestTimeoutMillis;
+    }
+
+    /**
+     * 从连接池获取连接的超时，0表示不限
+     */
+    public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * 服务端未通过Keep-Alive头指定时，空闲连接保持的时长
+     */
+    public void setKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    public int getValidateAfterInactivityMillis() {
+        return validateAfterInactivityMillis;
+    }
+
+    /**
+     * 连接空闲超过该时长后，复用前先检查是否已失效，负数表示不检查
+     */
+    public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis) {
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+    }
+
+    public long getIdleConnectionTimeoutMillis() {
+        return idleConnectionTimeoutMillis;
+    }
+
+    /**
+     * 后台回收线程关闭空闲超过该时长的连接，0表示不启动回收线程
+     */
+    public void setIdleConnectionTimeoutMillis(long idleConnectionTimeoutMillis) {
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    /**
+     * 连接租用超过该时长时记录调用栈告警，0表示不检测
+     */
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    public long getUploadReadAheadBytes() {
+        return uploadReadAheadBytes;
+    }
+
+    /**
+     * 大文件上传预读预算（字节），0表示不预读，否则不小于最大分片大小（10MB）
+     */
+    public void setUploadReadAheadBytes(long uploadReadAheadBytes) {
+        this.uploadReadAheadBytes = uploadReadAheadBytes;
+    }
+
+    public int getUploadSpoolMemoryBytes() {
+        return uploadSpoolMemoryBytes;
+    }
+
+    /**
+     * 流式上传内存暂存上限（字节）
+     */
+    public void setUploadSpoolMemoryBytes(int uploadSpoolMemoryBytes) {
+        this.uploadSpoolMemoryBytes = uploadSpoolMemoryBytes;
+    }
+
+    public DigestCache getDigestCache() {
+        return digestCache;
+    }
+
+    /**
+     * 文件MD5持久化缓存
+     */
+    public void setDigestCache(DigestCache digestCache) {
+        this.digestCache = digestCache;
+    }
+
+    public RemoteFileInfoCache getFileInfoCache() {
+        return fileInfoCache;
+    }
+
+    /**
+     * 远端文件信息短期缓存，重复下载或查询同一文件时不再单独探测文件大小
+     */
+    public void setFileInfoCache(RemoteFileInfoCache fileInfoCache) {
+        this.fileInfoCache = fileInfoCache;
+    }
+
+    public DiskBlockCache getDiskBlockCache() {
+        return diskBlockCache;
+    }
+
+    /**
+     * 本地磁盘块缓存，区间读取优先从本地读取
+     */
+    public void setDiskBlockCache(DiskBlockCache diskBlockCache) {
+        this.diskBlockCache = diskBlockCache;
+    }
+
+    public SmallObjectCache getSmallObjectCache() {
+        return smallObjectCache;
+    }
+
+    /**
+     * 小文件内存缓存，重复读取同一小文件时不再发出请求
+     */
+    public void setSmallObjectCache(SmallObjectCache smallObjectCache) {
+        this.smallObjectCache = smallObjectCache;
+    }
+
+    public TokenProvider getTokenProvider() {
+        return tokenProvider;
+    }
+
+    /**
+     * 令牌提供方，提前刷新token并在token失效时重发请求
+     */
+    public void setTokenProvider(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    public UploadSessionStore getUploadSessionStore() {
+        return uploadSessionStore;
+    }
+
+    /**
+     * 大文件上传会话存储，用于进程重启后续传
+     */
+    public void setUploadSessionStore(UploadSessionStore uploadSessionStore) {
+        this.uploadSessionStore = uploadSessionStore;
+    }
+
+    public int getDownloadParallelism() {
+        return downloadParallelism;
+    }
+
+    /**
+     * 文件下载默认分段并行数，1表示顺序下载
+     */
+    public void setDownloadParallelism(int downloadParallelism) {
+        this.downloadParallelism = downloadParallelism;
+    }
+
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+
+    /**
+     * 批量上传/下载同时占用的连接数（分段并行下载的文件按其并行数计），共用连接池，不宜超过单路由最大连接数
+     */
+    public void setBatchConcurrency(int batchConcurrency) {
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    public boolean isAdaptiveChunkSizing() {
+        return adaptiveChunkSizing;
+    }
+
+    /**
+     * 按实测吞吐自适应调整上传/下载分片大小
+     */
+    public void setAdaptiveChunkSizing(boolean adaptiveChunkSizing) {
+        this.adaptiveChunkSizing = adaptiveChunkSizing;
+    }
+
+    public TransferListener getTransferListener() {
+        return transferListener;
+    }
+
+    /**
+     * 大文件上传与文件下载的过程回调
+     */
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener;
+    }
+
+    public long getProgressIntervalMillis() {
+        return progressIntervalMillis;
+    }
+
+    /**
+     * 进度事件的最小间隔（毫秒），0表示每个分片完成后都发布
+     */
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 请求延迟、传输量、重试与连接池等指标的记录方式
+     */
+    public void setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * 分片与区间请求的重试策略，null表示不重试
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * 重试预算，未设置时每个客户端使用独立的默认预算
+     */
+    public void setRetryBudget(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * 检查配置是否有效；创建客户端、异步客户端与传输层时都会调用
+     *
+     * @throws IllegalArgumentException 配置无效时
+     */
+    public void validate() {
+        if (baseUrl != null && !baseUrl.startsWith("http://") && !baseUrl.startsWith("https://")) {
+            throw new IllegalArgumentException("Base URL must start with http:// or https://: " + baseUrl);
+        }
+        if (maxConnectionsTotal <= 0 || maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("Connection limits must be positive numbers");
+        }
+        if (maxConnectionsPerRoute > maxConnectionsTotal) {
+            throw new IllegalArgumentException("Max connections per route cannot exceed max connections total");
+        }
+        if (connectTimeoutMillis < 0 || socketTimeoutMillis < 0 || connectionRequestTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeouts cannot be negative");
+        }
+        if (idleConnectionTimeoutMillis < 0 || leakDetectionThresholdMillis < 0) {
+            throw new IllegalArgumentException("Idle connection timeout and leak detection threshold cannot be negative");
+        }
+        if (uploadSpoolMemoryBytes < 0) {
+            throw new IllegalArgumentException("Upload buffer sizes cannot be negative");
+        }
+        checkUploadReadAheadBytes(uploadReadAheadBytes);
+        if (downloadParallelism < 1) {
+            throw new IllegalArgumentException("Download parallelism must be a positive number");
+        }
+        if (progressIntervalMillis < 0) {
+            throw new IllegalArgumentException("Progress interval cannot be negative");
+        }
+        if (batchConcurrency < 1) {
+            throw new IllegalArgumentException("Batch concurrency must be a positive number");
+        }
+    }
+
+    static void checkUploadReadAheadBytes(long uploadReadAheadBytes) {
+        if (uploadReadAheadBytes < 0) {
+            throw new IllegalArgumentException("Upload read-ahead budget cannot be negative");
+        }
+        if (uploadReadAheadBytes > 0 && uploadReadAheadBytes < FileUtils.getMaxChunkSize()) {
+            throw new IllegalArgumentException("Upload read-ahead budget must be 0 or at least the max chunk size ("
+                    + FileUtils.getMaxChunkSize() + " bytes)");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClientConfig{" +
+                "baseUrl='" + baseUrl + '\'' +
+                ", maxConnectionsTotal=" + maxConnectionsTotal +
+                ", maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+                ", connectTimeoutMillis=" + connectTimeoutMillis +
+                ", socketTimeoutMillis=" + socketTimeoutMillis +
+                ", connectionRequestTimeoutMillis=" + connectionRequestTimeoutMillis +
+                ", keepAliveMillis=" + keepAliveMillis +
+                ", validateAfterInactivityMillis=" + validateAfterInactivityMillis +
+                ", idleConnectionTimeoutMillis=" + idleConnectionTimeoutMillis +
+                ", leakDetectionThresholdMillis=" + leakDetectionThresholdMillis +
+                ", uploadReadAheadBytes=" + uploadReadAheadBytes +
+                ", uploadSpoolMemoryBytes=" + uploadSpoolMemoryBytes +
+                ", downloadParallelism=" + downloadParallelism +
+                ", adaptiveChunkSizing=" + adaptiveChunkSizing +
+                ", batchConcurrency=" + batchConcurrency +
+                ", progressIntervalMillis=" + progressIntervalMillis +
+                ", retryPolicy=" + retryPolicy +
+                '}';
+    }
+}
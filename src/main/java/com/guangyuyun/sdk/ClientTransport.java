@@ -0,0 +1,258 @@
+package com.guangyuyun.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guangyuyun.sdk.auth.TokenProvider;
+import com.guangyuyun.sdk.http.ConnectionLeakDetector;
+import com.guangyuyun.sdk.http.DefaultKeepAliveStrategy;
+import com.guangyuyun.sdk.http.JsonResponseReader;
+import com.guangyuyun.sdk.metrics.ConnectionPoolStats;
+import com.guangyuyun.sdk.model.LargeFileUploadResponse;
+import com.guangyuyun.sdk.model.SmallFileUploadResponse;
+import com.guangyuyun.sdk.model.TokenResponse;
+import com.guangyuyun.sdk.retry.RetryBudget;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可被多个客户端共享的传输层
+ *
+ * 包含连接池、HTTP客户端、JSON序列化器与响应解析器、重试预算以及并行下载和批量传输线程池。
+ * 服务多个租户时创建一个传输层，再为每个租户创建轻量的客户端视图，各视图使用自己的token或令牌提供方，
+ * 共享连接与线程，不必为每个租户各建一个连接池。
+ *
+ * 视图不继承配置中的令牌提供方、上传会话存储和按文件ID索引的缓存（文件信息、磁盘块、小文件缓存），
+ * 避免租户之间绕过鉴权读到彼此的数据，需要时在视图上单独设置；其余传输参数（分片并行数、重试策略等）沿用配置。
+ * 关闭视图不影响传输层，传输层关闭后所有视图不可再使用。
+ */
+public class ClientTransport implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientTransport.class);
+
+    private final ClientConfig config;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ConnectionLeakDetector leakDetector; // 连接泄漏检测（可选）
+    private final ObjectMapper objectMapper;
+    private final JsonResponseReader<TokenResponse> tokenReader;
+    private final JsonResponseReader<SmallFileUploadResponse> smallFileUploadReader;
+    private final JsonResponseReader<LargeFileUploadResponse> largeFileUploadReader;
+    private final RetryBudget retryBudget;
+    private final ConnectionPoolStats connectionPoolStats; // 供指标绑定的连接池状态
+    private ExecutorService downloadExecutor; // 并行下载线程池，首次使用时创建
+    private ExecutorService batchExecutor; // 批量传输线程池，首次使用时创建
+
+    /**
+     * @param config 客户端配置，连接池与超时参数在创建时生效
+     * @throws IllegalArgumentException 配置无效时
+     */
+    public ClientTransport(ClientConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Client config cannot be null");
+        }
+        config.validate();
+        this.config = config;
+        this.connectionManager = createConnectionManager(config);
+        this.httpClient = createHttpClient(config, connectionManager);
+        this.leakDetector = config.getLeakDetectionThresholdMillis() > 0
+                ? new ConnectionLeakDetector(config.getLeakDetectionThresholdMillis(), TimeUnit.MILLISECONDS)
+                : null;
+        this.objectMapper = new ObjectMapper();
+        this.tokenReader = new JsonResponseReader<TokenResponse>(objectMapper, TokenResponse.class);
+        this.smallFileUploadReader = new JsonResponseReader<SmallFileUploadResponse>(objectMapper, SmallFileUploadResponse.class);
+        this.largeFileUploadReader = new JsonResponseReader<LargeFileUploadResponse>(objectMapper, LargeFileUploadResponse.class);
+        this.retryBudget = config.getRetryBudget() != null ? config.getRetryBudget() : new RetryBudget();
+        this.connectionPoolStats = new ConnectionPoolStats() {
+            @Override
+            public int getLeased() {
+                return connectionManager.getTotalStats().getLeased();
+            }
+
+            @Override
+            public int getPending() {
+                return connectionManager.getTotalStats().getPending();
+            }
+
+            @Override
+            public int getAvailable() {
+                return connectionManager.getTotalStats().getAvailable();
+            }
+
+            @Override
+            public int getMax() {
+                return connectionManager.getTotalStats().getMax();
+            }
+        };
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager(ClientConfig config) {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(config.getMaxConnectionsTotal());
+        manager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        manager.setValidateAfterInactivity(config.getValidateAfterInactivityMillis());
+        return manager;
+    }
+
+    private static CloseableHttpClient createHttpClient(ClientConfig config, PoolingHttpClientConnectionManager manager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getConnectTimeoutMillis())
+                .setSocketTimeout(config.getSocketTimeoutMillis())
+                .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis())
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new DefaultKeepAliveStrategy(config.getKeepAliveMillis()))
+                .evictExpiredConnections();
+        if (config.getIdleConnectionTimeoutMillis() > 0) {
+            builder.evictIdleConnections(config.getIdleConnectionTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 创建共享本传输层的客户端视图，不带token
+     */
+    public GuangYuYunClient newClient() {
+        return new GuangYuYunClient(this, config, false);
+    }
+
+    /**
+     * 创建使用指定统一token的客户端视图
+     */
+    public GuangYuYunClient newClient(String authToken) {
+        GuangYuYunClient client = newClient();
+        client.setAuthToken(authToken);
+        return client;
+    }
+
+    /**
+     * 创建使用令牌提供方的客户端视图，每个请求的token由提供方给出
+     */
+    public GuangYuYunClient newClient(TokenProvider tokenProvider) {
+        GuangYuYunClient client = newClient();
+        client.setTokenProvider(tokenProvider);
+        return client;
+    }
+
+    ClientConfig getConfig() {
+        return config;
+    }
+
+    CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    ConnectionLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    JsonResponseReader<TokenResponse> getTokenReader() {
+        return tokenReader;
+    }
+
+    JsonResponseReader<SmallFileUploadResponse> getSmallFileUploadReader() {
+        return smallFileUploadReader;
+    }
+
+    JsonResponseReader<LargeFileUploadResponse> getLargeFileUploadReader() {
+        return largeFileUploadReader;
+    }
+
+    RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    ConnectionPoolStats getConnectionPoolStats() {
+        return connectionPoolStats;
+    }
+
+    synchronized ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            batchExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "guangyuyun-batch-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return batchExecutor;
+    }
+
+    synchronized ExecutorService getDownloadExecutor() {
+        if (downloadExecutor == null) {
+            downloadExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "guangyuyun-download-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return downloadExecutor;
+    }
+
+    /**
+     * 获取连接池统计（租用中、空闲、等待中的连接数及上限），为所有视图的合计
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * 关闭连接池与线程池，所有视图随之不可用
+     */
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            logger.warn("Error closing HTTP client", e);
+        } finally {
+            if (leakDetector != null) {
+                leakDetector.close();
+            }
+            synchronized (this) {
+                if (downloadExecutor != null) {
+                    downloadExecutor.shutdownNow();
+                }
+                if (batchExecutor != null) {
+                    batchExecutor.shutdownNow();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClientTransport{" +
+                "baseUrl='" + config.getBaseUrl() + '\'' +
+                ", poolStats=" + getPoolStats() +
+                '}';
+    }
+}
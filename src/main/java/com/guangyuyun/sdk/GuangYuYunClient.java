@@ -1,7 +1,29 @@
 package com.guangyuyun.sdk;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.guangyuyun.sdk.auth.RefreshingTokenProvider;
+import com.guangyuyun.sdk.auth.TokenProvider;
+import com.guangyuyun.sdk.batch.BatchDownloadListener;
+import com.guangyuyun.sdk.batch.BatchDownloadResult;
+import com.guangyuyun.sdk.batch.BatchRunner;
+import com.guangyuyun.sdk.batch.BatchUploadListener;
+import com.guangyuyun.sdk.batch.BatchUploadResult;
+import com.guangyuyun.sdk.cache.DigestCache;
+import com.guangyuyun.sdk.cache.DiskBlockCache;
+import com.guangyuyun.sdk.cache.SmallObjectCache;
+import com.guangyuyun.sdk.download.CachingRangeFetcher;
+import com.guangyuyun.sdk.download.DownloadJournal;
+import com.guangyuyun.sdk.download.DownloadSession;
+import com.guangyuyun.sdk.download.RemoteChannelOptions;
+import com.guangyuyun.sdk.download.RemoteFileInfo;
+import com.guangyuyun.sdk.download.RemoteFileInfoCache;
+import com.guangyuyun.sdk.download.RemoteSeekableChannel;
+import com.guangyuyun.sdk.download.SegmentedDownload;
 import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.http.ConnectionLeakDetector;
+import com.guangyuyun.sdk.http.FileRegionEntity;
+import com.guangyuyun.sdk.http.JsonResponseReader;
+import com.guangyuyun.sdk.metrics.ClientMetrics;
 import com.guangyuyun.sdk.model.FileDownloadRequest;
 import com.guangyuyun.sdk.model.FileDownloadResponse;
 import com.guangyuyun.sdk.model.LargeFileUploadRequest;
@@ -10,28 +32,64 @@ import com.guangyuyun.sdk.model.SmallFileUploadRequest;
 import com.guangyuyun.sdk.model.SmallFileUploadResponse;
 import com.guangyuyun.sdk.model.TokenRequest;
 import com.guangyuyun.sdk.model.TokenResponse;
+import com.guangyuyun.sdk.retry.RetryBudget;
+import com.guangyuyun.sdk.retry.RetryExecutor;
+import com.guangyuyun.sdk.retry.RetryPolicy;
+import com.guangyuyun.sdk.transfer.TransferEvent;
+import com.guangyuyun.sdk.transfer.TransferListener;
+import com.guangyuyun.sdk.transfer.TransferTracker;
+import com.guangyuyun.sdk.upload.ChunkSource;
+import com.guangyuyun.sdk.upload.FileRegionChunkSource;
+import com.guangyuyun.sdk.upload.ReadAheadChunkSource;
+import com.guangyuyun.sdk.upload.UploadSessionStore;
+import com.guangyuyun.sdk.upload.UploadSpool;
+import com.guangyuyun.sdk.util.AdaptiveChunkSizer;
 import com.guangyuyun.sdk.util.DownloadUtils;
 import com.guangyuyun.sdk.util.FileUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.InputStreamBody;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * GuangYuYun API客户端
@@ -40,16 +98,40 @@ public class GuangYuYunClient {
     
     private static final Logger logger = LoggerFactory.getLogger(GuangYuYunClient.class);
     
-    private static final String DEFAULT_BASE_URL = "https://gw.halome.cc";
+    private static final String DEFAULT_BASE_URL = ClientConfig.DEFAULT_BASE_URL;
     private static final String CREATE_TOKEN_ENDPOINT = "/u/createToken";//创建Token
     private static final String LARGE_FILE_UPLOAD_ENDPOINT = "/v1/addLargeFile";//大文件上传
     private static final String SMALL_FILE_UPLOAD_ENDPOINT = "/v1/add";//小文件上传
     private static final String FILE_DOWNLOAD_ENDPOINT = "/v1/cat";//下载
     
+    private static final long SMALL_FILE_MAX_SIZE = 100 * 1024 * 1024; // 小文件接口上限100MB
+    private static final int MAX_CONSECUTIVE_RESYNCS = 5; // 服务端连续拒绝同一索引的次数上限
+    
     private final String baseUrl;
-    private final HttpClient httpClient;
+    private final ClientTransport transport; // 连接池、线程池等共享资源
+    private final boolean ownsTransport; // 是否由本客户端创建并负责关闭传输层
+    private final CloseableHttpClient httpClient;
+    private final ConnectionLeakDetector leakDetector; // 连接泄漏检测（可选）
     private final ObjectMapper objectMapper;
+    private final JsonResponseReader<TokenResponse> tokenReader;
+    private final JsonResponseReader<SmallFileUploadResponse> smallFileUploadReader;
+    private final JsonResponseReader<LargeFileUploadResponse> largeFileUploadReader;
     private String authToken; // 统一的认证token
+    private volatile TokenProvider tokenProvider; // 令牌提供方（可选），设置后优先于统一token
+    private long uploadReadAheadBytes; // 大文件上传预读预算，0表示不预读
+    private DigestCache digestCache; // 文件MD5持久化缓存（可选）
+    private RemoteFileInfoCache fileInfoCache; // 远端文件信息短期缓存（可选）
+    private DiskBlockCache diskBlockCache; // 本地磁盘块缓存（可选）
+    private SmallObjectCache smallObjectCache; // 小文件内存缓存（可选）
+    private UploadSessionStore uploadSessionStore; // 大文件上传会话存储（可选）
+    private int uploadSpoolMemoryBytes; // 流式上传内存暂存上限
+    private int downloadParallelism; // 默认下载分段并行数，1表示顺序下载
+    private boolean adaptiveChunkSizing; // 按实测吞吐调整上传/下载分片大小
+    private volatile RetryExecutor retryExecutor; // 分片/区间请求的重试策略与预算
+    private int batchConcurrency; // 批量传输同时占用的连接数
+    private volatile TransferListener transferListener; // 大文件上传与下载过程回调（可选）
+    private long progressIntervalMillis; // 进度事件的最小间隔
+    private volatile ClientMetrics metrics; // 请求与传输指标（可选）
     
     /**
      * 使用默认配置创建客户端
@@ -62,9 +144,67 @@ public class GuangYuYunClient {
      * 使用自定义基础URL创建客户端
      */
     public GuangYuYunClient(String baseUrl) {
-        this.baseUrl = baseUrl;
-        this.httpClient = HttpClients.createDefault();
-        this.objectMapper = new ObjectMapper();
+        this(configWithBaseUrl(baseUrl));
+    }
+    
+    /**
+     * 使用自定义配置创建客户端
+     * 
+     * @param config 客户端配置
+     * @throws IllegalArgumentException 配置无效时（如连接数、超时为负数）
+     */
+    public GuangYuYunClient(ClientConfig config) {
+        this(new ClientTransport(config), config, true);
+    }
+    
+    /**
+     * @param transport 传输层
+     * @param config 客户端配置
+     * @param ownsTransport 为false时是共享传输层的视图，不继承凭证与按文件ID索引的缓存，关闭时不关闭传输层
+     */
+    GuangYuYunClient(ClientTransport transport, ClientConfig config, boolean ownsTransport) {
+        this.baseUrl = config.getBaseUrl() != null ? config.getBaseUrl() : DEFAULT_BASE_URL;
+        this.transport = transport;
+        this.ownsTransport = ownsTransport;
+        this.httpClient = transport.getHttpClient();
+        this.leakDetector = transport.getLeakDetector();
+        this.objectMapper = transport.getObjectMapper();
+        this.tokenReader = transport.getTokenReader();
+        this.smallFileUploadReader = transport.getSmallFileUploadReader();
+        this.largeFileUploadReader = transport.getLargeFileUploadReader();
+        this.uploadReadAheadBytes = config.getUploadReadAheadBytes();
+        this.uploadSpoolMemoryBytes = config.getUploadSpoolMemoryBytes();
+        this.digestCache = config.getDigestCache();
+        if (ownsTransport) {
+            this.fileInfoCache = config.getFileInfoCache();
+            this.diskBlockCache = config.getDiskBlockCache();
+            this.smallObjectCache = config.getSmallObjectCache();
+            this.tokenProvider = config.getTokenProvider();
+            this.uploadSessionStore = config.getUploadSessionStore();
+        }
+        this.downloadParallelism = config.getDownloadParallelism();
+        this.adaptiveChunkSizing = config.isAdaptiveChunkSizing();
+        this.batchConcurrency = config.getBatchConcurrency();
+        this.transferListener = config.getTransferListener();
+        this.progressIntervalMillis = config.getProgressIntervalMillis();
+        this.metrics = config.getMetrics();
+        if (metrics != null) {
+            metrics.bindConnectionPool(transport.getConnectionPoolStats());
+        }
+        this.retryExecutor = new RetryExecutor(config.getRetryPolicy(), transport.getRetryBudget());
+    }
+    
+    /**
+     * 创建客户端构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    private static ClientConfig configWithBaseUrl(String baseUrl) {
+        ClientConfig config = new ClientConfig();
+        config.setBaseUrl(baseUrl);
+        return config;
     }
     
     /**
@@ -83,16 +223,48 @@ public class GuangYuYunClient {
      * @return 当前认证token
      */
     public String getAuthToken() {
+        if (tokenProvider != null) {
+            try {
+                return tokenProvider.getToken();
+            } catch (GuangYuYunException e) {
+                logger.warn("Failed to get token from provider: {}", e.getMessage());
+                return null;
+            }
+        }
         return this.authToken;
     }
     
     /**
-     * 检查是否已设置认证Token
+     * 检查是否已设置认证Token或令牌提供方
      * 
      * @return 是否已设置token
      */
     public boolean hasAuthToken() {
-        return this.authToken != null && !this.authToken.trim().isEmpty();
+        return tokenProvider != null || (this.authToken != null && !this.authToken.trim().isEmpty());
+    }
+    
+    /**
+     * 统一token：设置了令牌提供方时从提供方获取
+     */
+    private String currentAuthToken() throws GuangYuYunException {
+        TokenProvider provider = tokenProvider;
+        return provider != null ? provider.getToken() : this.authToken;
+    }
+    
+    /**
+     * 设置令牌提供方
+     * 
+     * 设置后，不带token参数的方法从提供方获取token；由提供方签发的token在每个请求（包括分片重试）发出前
+     * 换成当前有效的token，请求因token失效被拒绝（HTTP 401）时换取新token并重发一次，请求体不可重复读取时除外。
+     * 
+     * @param tokenProvider 令牌提供方，如{@link RefreshingTokenProvider}，null表示不使用
+     */
+    public void setTokenProvider(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+    
+    public TokenProvider getTokenProvider() {
+        return tokenProvider;
     }
     
     /**
@@ -103,6 +275,235 @@ public class GuangYuYunClient {
         logger.info("Auth token has been cleared");
     }
     
+    /**
+     * 设置大文件上传的预读预算
+     * 
+     * 大于0时，后台线程在当前分片发送期间预先读取后续分片，已暂存与正在发送的分片总字节数不超过该预算。
+     * 预算不能小于最大分片大小（10MB，自适应分片与合并后的最后一片都不超过该值）；
+     * 建议至少为2倍分片大小（可预读N+1），3倍可预读N+2。
+     * 
+     * @param uploadReadAheadBytes 预读预算（字节），0表示关闭预读
+     */
+    public void setUploadReadAheadBytes(long uploadReadAheadBytes) {
+        ClientConfig.checkUploadReadAheadBytes(uploadReadAheadBytes);
+        this.uploadReadAheadBytes = uploadReadAheadBytes;
+    }
+    
+    public long getUploadReadAheadBytes() {
+        return uploadReadAheadBytes;
+    }
+
+    /**
+     * 设置文件MD5持久化缓存
+     * 
+     * 设置后，大文件上传在计算MD5前先查询缓存，文件未变化（路径、大小、修改时间、inode一致）时直接复用，
+     * 重试或续传同一文件时无需再次完整读取文件。
+     * 
+     * @param digestCache MD5缓存，null表示不使用缓存
+     */
+    public void setDigestCache(DigestCache digestCache) {
+        this.digestCache = digestCache;
+    }
+    
+    public DigestCache getDigestCache() {
+        return digestCache;
+    }
+    
+    /**
+     * 设置远端文件信息缓存，有效期内重复下载或查询同一文件时不再单独探测文件大小
+     * 
+     * @param fileInfoCache 文件信息缓存，null表示不缓存
+     */
+    public void setFileInfoCache(RemoteFileInfoCache fileInfoCache) {
+        this.fileInfoCache = fileInfoCache;
+    }
+    
+    public RemoteFileInfoCache getFileInfoCache() {
+        return fileInfoCache;
+    }
+    
+    /**
+     * 设置本地磁盘块缓存
+     * 
+     * 设置后，区间下载、分片下载、整文件下载与随机读取通道按块先查本地缓存，缺失的块从服务端取回后写入缓存。
+     * 同一目录的缓存可以被同一主机上的多个进程共享。缓存按文件ID索引，远端文件内容被替换后应换用新的文件ID或清空缓存目录。
+     * 
+     * @param diskBlockCache 磁盘块缓存，null表示不使用
+     */
+    public void setDiskBlockCache(DiskBlockCache diskBlockCache) {
+        this.diskBlockCache = diskBlockCache;
+    }
+    
+    public DiskBlockCache getDiskBlockCache() {
+        return diskBlockCache;
+    }
+    
+    /**
+     * 设置小文件内存缓存
+     * 
+     * 设置后，readObject与downloadFileChunk先查缓存，命中时直接返回缓存内容中的对应区间，不发出请求。
+     * readObject以及从0开始、取得了整个文件的downloadFileChunk(byte[])会把文件内容放入缓存。
+     * 
+     * @param smallObjectCache 小文件缓存，null表示不使用
+     */
+    public void setSmallObjectCache(SmallObjectCache smallObjectCache) {
+        this.smallObjectCache = smallObjectCache;
+    }
+    
+    public SmallObjectCache getSmallObjectCache() {
+        return smallObjectCache;
+    }
+    
+    /**
+     * 设置大文件上传会话存储
+     * 
+     * 设置后，每个分片被服务端确认时记录上传位置。进程重启后再次上传同一文件（路径、大小、修改时间、inode一致）
+     * 时直接复用记录的MD5与分片大小，从已确认位置继续上传。存储由调用方创建和关闭。
+     * 
+     * @param uploadSessionStore 会话存储，null表示不记录
+     */
+    public void setUploadSessionStore(UploadSessionStore uploadSessionStore) {
+        this.uploadSessionStore = uploadSessionStore;
+    }
+    
+    public UploadSessionStore getUploadSessionStore() {
+        return uploadSessionStore;
+    }
+    
+    /**
+     * 设置是否按实测吞吐自适应调整分片大小
+     * 
+     * 开启后，指定的（或默认的）分片大小作为初始值，每个分片完成后根据耗时与吞吐调整后续分片：
+     * 上传在1MB-10MB之间调整（仍保证最后一片不小于1MB），下载把相邻的续传分段合并为更大的Range请求（最大10MB）。
+     * 高延迟链路上可显著减少往返次数带来的带宽浪费。
+     * 
+     * @param adaptiveChunkSizing 是否开启
+     */
+    public void setAdaptiveChunkSizing(boolean adaptiveChunkSizing) {
+        this.adaptiveChunkSizing = adaptiveChunkSizing;
+    }
+    
+    public boolean isAdaptiveChunkSizing() {
+        return adaptiveChunkSizing;
+    }
+    
+    /**
+     * 设置重试策略
+     * 
+     * 大文件上传与文件下载过程中，连接重置、超时、5xx等可重试的失败只重发失败的分片或区间：
+     * 下载从已写入的位置继续请求剩余区间；上传按原起始位置重发分片，若服务端其实已收到，
+     * 会以码7返回其期望的位置，上传循环据此重新同步。重试次数同时受客户端级别的重试预算限制。
+     * 
+     * @param retryPolicy 重试策略，null表示不重试
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryExecutor = new RetryExecutor(retryPolicy, retryExecutor.getBudget());
+    }
+    
+    public RetryPolicy getRetryPolicy() {
+        return retryExecutor.getPolicy();
+    }
+    
+    public RetryBudget getRetryBudget() {
+        return retryExecutor.getBudget();
+    }
+    
+    /**
+     * 设置流式上传的内存暂存上限，超过后转存到临时文件
+     * 
+     * @param uploadSpoolMemoryBytes 内存暂存上限（字节），默认32MB
+     */
+    public void setUploadSpoolMemoryBytes(int uploadSpoolMemoryBytes) {
+        if (uploadSpoolMemoryBytes < 0) {
+            throw new IllegalArgumentException("Upload spool memory cannot be negative");
+        }
+        this.uploadSpoolMemoryBytes = uploadSpoolMemoryBytes;
+    }
+    
+    public int getUploadSpoolMemoryBytes() {
+        return uploadSpoolMemoryBytes;
+    }
+    
+    /**
+     * 设置默认下载分段并行数（大于1时分段并发下载），可被FileDownloadRequest.setParallelism覆盖
+     */
+    public void setDownloadParallelism(int downloadParallelism) {
+        if (downloadParallelism < 1) {
+            throw new IllegalArgumentException("Download parallelism must be a positive number");
+        }
+        this.downloadParallelism = downloadParallelism;
+    }
+    
+    public int getDownloadParallelism() {
+        return downloadParallelism;
+    }
+    
+    /**
+     * 设置批量上传/下载同时占用的连接数（分段并行下载的文件按其并行数计）
+     */
+    public void setBatchConcurrency(int batchConcurrency) {
+        if (batchConcurrency < 1) {
+            throw new IllegalArgumentException("Batch concurrency must be a positive number");
+        }
+        this.batchConcurrency = batchConcurrency;
+    }
+    
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+    
+    /**
+     * 设置大文件上传与文件下载的过程回调
+     * 
+     * 回调收到开始、分片完成、码7重新同步、重试、进度、完成与失败事件。未设置时不创建任何事件对象，
+     * 传输过程也不再输出到标准输出，详细信息按debug级别记录日志。
+     * 
+     * @param transferListener 回调，null表示不回调
+     */
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener;
+    }
+    
+    public TransferListener getTransferListener() {
+        return transferListener;
+    }
+    
+    /**
+     * 设置进度事件的最小间隔
+     * 
+     * @param interval 间隔，0表示每个分片完成后都发布进度，默认1秒
+     * @param unit 间隔单位
+     */
+    public void setProgressInterval(long interval, TimeUnit unit) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("Progress interval cannot be negative");
+        }
+        this.progressIntervalMillis = unit.toMillis(interval);
+    }
+    
+    public long getProgressIntervalMillis() {
+        return progressIntervalMillis;
+    }
+    
+    /**
+     * 设置指标记录
+     * 
+     * 每个请求记录一次延迟与成功/失败，上传分片、下载区间与小文件记录传输字节数与吞吐，
+     * 另记录重试、码7重新同步、token创建次数，并绑定连接池的租用与等待数。未设置时不计时。
+     * 
+     * @param metrics 指标记录，如{@link com.guangyuyun.sdk.metrics.InMemoryClientMetrics}，null表示不记录
+     */
+    public void setMetrics(ClientMetrics metrics) {
+        if (metrics != null) {
+            metrics.bindConnectionPool(transport.getConnectionPoolStats());
+        }
+        this.metrics = metrics;
+    }
+    
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+    
     /**
      * 创建Token
      * 
@@ -125,7 +526,7 @@ public class GuangYuYunClient {
      * @throws GuangYuYunException 当请求失败时抛出异常
      */
     public TokenResponse createToken(TokenRequest request) throws GuangYuYunException {
-        validateRequest(request);
+        RequestValidator.validateTokenRequest(request);
         
         try {
             String url = baseUrl + CREATE_TOKEN_ENDPOINT;
@@ -138,28 +539,16 @@ public class GuangYuYunClient {
             httpPost.setHeader("Content-Type", "application/json; charset=UTF-8");
             httpPost.setEntity(new StringEntity(jsonRequest, StandardCharsets.UTF_8));
             
-            HttpResponse response = httpClient.execute(httpPost);
-            HttpEntity entity = response.getEntity();
-            
-            if (entity != null) {
-                String responseBody = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-                logger.debug("Response body: {}", responseBody);
-                
-                TokenResponse tokenResponse = objectMapper.readValue(responseBody, TokenResponse.class);
-                
-                if (!tokenResponse.isSuccess()) {
-                    throw new GuangYuYunException(tokenResponse.getCode(), 
-                        "Failed to create token: " + tokenResponse.getMessage(),tokenResponse.getCode());
+            return execute(ClientMetrics.Operation.CREATE_TOKEN, httpPost, new ResponseHandler<TokenResponse>() {
+                @Override
+                public TokenResponse handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    return ResponseMapper.checkTokenResponse(tokenReader.read(response));
                 }
-                
-                return tokenResponse;
-            } else {
-                throw new GuangYuYunException("Empty response from server");
-            }
+            });
             
         } catch (IOException e) {
             logger.error("Error creating token", e);
-            throw new GuangYuYunException("Network error: " + e.getMessage(), e);
+            throw ResponseMapper.networkError(e);
         }
     }
     
@@ -188,7 +577,7 @@ public class GuangYuYunClient {
         if (!hasAuthToken()) {
             throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use uploadSmallFile(file, authToken)");
         }
-        return uploadSmallFile(file, this.authToken);
+        return uploadSmallFile(file, currentAuthToken());
     }
     
     /**
@@ -199,8 +588,9 @@ public class GuangYuYunClient {
      * @throws GuangYuYunException 当请求失败时抛出异常
      */
     public SmallFileUploadResponse uploadSmallFile(SmallFileUploadRequest request) throws GuangYuYunException {
-        validateSmallFileUploadRequest(request);
+        RequestValidator.validateSmallFileUploadRequest(request);
         
+        FileInputStream fileInputStream = null;
         try {
             String url = baseUrl + SMALL_FILE_UPLOAD_ENDPOINT;
             
@@ -209,8 +599,7 @@ public class GuangYuYunClient {
             
             // 检查文件大小（不能超过100MB）
             long fileSize = request.getFile().length();
-            long maxSize = 100 * 1024 * 1024; // 100MB
-            if (fileSize > maxSize) {
+            if (fileSize > SMALL_FILE_MAX_SIZE) {
                 throw new GuangYuYunException("File size exceeds 100MB. Please use large file upload interface for files larger than 100MB");
             }
             
@@ -237,7 +626,7 @@ public class GuangYuYunClient {
                 logger.debug("Auto-selected: Using FileBody with file: {}", request.getFile().getName());
             } else {
                 // 使用InputStreamBody方式（从文件创建输入流）
-                FileInputStream fileInputStream = new FileInputStream(request.getFile());
+                fileInputStream = new FileInputStream(request.getFile());
                 InputStreamBody inputStreamBody = new InputStreamBody(
                     fileInputStream,
                     ContentType.DEFAULT_BINARY,
@@ -251,57 +640,141 @@ public class GuangYuYunClient {
             HttpEntity multipartEntity = builder.build();
             httpPost.setEntity(multipartEntity);
             
-            HttpResponse response = httpClient.execute(httpPost);
-            HttpEntity entity = response.getEntity();
-            
-            if (entity != null) {
-                String responseBody = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-                logger.debug("Response body: {}", responseBody);
-                
-                SmallFileUploadResponse uploadResponse = objectMapper.readValue(responseBody, SmallFileUploadResponse.class);
-                
-                if (!uploadResponse.isSuccess()) {
-                    String errorMessage = getErrorMessage(uploadResponse.getCode(), uploadResponse.getMessage());
-                    throw new GuangYuYunException(uploadResponse.getCode(), 
-                        "Failed to upload file: " + errorMessage, uploadResponse.getCode());
-                }
-                
-                return uploadResponse;
-            } else {
-                throw new GuangYuYunException("Empty response from server");
-            }
+            final long startNanos = System.nanoTime();
+            SmallFileUploadResponse result = execute(ClientMetrics.Operation.UPLOAD_SMALL_FILE, httpPost,
+                new ResponseHandler<SmallFileUploadResponse>() {
+                    @Override
+                    public SmallFileUploadResponse handle(HttpResponse response) throws IOException, GuangYuYunException {
+                        ResponseMapper.checkTransientStatus(response.getStatusLine().getStatusCode());
+                        
+                        return ResponseMapper.checkSmallFileUploadResponse(smallFileUploadReader.read(response));
+                    }
+                });
+            recordTransfer(ClientMetrics.Operation.UPLOAD_SMALL_FILE, request.getFile().length(), startNanos);
+            return result;
             
         } catch (IOException e) {
             logger.error("Error uploading small file", e);
-            throw new GuangYuYunException("Network error: " + e.getMessage(), e);
+            throw ResponseMapper.networkError(e);
+        } finally {
+            if (fileInputStream != null) {
+                try {
+                    fileInputStream.close();
+                } catch (IOException e) {
+                    logger.debug("Error closing file input stream: {}", e.getMessage());
+                }
+            }
         }
     }
     
+    
+    
     /**
-     * 根据错误码获取错误消息
+     * 批量上传文件（使用统一token），返回按完成顺序排列的结果
+     * 
+     * @param files 要上传的文件
+     * @return 每个文件的结果，单个文件失败不影响其余文件
+     * @throws GuangYuYunException 未设置token或批量上传被中断时抛出异常
      */
-    private String getErrorMessage(Integer code, String defaultMessage) {
-        if (code == null) {
-            return defaultMessage != null ? defaultMessage : "Unknown error";
+    public List<BatchUploadResult> uploadSmallFiles(Collection<File> files) throws GuangYuYunException {
+        if (!hasAuthToken()) {
+            throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use uploadSmallFiles(files, authToken, listener)");
         }
-        
-        switch (code) {
-            case 4:
-                return "不支持多文件上传";
-            case 5:
-                return "单文件大小不能超过100M,大文件上传请调用大文件上传接口";
-            case 6:
-                return "文件错误";
-            case 7:
-                return "添加到分布式存储系统错误";
-            case 8:
-                return "写入数据库错误";
-            default:
-                return defaultMessage != null ? defaultMessage : "Unknown error code: " + code;
+        final List<BatchUploadResult> results = Collections.synchronizedList(new ArrayList<BatchUploadResult>(files.size()));
+        uploadSmallFiles(files, currentAuthToken(), new BatchUploadListener() {
+            @Override
+            public void onResult(BatchUploadResult result) {
+                results.add(result);
+            }
+        });
+        return new ArrayList<BatchUploadResult>(results);
+    }
+    
+    /**
+     * 批量上传文件，每个文件完成时回调
+     * 
+     * @param files 要上传的文件
+     * @param authToken 认证令牌
+     * @param listener 结果回调
+     * @throws GuangYuYunException 批量上传被中断时抛出异常
+     */
+    public void uploadSmallFiles(Collection<File> files, String authToken, BatchUploadListener listener)
+            throws GuangYuYunException {
+        List<SmallFileUploadRequest> requests = new ArrayList<SmallFileUploadRequest>(files.size());
+        for (File file : files) {
+            requests.add(new SmallFileUploadRequest(file, authToken));
+        }
+        uploadAll(requests.stream(), listener);
+    }
+    
+    /**
+     * 批量上传文件，每个文件完成时回调，所有文件完成后返回
+     * 
+     * 最多同时上传batchConcurrency个文件，共用客户端连接池；并发已满时暂停从Stream中取下一个请求，
+     * 因此可以传入很长的惰性Stream。超过100MB的文件自动改用大文件分片上传。
+     * 小文件上传遇到可重试的错误时按客户端重试策略重发，若失败发生在服务端已收到文件之后，重发可能产生重复文件。
+     * 
+     * @param requests 上传请求
+     * @param listener 结果回调，可能在多个上传线程中并发调用
+     * @throws GuangYuYunException 批量上传被中断时抛出异常，已开始的上传仍会完成并回调
+     */
+    public void uploadAll(Stream<SmallFileUploadRequest> requests, final BatchUploadListener listener)
+            throws GuangYuYunException {
+        if (listener == null) {
+            throw new IllegalArgumentException("Batch upload listener cannot be null");
+        }
+        BatchRunner runner = new BatchRunner(getBatchExecutor(), batchConcurrency);
+        Iterator<SmallFileUploadRequest> iterator = requests.iterator();
+        try {
+            while (iterator.hasNext()) {
+                final SmallFileUploadRequest request = iterator.next();
+                runner.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onResult(uploadOne(request));
+                    }
+                });
+            }
+        } finally {
+            runner.awaitCompletion();
+            requests.close();
         }
     }
     
+    private BatchUploadResult uploadOne(final SmallFileUploadRequest request) {
+        long startTime = System.nanoTime();
+        // 无效的请求同样以失败结果交给监听器，不能在线程池中抛出后丢失
+        File file = request != null ? request.getFile() : null;
+        boolean largeFile = false;
+        try {
+            RequestValidator.validateSmallFileUploadRequest(request);
+            largeFile = file.length() > SMALL_FILE_MAX_SIZE;
+            String fileId;
+            if (largeFile) {
+                fileId = uploadLargeFile(file, request.getAuthToken()).getId();
+            } else {
+                // 小文件上传不是幂等的，只在请求未发出时重试，避免服务端重复保存
+                fileId = retryExecutor.executeNonIdempotent("Upload " + file.getName(), new RetryExecutor.Attempt<String>() {
+                    @Override
+                    public String run(int attempt) throws GuangYuYunException {
+                        return uploadSmallFile(request).getFileId();
+                    }
+                });
+            }
+            return new BatchUploadResult(file, fileId, null, largeFile, elapsedMillis(startTime));
+        } catch (GuangYuYunException e) {
+            logger.warn("Batch upload of {} failed: {}", file, e.getMessage());
+            return new BatchUploadResult(file, null, e, largeFile, elapsedMillis(startTime));
+        } catch (RuntimeException e) {
+            logger.warn("Batch upload of {} failed", file, e);
+            return new BatchUploadResult(file, null, new GuangYuYunException("File upload error: " + e.getMessage(), e),
+                    largeFile, elapsedMillis(startTime));
+        }
+    }
     
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
     
     /**
      * 上传大文件分片
@@ -311,7 +784,7 @@ public class GuangYuYunClient {
      * @throws GuangYuYunException 当请求失败时抛出异常
      */
     public LargeFileUploadResponse uploadLargeFileChunk(LargeFileUploadRequest request) throws GuangYuYunException {
-        validateLargeFileUploadRequest(request);
+        RequestValidator.validateLargeFileUploadRequest(request);
         
         try {
             String url = baseUrl + LARGE_FILE_UPLOAD_ENDPOINT;
@@ -332,33 +805,29 @@ public class GuangYuYunClient {
                 httpPost.setHeader("NotificationLink", request.getNotificationLink());
             }
             
-            // 设置文件数据
-            httpPost.setEntity(new ByteArrayEntity(request.getFileData()));
-            
-            HttpResponse response = httpClient.execute(httpPost);
-            HttpEntity entity = response.getEntity();
-            
-            if (entity != null) {
-                String responseBody = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-                logger.debug("Response body: {}", responseBody);
-                
-                LargeFileUploadResponse uploadResponse = objectMapper.readValue(responseBody, LargeFileUploadResponse.class);
-                
-                // 对于错误码7（文件索引错误），不抛出异常，直接返回响应对象
-                // 让调用方处理这种情况
-                if (!uploadResponse.isSuccess() && uploadResponse.getCode() != 7) {
-                    throw new GuangYuYunException(uploadResponse.getCode(), 
-                        "Failed to upload file chunk: " + uploadResponse.getMessage(),uploadResponse.getCode());
-                }
-                
-                return uploadResponse;
+            // 设置文件数据（文件区间直接从通道写入连接，避免整片复制到堆内存）
+            if (request.hasFileRegion()) {
+                httpPost.setEntity(new FileRegionEntity(request.getFileChannel(),
+                    request.getRegionPosition(), request.getRegionLength()));
             } else {
-                throw new GuangYuYunException("Empty response from server");
+                httpPost.setEntity(new ByteArrayEntity(request.getFileData(), request.getFileDataOffset(),
+                    (int) request.getChunkLength()));
             }
             
+            return execute(ClientMetrics.Operation.UPLOAD_CHUNK, httpPost, new ResponseHandler<LargeFileUploadResponse>() {
+                @Override
+                public LargeFileUploadResponse handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    // 408/429/5xx没有业务结果，作为可重试的错误
+                    ResponseMapper.checkTransientStatus(response.getStatusLine().getStatusCode());
+                    
+                    // 错误码7（文件索引错误）不抛出异常，由调用方处理
+                    return ResponseMapper.checkLargeFileUploadResponse(largeFileUploadReader.read(response));
+                }
+            });
+            
         } catch (IOException e) {
             logger.error("Error uploading file chunk", e);
-            throw new GuangYuYunException("Network error: " + e.getMessage(), e);
+            throw ResponseMapper.networkError(e);
         }
     }
     
@@ -382,154 +851,38 @@ public class GuangYuYunClient {
             throw new GuangYuYunException("AuthToken cannot be null or empty");
         }
         
-        // 使用默认分片大小
-        if (chunkSize == null) {
-            chunkSize = FileUtils.getMinChunkSize();
-        }
-        
-        // 验证分片大小
-        if (!FileUtils.isValidChunkSize(chunkSize)) {
-            throw new GuangYuYunException("Chunk size must be between 1MB and 10MB");
-        }
+        int resolvedChunkSize = RequestValidator.resolveLargeFileChunkSize(chunkSize);
         
         try {
-            // 在上传前尽量调整分片大小，避免最后一片小于1MB而被服务端拒绝
-            long fileSizeForAdjust = file.length();
-            int minChunk = FileUtils.getMinChunkSize();
-            if (fileSizeForAdjust > 0) {
-                long remainder = fileSizeForAdjust % chunkSize;
-                if (remainder > 0 && remainder < minChunk) {
-                    int step = 64 * 1024; // 64KB步进调整，兼顾效率与精度
-                    int original = chunkSize;
-                    boolean adjusted = false;
-                    // 优先尝试减小分片大小
-                    for (int candidate = chunkSize - step; candidate >= minChunk; candidate -= step) {
-                        if (!FileUtils.isValidChunkSize(candidate)) continue;
-                        long r = fileSizeForAdjust % candidate;
-                        if (r == 0 || r >= minChunk) {
-                            chunkSize = candidate;
-                            adjusted = true;
-                            break;
-                        }
-                    }
-                    // 再尝试增大分片大小
-                    if (!adjusted) {
-                        for (int candidate = chunkSize + step; FileUtils.isValidChunkSize(candidate); candidate += step) {
-                            long r = fileSizeForAdjust % candidate;
-                            if (r == 0 || r >= minChunk) {
-                                chunkSize = candidate;
-                                adjusted = true;
-                                break;
-                            }
-                        }
-                    }
-                    if (adjusted) {
-                        System.out.println("自动调整分片大小以保证最后一片≥1MB: " + original + " -> " + chunkSize + " bytes (" + String.format("%.2f", chunkSize / (1024.0 * 1024.0)) + " MB)");
-                    } else {
-                        System.out.println("未能在1MB-10MB范围内找到可避免最后一片<1MB的分片大小，可能导致最后一片被拒绝。建议手动调整分片大小。");
-                    }
-                }
-            }
-
-            String fileName = file.getName();
-            String fileMd5 = FileUtils.calculateMD5(file);
             long fileSize = file.length();
+            String fileName = file.getName();
+            String fileMd5;
+            long startIndex = 0;
             
-            logger.info("Starting large file upload: {} ({} bytes)", fileName, fileSize);
-            System.out.println("上传参数 -> 文件名: " + fileName + ", 文件MD5: " + fileMd5 + ", 文件大小: " + fileSize + " bytes (" + com.guangyuyun.sdk.util.DownloadUtils.formatFileSize(fileSize) + ")");
-            System.out.println("上传参数 -> 分片大小: " + chunkSize + " bytes (" + String.format("%.2f", chunkSize / (1024.0 * 1024.0)) + " MB)");
-            
-            long currentIndex = 0;
-            long chunkNumber = 1;
-            LargeFileUploadResponse lastResponse = null;
-            
-            while (currentIndex < fileSize) {
-                // 计算当前分片大小
-                int currentChunkSize = (int) Math.min(chunkSize, fileSize - currentIndex);
-                
-                // 打印分片日志（大小与起始索引）
-                System.out.println("=== 上传分片 " + chunkNumber + " ===");
-                System.out.println("起始索引: " + currentIndex + " bytes");
-                System.out.println("计划上传分片大小: " + currentChunkSize + " bytes (" + String.format("%.2f", currentChunkSize / (1024.0 * 1024.0)) + " MB)");
-                if (currentChunkSize < 1024 * 1024) {
-                    System.out.println("[警告] 当前分片小于1MB，可能被服务端拒绝。建议调整分片大小避免最后一片 < 1MB。");
-                } else if (currentChunkSize > 50 * 1024 * 1024) {
-                    System.out.println("[警告] 当前分片大于50MB，服务端不允许。");
-                }
-
-                // 读取文件分片
-                byte[] chunkData = FileUtils.readFileChunk(file, currentIndex, currentChunkSize);
-                
-                // 创建上传请求
-                LargeFileUploadRequest request = new LargeFileUploadRequest();
-                request.setFileName(fileName);
-                request.setFileMd5(fileMd5);
-                request.setFileSize(fileSize);
-                request.setFileStartIndex(currentIndex);
-                request.setAuthToken(authToken);
-                request.setNotificationLink(notificationLink);
-                request.setFileData(chunkData);
-                
-                // 上传分片
-                lastResponse = uploadLargeFileChunk(request);
-                System.out.println(lastResponse);
-                
-                if (lastResponse.isSuccess()) {
-                    System.out.println("分片 " + chunkNumber + " 上传成功，当前索引 " + lastResponse.getFileIndex());
-                    currentIndex = lastResponse.getFileIndexAsLong();
-                    chunkNumber++;
-
-                    if (lastResponse.isUploadComplete()) {
-                        System.out.println("所有分片上传完成 文件ID: " + lastResponse.getId());
-                        break;
-                    }
-                } else {
-                    // 检查返回值是否为7（文件索引错误，需要从特定位置继续上传）
-                    if (lastResponse.getCode() == 7) {
-                        System.out.println("服务器返回码7（文件索引错误），需要从fileIndex位置继续上传");
-                        long serverFileIndex = lastResponse.getFileIndexAsLong();
-                        
-                        System.out.println("当前客户端索引: " + currentIndex);
-                        System.out.println("服务器期望索引: " + serverFileIndex);
-                        
-                        if (serverFileIndex > currentIndex) {
-                            System.out.println("从服务器指定的索引 " + serverFileIndex + " 继续上传（跳过 " + (serverFileIndex - currentIndex) + " 字节）");
-                            currentIndex = serverFileIndex;
-                            // 重新计算分片号
-                            chunkNumber = (currentIndex / chunkSize) + 1;
-                            System.out.println("调整后的分片号: " + chunkNumber);
-                            continue; // 继续下一轮循环，跳过当前分片
-                        } else if (serverFileIndex < currentIndex) {
-                            System.out.println("服务器期望的索引 " + serverFileIndex + " 小于当前索引 " + currentIndex + "，可能存在重复上传");
-                            // 如果服务器索引小于当前索引，说明可能已经上传过了，直接使用服务器返回的索引
-                            currentIndex = serverFileIndex;
-                            chunkNumber = (currentIndex / chunkSize) + 1;
-                            System.out.println("调整后的分片号: " + chunkNumber);
-                            continue;
-                        } else {
-                            System.out.println("服务器索引与当前索引相同，继续正常上传");
-                            currentIndex = lastResponse.getFileIndexAsLong();
-                            chunkNumber++;
-                        }
-                    } else {
-                        System.out.println("分片 " + chunkNumber + " 上传失败: " + lastResponse.getMessage() + " (错误码: " + lastResponse.getCode() + ")");
-                        System.out.println("失败分片信息 -> 起始索引: " + currentIndex + ", 大小: " + currentChunkSize + " bytes (" + String.format("%.2f", currentChunkSize / (1024.0 * 1024.0)) + " MB)");
-                        break;
-                    }
-                }
-
-//                currentIndex = lastResponse.getFileIndexAsLong();
-
-                logger.debug("Uploaded chunk: {}/{} bytes", currentIndex, fileSize);
-                
-                // 如果上传完成，退出循环
-                if (lastResponse.isUploadComplete()) {
-                    logger.info("File upload completed successfully. File ID: {}", lastResponse.getId());
-                    break;
+            // 有未完成的上传会话时沿用其MD5与分片大小，从服务端已确认的位置继续
+            UploadSessionStore store = uploadSessionStore;
+            UploadSessionStore.Session session = store != null ? store.find(file) : null;
+            if (session != null) {
+                fileMd5 = session.getFileMd5();
+                resolvedChunkSize = session.getChunkSize();
+                startIndex = session.getFileIndex();
+                if (notificationLink == null) {
+                    notificationLink = session.getNotificationLink();
                 }
+                logger.info("Resuming upload of {} from {}/{} bytes", fileName, startIndex, fileSize);
+            } else {
+                resolvedChunkSize = RequestValidator.adjustChunkSizeForLastChunk(fileSize, resolvedChunkSize);
+                fileMd5 = calculateFileMd5(file);
+                session = store != null ? store.begin(file, fileMd5, resolvedChunkSize, notificationLink) : null;
             }
             
-            return lastResponse;
+            // 整个上传过程只打开一次文件；开启预读时由后台线程提前读取后续分片，否则以文件区间方式直接写入连接
+            try (ChunkSource chunkSource = uploadReadAheadBytes > 0
+                    ? new ReadAheadChunkSource(file, startIndex, resolvedChunkSize, uploadReadAheadBytes)
+                    : new FileRegionChunkSource(file)) {
+                return uploadChunks(fileName, fileMd5, fileSize, resolvedChunkSize, authToken, notificationLink,
+                        chunkSource, startIndex, session);
+            }
             
         } catch (IOException e) {
             logger.error("Error uploading large file", e);
@@ -538,215 +891,1312 @@ public class GuangYuYunClient {
     }
     
     /**
-     * 上传大文件（使用默认分片大小）
+     * 上传大文件（数据来自输入流）
      * 
-     * @param file 要上传的文件
+     * 适用于边生成边上传的数据（如数据库导出、tar管道）。读取流的同时计算MD5并暂存
+     * （先内存，超过阈值后转存临时文件），读取结束后按分片协议回放暂存数据。
+     * 
+     * @param inputStream 数据输入流，读取至结束，由调用方负责关闭
+     * @param fileName 文件名
      * @param authToken 认证令牌
+     * @param chunkSize 分片大小（字节），可选范围1MB-10MB
+     * @param notificationLink 异步通知链接（可选）
      * @return 上传结果
      * @throws GuangYuYunException 当请求失败时抛出异常
      */
-    public LargeFileUploadResponse uploadLargeFile(File file, String authToken) throws GuangYuYunException {
-        return uploadLargeFile(file, authToken, null, null);
+    public LargeFileUploadResponse uploadLargeFile(InputStream inputStream, String fileName, String authToken,
+                                                 Integer chunkSize, String notificationLink) throws GuangYuYunException {
+        if (inputStream == null) {
+            throw new GuangYuYunException("InputStream cannot be null");
+        }
+        return uploadLargeFile(Channels.newChannel(inputStream), fileName, authToken, chunkSize, notificationLink);
     }
     
-
-    
     /**
-     * 上传大文件（使用统一token和默认分片大小）
+     * 上传大文件（数据来自可读通道）
      * 
-     * @param file 要上传的文件
-     * @return 上传结果
+     * @param source 数据来源通道，读取至结束，由调用方负责关闭
+     * @param fileName 文件名
+     * @param authToken 认证令牌
+     * @param chunkSize 分片大小（字节），可选范围1MB-10MB
+     * @param notificationLink 异步通知链接（可选）
+     * @return 上传结果
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     * @see #uploadLargeFile(InputStream, String, String, Integer, String)
+     */
+    public LargeFileUploadResponse uploadLargeFile(ReadableByteChannel source, String fileName, String authToken,
+                                                 Integer chunkSize, String notificationLink) throws GuangYuYunException {
+        if (source == null) {
+            throw new GuangYuYunException("Source channel cannot be null");
+        }
+        
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new GuangYuYunException("FileName cannot be null or empty");
+        }
+        
+        if (authToken == null || authToken.trim().isEmpty()) {
+            throw new GuangYuYunException("AuthToken cannot be null or empty");
+        }
+        
+        int resolvedChunkSize = RequestValidator.resolveLargeFileChunkSize(chunkSize);
+        
+        try (UploadSpool spool = new UploadSpool(uploadSpoolMemoryBytes, null)) {
+            long fileSize = spool.spool(source);
+            if (fileSize <= 0) {
+                throw new GuangYuYunException("Source is empty");
+            }
+            logger.debug("Spooled {} bytes for {} (spilled to disk: {})", fileSize, fileName, spool.isSpilled());
+            
+            resolvedChunkSize = RequestValidator.adjustChunkSizeForLastChunk(fileSize, resolvedChunkSize);
+            try (ChunkSource chunkSource = spool.chunkSource()) {
+                return uploadChunks(fileName, spool.getMd5(), fileSize, resolvedChunkSize, authToken, notificationLink,
+                        chunkSource, 0, null);
+            }
+            
+        } catch (IOException e) {
+            logger.error("Error uploading large file from stream", e);
+            throw new GuangYuYunException("File upload error: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 按分片协议从startIndex开始上传数据，处理服务端返回的fileIndex与码7重新同步，
+     * 服务端确认的位置记入上传会话（可为null）
+     */
+    private LargeFileUploadResponse uploadChunks(String fileName, String fileMd5, long fileSize, int chunkSize,
+                                                 String authToken, String notificationLink,
+                                                 ChunkSource chunkSource, long startIndex,
+                                                 UploadSessionStore.Session session) throws GuangYuYunException, IOException {
+        logger.info("Starting large file upload: {} ({} bytes, chunk size {}, MD5 {})", fileName, fileSize, chunkSize, fileMd5);
+        TransferListener listener = transferListener;
+        TransferTracker tracker = listener != null
+            ? new TransferTracker(listener, TransferEvent.Direction.UPLOAD, fileName, null, progressIntervalMillis)
+            : null;
+        if (tracker != null) {
+            tracker.started(fileSize, startIndex);
+        }
+        try {
+            LargeFileUploadResponse lastResponse = uploadChunks(fileName, fileMd5, fileSize, chunkSize, authToken,
+                    notificationLink, chunkSource, startIndex, session, tracker);
+            if (tracker != null) {
+                if (lastResponse == null || lastResponse.isSuccess()) {
+                    tracker.completed(lastResponse != null ? lastResponse.getId() : null);
+                } else {
+                    tracker.failed(new GuangYuYunException(lastResponse.getCode(), lastResponse.getMessage(), (Throwable) null));
+                }
+            }
+            return lastResponse;
+        } catch (GuangYuYunException | IOException | RuntimeException e) {
+            if (tracker != null) {
+                tracker.failed(e);
+            }
+            throw e;
+        }
+    }
+    
+    private LargeFileUploadResponse uploadChunks(String fileName, String fileMd5, long fileSize, int chunkSize,
+                                                 String authToken, String notificationLink,
+                                                 ChunkSource chunkSource, long startIndex,
+                                                 UploadSessionStore.Session session,
+                                                 TransferTracker tracker) throws GuangYuYunException, IOException {
+        long currentIndex = startIndex;
+        long chunkNumber = (startIndex / chunkSize) + 1;
+        int resyncs = 0; // 连续收到码7的次数
+        LargeFileUploadResponse lastResponse = null;
+        AdaptiveChunkSizer sizer = adaptiveChunkSizing ? AdaptiveChunkSizer.forUpload(chunkSize) : null;
+        
+        while (currentIndex < fileSize) {
+            // 计算当前分片大小（自适应时按实测吞吐调整，并保证最后一片不小于1MB）
+            int currentChunkSize = sizer != null
+                ? sizer.nextChunk(fileSize - currentIndex, FileUtils.getMinChunkSize())
+                : (int) Math.min(chunkSize, fileSize - currentIndex);
+        
+            if (logger.isDebugEnabled()) {
+                logger.debug("Uploading chunk {} of {}: {} bytes at {}", chunkNumber, fileName, currentChunkSize, currentIndex);
+            }
+            if (currentChunkSize < 1024 * 1024) {
+                logger.warn("Chunk {} of {} is smaller than 1MB and may be rejected by the server", chunkNumber, fileName);
+            } else if (currentChunkSize > 50 * 1024 * 1024) {
+                logger.warn("Chunk {} of {} is larger than the 50MB the server accepts", chunkNumber, fileName);
+            }
+
+            // 创建上传请求
+            LargeFileUploadRequest request = new LargeFileUploadRequest();
+            request.setFileName(fileName);
+            request.setFileMd5(fileMd5);
+            request.setFileSize(fileSize);
+            request.setFileStartIndex(currentIndex);
+            request.setAuthToken(authToken);
+            request.setNotificationLink(notificationLink);
+        
+            // 上传分片（可重试的失败只重发本分片）
+            long chunkStartNanos = System.nanoTime();
+            lastResponse = uploadChunk(chunkSource, request, currentChunkSize, sizer, tracker);
+        
+            if (lastResponse.isSuccess()) {
+                resyncs = 0;
+                if (sizer != null) {
+                    sizer.record(currentChunkSize, System.nanoTime() - chunkStartNanos);
+                    if (chunkSource instanceof ReadAheadChunkSource) {
+                        ((ReadAheadChunkSource) chunkSource).setChunkSize(sizer.getChunkSize());
+                    }
+                }
+                long confirmedIndex = lastResponse.getFileIndexAsLong();
+                recordTransfer(ClientMetrics.Operation.UPLOAD_CHUNK, confirmedIndex - currentIndex, chunkStartNanos);
+                if (tracker != null) {
+                    tracker.chunkSent(currentIndex, confirmedIndex - currentIndex, confirmedIndex);
+                }
+                currentIndex = confirmedIndex;
+                chunkNumber++;
+
+                if (lastResponse.isUploadComplete()) {
+                    completeUploadSession(session);
+                    break;
+                }
+                recordUploadProgress(session, currentIndex);
+            } else {
+                // 检查返回值是否为7（文件索引错误，需要从特定位置继续上传）
+                if (lastResponse.getCode() == 7) {
+                    long serverFileIndex = lastResponse.getFileIndexAsLong();
+                    if (++resyncs > MAX_CONSECUTIVE_RESYNCS) {
+                        logger.error("Upload of {} failed: server rejected index {} {} times in a row", fileName,
+                            serverFileIndex, resyncs);
+                        break;
+                    }
+                    recordUploadProgress(session, serverFileIndex);
+                    logger.info("Server expects {} to continue from {} (client index {})", fileName, serverFileIndex, currentIndex);
+                    ClientMetrics currentMetrics = metrics;
+                    if (currentMetrics != null) {
+                        currentMetrics.recordResync();
+                    }
+                    if (tracker != null) {
+                        tracker.resynced(serverFileIndex);
+                    }
+                
+                    if (serverFileIndex != currentIndex) {
+                        // 服务端索引更大时跳过已收到的数据；更小时说明部分数据未被接收，从服务端索引重新上传
+                        currentIndex = serverFileIndex;
+                        chunkNumber = (currentIndex / chunkSize) + 1;
+                        continue;
+                    } else {
+                        currentIndex = lastResponse.getFileIndexAsLong();
+                        chunkNumber++;
+                    }
+                } else {
+                    logger.warn("Chunk {} of {} at {} ({} bytes) failed: {} (code {})", chunkNumber, fileName,
+                        currentIndex, currentChunkSize, lastResponse.getMessage(), lastResponse.getCode());
+                    break;
+                }
+            }
+
+//                currentIndex = lastResponse.getFileIndexAsLong();
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Uploaded chunk: {}/{} bytes", currentIndex, fileSize);
+            }
+        
+            // 如果上传完成，退出循环
+            if (lastResponse.isUploadComplete()) {
+                break;
+            }
+        }
+    
+        if (lastResponse != null && lastResponse.isUploadComplete()) {
+            logger.info("File upload completed successfully. File ID: {}", lastResponse.getId());
+        }
+        return lastResponse;
+    }
+    
+    /**
+     * 上传一个分片，可重试的失败按重试策略重发
+     * 
+     * 每次尝试重新从数据来源填充分片。重发时服务端可能已经收到了该分片（响应在途中丢失），
+     * 此时服务端返回码7及其期望的位置，由上传循环重新同步，不会重复写入数据。
+     * 自适应分片时每次失败使后续分片减半，重发的分片保持原长度。
+     */
+    private LargeFileUploadResponse uploadChunk(final ChunkSource chunkSource, final LargeFileUploadRequest request,
+                                                final int length, final AdaptiveChunkSizer sizer,
+                                                final TransferTracker tracker) throws GuangYuYunException {
+        RetryExecutor.RetryListener retryListener = tracker != null || sizer != null ? new RetryExecutor.RetryListener() {
+            @Override
+            public void onRetry(int attempt, GuangYuYunException error) {
+                if (sizer != null) {
+                    sizer.recordFailure();
+                    if (chunkSource instanceof ReadAheadChunkSource) {
+                        ((ReadAheadChunkSource) chunkSource).setChunkSize(sizer.getChunkSize());
+                    }
+                }
+                if (tracker != null) {
+                    tracker.retried(request.getFileStartIndex(), attempt, error);
+                }
+            }
+        } : null;
+        return retryExecutor.execute("Upload chunk at " + request.getFileStartIndex(),
+            new RetryExecutor.Attempt<LargeFileUploadResponse>() {
+                @Override
+                public LargeFileUploadResponse run(int attempt) throws GuangYuYunException {
+                    recordRetry(ClientMetrics.Operation.UPLOAD_CHUNK, attempt);
+                    try {
+                        chunkSource.fill(request, request.getFileStartIndex(), length);
+                    } catch (IOException e) {
+                        throw new GuangYuYunException("File upload error: " + e.getMessage(), e);
+                    }
+                    try {
+                        return uploadLargeFileChunk(request);
+                    } finally {
+                        chunkSource.release(request);
+                    }
+                }
+            }, retryListener);
+    }
+    
+    /**
+     * 记录服务端确认的上传位置；会话存储写入失败不影响上传本身
+     */
+    private void recordUploadProgress(UploadSessionStore.Session session, long fileIndex) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.acknowledge(fileIndex);
+        } catch (IOException e) {
+            logger.warn("Failed to record upload progress of {}", session.getIdentity().getPath(), e);
+        }
+    }
+    
+    private void completeUploadSession(UploadSessionStore.Session session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.complete();
+        } catch (IOException e) {
+            logger.warn("Failed to remove upload session of {}", session.getIdentity().getPath(), e);
+        }
+    }
+    
+    /**
+     * 上传大文件（使用默认分片大小）
+     * 
+     * @param file 要上传的文件
+     * @param authToken 认证令牌
+     * @return 上传结果
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     */
+    public LargeFileUploadResponse uploadLargeFile(File file, String authToken) throws GuangYuYunException {
+        return uploadLargeFile(file, authToken, null, null);
+    }
+    
+
+    
+    /**
+     * 上传大文件（使用统一token和默认分片大小）
+     * 
+     * @param file 要上传的文件
+     * @return 上传结果
      * @throws GuangYuYunException 当请求失败时抛出异常
      */
     public LargeFileUploadResponse uploadLargeFile(File file) throws GuangYuYunException {
         if (!hasAuthToken()) {
             throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use uploadLargeFile(file, authToken)");
         }
-        return uploadLargeFile(file, this.authToken, null, null);
+        return uploadLargeFile(file, currentAuthToken(), null, null);
+    }
+    
+    /**
+     * 下载文件（支持断点续传）
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @param outputPath 输出文件路径
+     * @return 下载结果
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     */
+    public FileDownloadResponse downloadFile(String fileId, String authToken, String outputPath) throws GuangYuYunException {
+        FileDownloadRequest request = new FileDownloadRequest(fileId, authToken, outputPath);
+        return downloadFile(request);
+    }
+    
+    /**
+     * 下载文件（使用统一token）
+     * 
+     * @param fileId 文件ID
+     * @param outputPath 输出文件路径
+     * @return 下载结果
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     */
+    public FileDownloadResponse downloadFile(String fileId, String outputPath) throws GuangYuYunException {
+        if (!hasAuthToken()) {
+            throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use downloadFile(fileId, authToken, outputPath)");
+        }
+        return downloadFile(fileId, currentAuthToken(), outputPath);
+    }
+    
+    /**
+     * 下载文件（支持断点续传）
+     * 
+     * @param request 文件下载请求参数
+     * @return 下载结果
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     */
+    public FileDownloadResponse downloadFile(FileDownloadRequest request) throws GuangYuYunException {
+        RequestValidator.validateDownloadRequest(request);
+        return downloadFile(request, request.getParallelism() != null ? request.getParallelism() : downloadParallelism);
+    }
+    
+    private FileDownloadResponse downloadFile(FileDownloadRequest request, int parallelism) throws GuangYuYunException {
+        TransferListener listener = transferListener;
+        TransferTracker tracker = listener != null
+            ? new TransferTracker(listener, TransferEvent.Direction.DOWNLOAD, request.getOutputPath(),
+                request.getFileId(), progressIntervalMillis)
+            : null;
+        try {
+            logger.info("Starting file download: {} to {}", request.getFileId(), request.getOutputPath());
+            
+            // 创建输出目录
+            DownloadUtils.createDirectories(request.getOutputPath());
+            Path target = Paths.get(request.getOutputPath());
+            
+            // 设置默认分片大小
+            int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : DownloadUtils.getDefaultChunkSize();
+            if (!DownloadUtils.isValidChunkSize(chunkSize)) {
+                chunkSize = DownloadUtils.getDefaultChunkSize();
+            }
+            
+            // 获取文件总大小与校验标识：优先使用缓存；新下载由第一个数据请求的响应头得到，不单独探测（使用磁盘块缓存时除外）
+            long startTime = System.currentTimeMillis();
+            RemoteFileInfo fileInfo = fileInfoCache != null ? fileInfoCache.get(request.getFileId()) : null;
+            FirstRange first = null;
+            if (fileInfo == null && diskBlockCache == null && isFreshDownload(request, target)) {
+                first = fetchFirstRange(request, target, chunkSize);
+                fileInfo = first.info;
+            } else if (fileInfo == null) {
+                fileInfo = getFileInfoWithRetry(request.getFileId(), request.getAuthToken());
+            }
+            long totalSize = fileInfo.getTotalSize();
+            if (totalSize < 0) {
+                throw new GuangYuYunException("Unable to determine file size");
+            }
+            if (fileInfoCache != null) {
+                fileInfoCache.put(fileInfo);
+            }
+            
+            // 如果已经下载完成（目标文件完整且没有未完成的下载）
+            if (first == null && request.isResumeEnabled() && !DownloadSession.hasPendingDownload(target)
+                    && DownloadUtils.fileExists(request.getOutputPath())
+                    && DownloadUtils.getFileSize(request.getOutputPath()) >= totalSize) {
+                if (tracker != null) {
+                    tracker.started(totalSize, totalSize);
+                    tracker.completed(null);
+                }
+                FileDownloadResponse response = new FileDownloadResponse(true, "File already downloaded");
+                response.setFilePath(request.getOutputPath());
+                response.setTotalSize(totalSize);
+                response.setDownloadedSize(totalSize);
+                response.setFileId(request.getFileId());
+                response.setCompleted(true);
+                return response;
+            }
+            
+            if (totalSize == 0) {
+                // 空文件没有可请求的区间
+                if (tracker != null) {
+                    tracker.started(0, 0);
+                }
+                Files.write(target, new byte[0]);
+                logger.info("File download completed: {} (empty file)", request.getOutputPath());
+            } else {
+                // 数据写入预分配的临时文件，已完成的分段记入续传日志，中断后只下载缺失的分段
+                DownloadSession session = first != null ? first.session : null;
+                if (session == null) {
+                    session = DownloadSession.open(target, request.getFileId(), totalSize,
+                        fileInfo.getValidator(), chunkSize, request.isResumeEnabled());
+                }
+                try (DownloadSession active = session) {
+                    long downloaded = 0;
+                    if (tracker != null) {
+                        tracker.started(totalSize, active.getJournal().getCompletedBytes());
+                    }
+                    if (first != null && first.counter != null && first.counter.count > 0) {
+                        downloaded = first.counter.count;
+                        active.getJournal().markCompletePrefix(downloaded);
+                        if (tracker != null) {
+                            tracker.chunkReceived(0, downloaded);
+                        }
+                    }
+                    downloaded += parallelism > 1
+                        ? downloadSegmented(request, fileInfo, active, parallelism, tracker)
+                        : downloadSequential(request, fileInfo, active, tracker);
+                    active.complete();
+                    long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+                    
+                    logger.info("File download completed: {} ({} downloaded, {}, parallelism {})", request.getOutputPath(),
+                        DownloadUtils.formatFileSize(downloaded), DownloadUtils.formatSpeed(downloaded * 1000 / elapsed), parallelism);
+                }
+            }
+            
+            FileDownloadResponse response = new FileDownloadResponse(true, "Download completed successfully");
+            response.setFilePath(request.getOutputPath());
+            response.setTotalSize(totalSize);
+            response.setDownloadedSize(totalSize);
+            response.setFileId(request.getFileId());
+            response.setCompleted(true);
+            if (tracker != null) {
+                tracker.completed(null);
+            }
+            
+            return response;
+            
+        } catch (GuangYuYunException e) {
+            if (fileInfoCache != null) {
+                fileInfoCache.invalidate(request.getFileId());
+            }
+            if (tracker != null) {
+                tracker.failed(e);
+            }
+            throw e;
+        } catch (IOException e) {
+            logger.error("Error downloading file", e);
+            if (fileInfoCache != null) {
+                fileInfoCache.invalidate(request.getFileId());
+            }
+            GuangYuYunException error = new GuangYuYunException("File download error: " + e.getMessage(), e);
+            if (tracker != null) {
+                tracker.failed(error);
+            }
+            throw error;
+        }
+    }
+    
+    /**
+     * 没有可续传或已存在的本地数据，需要从头下载
+     */
+    private static boolean isFreshDownload(FileDownloadRequest request, Path target) {
+        return !request.isResumeEnabled()
+            || (!Files.exists(target) && !DownloadSession.hasPendingDownload(target));
+    }
+    
+    /**
+     * 新下载的第一个Range请求结果
+     */
+    private static class FirstRange {
+        
+        private RemoteFileInfo info;
+        private DownloadSession session; // 远端为空文件或大小未知时为null
+        private CountingChannel counter; // 写入临时文件开头的字节数
+    }
+    
+    /**
+     * 发出新下载的第一个Range请求：由响应头得到文件大小与校验标识并创建下载会话，
+     * 响应体直接写入临时文件开头，省去单独探测文件大小的请求
+     * 
+     * 会话建立后数据传输中断不再重试，未收到的部分作为缺失分段在后续请求中下载。
+     */
+    private FirstRange fetchFirstRange(final FileDownloadRequest request, final Path target, final int chunkSize)
+            throws GuangYuYunException {
+        final FirstRange first = new FirstRange();
+        try {
+            retryExecutor.execute("Download first range of " + request.getFileId(), new RetryExecutor.Attempt<Void>() {
+                @Override
+                public Void run(int attempt) throws GuangYuYunException {
+                    recordRetry(ClientMetrics.Operation.DOWNLOAD_RANGE, attempt);
+                    try {
+                        requestFirstRange(request, target, chunkSize, first);
+                    } catch (GuangYuYunException e) {
+                        if (first.session == null) {
+                            throw e;
+                        }
+                        // 会话建立前后的本地I/O失败不是网络问题，不重试
+                        if (first.counter == null || first.counter.writeFailed) {
+                            e.setRetryable(false);
+                            throw e;
+                        }
+                        logger.debug("First range of {} interrupted after {} bytes: {}",
+                            request.getFileId(), first.counter.count, e.getMessage());
+                    }
+                    return null;
+                }
+            });
+        } catch (GuangYuYunException e) {
+            if (first.session != null) {
+                try {
+                    first.session.close();
+                } catch (IOException closeError) {
+                    logger.debug("Error closing download session: {}", closeError.getMessage());
+                }
+            }
+            throw e;
+        }
+        return first;
+    }
+    
+    private void requestFirstRange(final FileDownloadRequest request, final Path target, final int chunkSize,
+                                   final FirstRange first) throws GuangYuYunException {
+        try {
+            String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + request.getFileId();
+            
+            HttpGet httpGet = new HttpGet(url);
+            httpGet.setHeader("AuthToken", request.getAuthToken());
+            httpGet.setHeader("Range", "bytes=0-" + (chunkSize - 1));
+            
+            final long startNanos = System.nanoTime();
+            execute(ClientMetrics.Operation.DOWNLOAD_RANGE, httpGet, new ResponseHandler<Void>() {
+                @Override
+                public Void handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    ResponseMapper.checkRangeStatus(statusCode);
+                    first.info = new RemoteFileInfo(request.getFileId(), ResponseMapper.parseTotalSizeFromStart(response),
+                        ResponseMapper.parseValidator(response));
+                    long totalSize = first.info.getTotalSize();
+                    if (statusCode == 416 || totalSize <= 0) {
+                        return null;
+                    }
+                    
+                    HttpEntity entity = response.getEntity();
+                    if (entity == null) {
+                        throw new GuangYuYunException("Empty response from server");
+                    }
+                    try {
+                        first.session = DownloadSession.open(target, request.getFileId(), totalSize,
+                            first.info.getValidator(), chunkSize, request.isResumeEnabled());
+                        first.session.getChannel().position(0);
+                    } catch (IOException e) {
+                        throw new GuangYuYunException("File download error: " + e.getMessage(), e);
+                    }
+                    first.counter = new CountingChannel(first.session.getChannel());
+                    // 服务端忽略Range时返回整个文件
+                    long expectedLength = statusCode == 206 ? Math.min(chunkSize, totalSize) : totalSize;
+                    try (InputStream content = entity.getContent()) {
+                        DownloadUtils.transfer(content, first.counter, expectedLength);
+                    } finally {
+                        recordTransfer(ClientMetrics.Operation.DOWNLOAD_RANGE, first.counter.count, startNanos);
+                    }
+                    return null;
+                }
+            });
+            
+        } catch (IOException e) {
+            logger.error("Error downloading file chunk", e);
+            throw ResponseMapper.networkError(e);
+        }
+    }
+    
+    /**
+     * 批量下载文件（使用统一token），返回按完成顺序排列的结果
+     * 
+     * @param files 文件ID到输出路径的映射
+     * @return 每个文件的结果，单个文件失败不影响其余文件
+     * @throws GuangYuYunException 未设置token或批量下载被中断时抛出异常
+     */
+    public List<BatchDownloadResult> downloadFiles(Map<String, String> files) throws GuangYuYunException {
+        if (!hasAuthToken()) {
+            throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use downloadFiles(files, authToken, listener)");
+        }
+        final List<BatchDownloadResult> results = Collections.synchronizedList(new ArrayList<BatchDownloadResult>(files.size()));
+        downloadFiles(files, currentAuthToken(), new BatchDownloadListener() {
+            @Override
+            public void onResult(BatchDownloadResult result) {
+                results.add(result);
+            }
+        });
+        return new ArrayList<BatchDownloadResult>(results);
+    }
+    
+    /**
+     * 批量下载文件，每个文件完成时回调
+     * 
+     * @param files 文件ID到输出路径的映射
+     * @param authToken 认证令牌
+     * @param listener 结果回调
+     * @throws GuangYuYunException 批量下载被中断时抛出异常
+     */
+    public void downloadFiles(Map<String, String> files, String authToken, BatchDownloadListener listener)
+            throws GuangYuYunException {
+        List<FileDownloadRequest> requests = new ArrayList<FileDownloadRequest>(files.size());
+        for (Map.Entry<String, String> entry : files.entrySet()) {
+            requests.add(new FileDownloadRequest(entry.getKey(), authToken, entry.getValue()));
+        }
+        downloadAll(requests.stream(), listener);
+    }
+    
+    /**
+     * 批量下载文件，每个文件完成时回调，所有文件完成后返回
+     * 
+     * 每个文件按其分段并行数（FileDownloadRequest.setParallelism，默认为客户端的downloadParallelism）占用连接，
+     * 所有文件合计不超过batchConcurrency个连接；单个文件的并行数超过该上限时按上限下载。
+     * 允许续传且目标文件已存在、没有未完成的续传日志时视为已下载完成，直接跳过而不发出请求。
+     * 
+     * @param requests 下载请求
+     * @param listener 结果回调，可能在多个下载线程中并发调用
+     * @throws GuangYuYunException 批量下载被中断时抛出异常，已开始的下载仍会完成并回调
+     */
+    public void downloadAll(Stream<FileDownloadRequest> requests, final BatchDownloadListener listener)
+            throws GuangYuYunException {
+        if (listener == null) {
+            throw new IllegalArgumentException("Batch download listener cannot be null");
+        }
+        BatchRunner runner = new BatchRunner(getBatchExecutor(), batchConcurrency);
+        Iterator<FileDownloadRequest> iterator = requests.iterator();
+        try {
+            while (iterator.hasNext()) {
+                final FileDownloadRequest request = iterator.next();
+                if (request != null && isAlreadyDownloaded(request)) {
+                    listener.onResult(skippedDownload(request));
+                    continue;
+                }
+                int requested = request != null && request.getParallelism() != null
+                    ? request.getParallelism() : downloadParallelism;
+                final int parallelism = Math.max(1, Math.min(requested, runner.getConcurrency()));
+                runner.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onResult(downloadOne(request, parallelism));
+                    }
+                }, parallelism);
+            }
+        } finally {
+            runner.awaitCompletion();
+            requests.close();
+        }
+    }
+    
+    private static boolean isAlreadyDownloaded(FileDownloadRequest request) {
+        if (!request.isResumeEnabled() || request.getOutputPath() == null) {
+            return false;
+        }
+        // 下载完成时临时文件替换为目标文件并删除日志；中断的下载总会留下日志
+        Path target = Paths.get(request.getOutputPath());
+        return Files.isRegularFile(target) && !DownloadSession.hasPendingDownload(target)
+            && !Files.exists(DownloadSession.partFile(target));
+    }
+    
+    private static BatchDownloadResult skippedDownload(FileDownloadRequest request) {
+        long size = DownloadUtils.getFileSize(request.getOutputPath());
+        FileDownloadResponse response = new FileDownloadResponse(true, "File already downloaded");
+        response.setFilePath(request.getOutputPath());
+        response.setTotalSize(size);
+        response.setDownloadedSize(size);
+        response.setFileId(request.getFileId());
+        response.setCompleted(true);
+        return new BatchDownloadResult(request.getFileId(), request.getOutputPath(), response, null, true, 0);
+    }
+    
+    private BatchDownloadResult downloadOne(FileDownloadRequest request, int parallelism) {
+        long startTime = System.nanoTime();
+        String fileId = request != null ? request.getFileId() : null;
+        String outputPath = request != null ? request.getOutputPath() : null;
+        try {
+            RequestValidator.validateDownloadRequest(request);
+            FileDownloadResponse response = downloadFile(request, parallelism);
+            return new BatchDownloadResult(fileId, outputPath, response, null, false, elapsedMillis(startTime));
+        } catch (GuangYuYunException e) {
+            logger.warn("Batch download of {} failed: {}", fileId, e.getMessage());
+            return new BatchDownloadResult(fileId, outputPath, null, e, false, elapsedMillis(startTime));
+        } catch (RuntimeException e) {
+            logger.warn("Batch download of {} failed", fileId, e);
+            return new BatchDownloadResult(fileId, outputPath, null,
+                new GuangYuYunException("File download error: " + e.getMessage(), e), false, elapsedMillis(startTime));
+        }
+    }
+    
+    /**
+     * 顺序下载：按顺序逐个请求缺失的分段，写入临时文件对应位置
+     * 
+     * @return 本次下载的字节数
+     */
+    private long downloadSequential(FileDownloadRequest request, RemoteFileInfo fileInfo, DownloadSession session,
+                                    TransferTracker tracker) throws GuangYuYunException, IOException {
+        DownloadJournal journal = session.getJournal();
+        FileChannel output = session.getChannel();
+        long totalSize = journal.getTotalSize();
+        long downloaded = 0;
+        
+        if (!session.isResumed()) {
+            logger.debug("Created new file: {}", request.getOutputPath());
+        }
+        
+        int segmentSize = journal.getSegmentSize();
+        AdaptiveChunkSizer sizer = adaptiveChunkSizing ? AdaptiveChunkSizer.forDownload(segmentSize, segmentSize) : null;
+        int[] missing = journal.missingSegments();
+        int chunkNumber = 1;
+        int from = 0;
+        while (from < missing.length) {
+            // 自适应时把相邻的缺失分段合并为一个请求
+            int span = sizer != null ? Math.max(1, sizer.getChunkSize() / segmentSize) : 1;
+            int to = from + 1;
+            while (to < missing.length && to - from < span && missing[to] == missing[to - 1] + 1) {
+                to++;
+            }
+            long currentByte = journal.segmentStart(missing[from]);
+            long segmentEnd = journal.segmentEnd(missing[to - 1]);
+            output.position(currentByte);
+            long rangeStartNanos = System.nanoTime();
+            long rangeBytes = segmentEnd - currentByte;
+            
+            while (currentByte < segmentEnd) {
+                long endByte = segmentEnd - 1;
+                
+                long startTime = System.nanoTime();
+                long received = downloadRange(request.getFileId(), request.getAuthToken(), currentByte, endByte, output,
+                    null, fileInfo, tracker);
+                
+                if (received == 0) {
+                    throw new GuangYuYunException("Received empty chunk data");
+                }
+                if (tracker != null) {
+                    tracker.chunkReceived(currentByte, received);
+                }
+                if (logger.isDebugEnabled()) {
+                    long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                    logger.debug("Downloaded chunk {} of {}: {}-{} ({} bytes, {} ms, {})", chunkNumber, request.getFileId(),
+                        currentByte, endByte, received, elapsedMillis, DownloadUtils.formatSpeed(received * 1000 / elapsedMillis));
+                }
+                
+                currentByte += received;
+                downloaded += received;
+                chunkNumber++;
+            }
+            if (sizer != null) {
+                sizer.record(rangeBytes, System.nanoTime() - rangeStartNanos);
+            }
+            for (int i = from; i < to; i++) {
+                journal.markComplete(missing[i]);
+            }
+            from = to;
+            
+            if (logger.isDebugEnabled()) {
+                logger.debug("Download progress of {}: {}/{} bytes", request.getFileId(), journal.getCompletedBytes(), totalSize);
+            }
+        }
+        return downloaded;
+    }
+    
+    /**
+     * 分段并行下载：缺失的分段分组后并发请求，按偏移量写入临时文件
+     * 
+     * @return 本次下载的字节数
+     */
+    private long downloadSegmented(final FileDownloadRequest request, final RemoteFileInfo fileInfo, DownloadSession session,
+                                   int parallelism, final TransferTracker tracker) throws GuangYuYunException, IOException {
+        SegmentedDownload.RangeFetcher fetcher = new SegmentedDownload.RangeFetcher() {
+            @Override
+            public long fetch(long rangeStart, long rangeEnd, WritableByteChannel sink) throws GuangYuYunException {
+                long received = downloadRange(request.getFileId(), request.getAuthToken(), rangeStart, rangeEnd, sink,
+                    null, fileInfo, tracker);
+                if (tracker != null && received > 0) {
+                    tracker.chunkReceived(rangeStart, received);
+                }
+                return received;
+            }
+        };
+        return new SegmentedDownload(fetcher, getDownloadExecutor(), parallelism, adaptiveChunkSizing).download(session);
+    }
+    
+    private ExecutorService getBatchExecutor() {
+        return transport.getBatchExecutor();
+    }
+    
+    private ExecutorService getDownloadExecutor() {
+        return transport.getDownloadExecutor();
+    }
+    
+    /**
+     * 下载文件分片
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @param startByte 起始字节
+     * @param endByte 结束字节
+     * @return 分片数据
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     */
+    public byte[] downloadFileChunk(final String fileId, String authToken, final long startByte, long endByte) throws GuangYuYunException {
+        final SmallObjectCache objectCache = smallObjectCache;
+        ByteBuffer cached = objectCache != null ? objectCache.get(fileId) : null;
+        if (cached != null) {
+            ByteBuffer slice = sliceObject(cached, startByte, endByte);
+            byte[] data = new byte[slice.remaining()];
+            slice.get(data);
+            return data;
+        }
+        if (diskBlockCache != null) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.max(0, Math.min(endByte - startByte + 1, 1024 * 1024)));
+            downloadRange(fileId, authToken, startByte, endByte, Channels.newChannel(output));
+            return output.toByteArray();
+        }
+        try {
+            String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + fileId;
+            
+            HttpGet httpGet = new HttpGet(url);
+            httpGet.setHeader("AuthToken", authToken);
+            httpGet.setHeader("Range", "bytes=" + startByte + "-" + endByte);
+            
+            final long startNanos = System.nanoTime();
+            return execute(ClientMetrics.Operation.DOWNLOAD_RANGE, httpGet, new ResponseHandler<byte[]>() {
+                @Override
+                public byte[] handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    // 先检查状态码，错误响应不读取响应体，连接由execute统一释放
+                    ResponseMapper.checkDownloadStatus(response.getStatusLine().getStatusCode());
+                    
+                    HttpEntity entity = response.getEntity();
+                    if (entity == null) {
+                        throw new GuangYuYunException("Empty response from server");
+                    }
+                    byte[] data = EntityUtils.toByteArray(entity);
+                    recordTransfer(ClientMetrics.Operation.DOWNLOAD_RANGE, data.length, startNanos);
+                    // 从头读取且取得了整个文件时放入小文件缓存
+                    if (objectCache != null && startByte == 0 && data.length == ResponseMapper.parseTotalSize(response)) {
+                        objectCache.put(fileId, ByteBuffer.wrap(data));
+                    }
+                    return data;
+                }
+            });
+            
+        } catch (IOException e) {
+            logger.error("Error downloading file chunk", e);
+            throw ResponseMapper.networkError(e);
+        }
+    }
+    
+    /**
+     * 下载文件分片并直接写入目标通道
+     * 
+     * 响应体经复用的小缓冲区写入sink，不在堆上缓存整个分片，内存占用与分片大小无关。
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @param startByte 起始字节
+     * @param endByte 结束字节
+     * @param sink 目标通道，不会被关闭
+     * @return 写入的字节数
+     * @throws GuangYuYunException 当请求失败或响应超出请求区间时抛出异常
+     */
+    public long downloadFileChunk(String fileId, String authToken, long startByte, long endByte,
+                                  WritableByteChannel sink) throws GuangYuYunException {
+        ByteBuffer cached = smallObjectCache != null && sink != null ? smallObjectCache.get(fileId) : null;
+        if (cached != null) {
+            ByteBuffer slice = sliceObject(cached, startByte, endByte);
+            int length = slice.remaining();
+            try {
+                while (slice.hasRemaining()) {
+                    sink.write(slice);
+                }
+            } catch (IOException e) {
+                throw new GuangYuYunException("File download error: " + e.getMessage(), e);
+            }
+            return length;
+        }
+        if (diskBlockCache != null) {
+            if (sink == null) {
+                throw new GuangYuYunException("Sink channel cannot be null");
+            }
+            return downloadRange(fileId, authToken, startByte, endByte, sink);
+        }
+        return downloadFileChunk(fileId, authToken, startByte, endByte, sink, null);
+    }
+    
+    /**
+     * @param info 不为null时记录响应头中的文件信息；此时416（请求区间超出文件）不视为错误，返回0
+     */
+    private long downloadFileChunk(final String fileId, String authToken, long startByte, long endByte,
+                                   final WritableByteChannel sink, final RemoteFileInfo[] info) throws GuangYuYunException {
+        if (sink == null) {
+            throw new GuangYuYunException("Sink channel cannot be null");
+        }
+        
+        try {
+            String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + fileId;
+            final long expectedLength = endByte - startByte + 1;
+            
+            HttpGet httpGet = new HttpGet(url);
+            httpGet.setHeader("AuthToken", authToken);
+            httpGet.setHeader("Range", "bytes=" + startByte + "-" + endByte);
+            
+            final long startNanos = System.nanoTime();
+            return execute(ClientMetrics.Operation.DOWNLOAD_RANGE, httpGet, new ResponseHandler<Long>() {
+                @Override
+                public Long handle(HttpResponse response) throws IOException, GuangYuYunException {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    if (info != null) {
+                        ResponseMapper.checkRangeStatus(statusCode);
+                        info[0] = new RemoteFileInfo(fileId, ResponseMapper.parseTotalSize(response),
+                            ResponseMapper.parseValidator(response));
+                        if (statusCode == 416) {
+                            return 0L;
+                        }
+                    } else {
+                        ResponseMapper.checkDownloadStatus(statusCode);
+                    }
+                    
+                    HttpEntity entity = response.getEntity();
+                    if (entity == null) {
+                        throw new GuangYuYunException("Empty response from server");
+                    }
+                    long received;
+                    try (InputStream content = entity.getContent()) {
+                        received = DownloadUtils.transfer(content, sink, expectedLength);
+                    }
+                    recordTransfer(ClientMetrics.Operation.DOWNLOAD_RANGE, received, startNanos);
+                    return received;
+                }
+            });
+            
+        } catch (IOException e) {
+            logger.error("Error downloading file chunk", e);
+            throw ResponseMapper.networkError(e);
+        }
+    }
+    
+    /**
+     * 取缓存文件内容中与请求区间重叠的部分，与服务端一样截断到文件末尾
+     */
+    private static ByteBuffer sliceObject(ByteBuffer object, long startByte, long endByte) throws GuangYuYunException {
+        long size = object.remaining();
+        if (startByte < 0 || startByte >= size || endByte < startByte) {
+            throw new GuangYuYunException("HTTP error: 416", null, false);
+        }
+        object.position((int) startByte);
+        object.limit((int) Math.min(size, endByte + 1));
+        return object;
+    }
+    
+    /**
+     * 读取小文件的完整内容
+     * 
+     * 设置了小文件缓存时先查缓存，命中时不发出请求；未命中时用一个Range请求取回整个文件并放入缓存。
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @return 只读的文件内容
+     * @throws GuangYuYunException 当请求失败或文件超过可缓存的最大对象（未设置缓存时为1MB）时抛出异常
+     * @see #setSmallObjectCache(SmallObjectCache)
+     */
+    public ByteBuffer readObject(String fileId, String authToken) throws GuangYuYunException {
+        SmallObjectCache cache = smallObjectCache;
+        ByteBuffer cached = cache != null ? cache.get(fileId) : null;
+        if (cached != null) {
+            return cached;
+        }
+        
+        int limit = cache != null ? cache.getMaxObjectSize() : SmallObjectCache.DEFAULT_MAX_OBJECT_SIZE;
+        RemoteFileInfo[] info = new RemoteFileInfo[1];
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long received = fetchRange(fileId, authToken, 0, limit - 1, Channels.newChannel(output), info, null);
+        long totalSize = info[0] != null ? info[0].getTotalSize() : -1;
+        if (totalSize < 0) {
+            throw new GuangYuYunException("Unable to determine file size");
+        }
+        if (received != totalSize) {
+            throw new GuangYuYunException("File " + fileId + " is larger than " + limit
+                + " bytes, use downloadTo or openChannel instead");
+        }
+        if (fileInfoCache != null) {
+            fileInfoCache.put(info[0]);
+        }
+        ByteBuffer data = ByteBuffer.wrap(output.toByteArray());
+        if (cache != null) {
+            cache.put(fileId, data);
+        }
+        return data.asReadOnlyBuffer();
+    }
+    
+    /**
+     * 读取小文件的完整内容（使用统一token）
+     * 
+     * @see #readObject(String, String)
+     */
+    public ByteBuffer readObject(String fileId) throws GuangYuYunException {
+        if (!hasAuthToken()) {
+            throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use readObject(fileId, authToken)");
+        }
+        return readObject(fileId, currentAuthToken());
+    }
+    
+    /**
+     * 下载区间并写入sink，可重试的失败按重试策略从已写入的位置继续请求剩余区间
+     * 
+     * @return 写入的字节数
+     */
+    private long downloadRange(String fileId, String authToken, long startByte, long endByte,
+                               WritableByteChannel sink) throws GuangYuYunException {
+        return downloadRange(fileId, authToken, startByte, endByte, sink, null, null, null);
+    }
+    
+    /**
+     * @param info 不为null时记录响应头中的文件信息，此时不经磁盘块缓存
+     * @param fileInfo 已知的文件信息，经磁盘块缓存读取时使用；为null时从文件信息缓存获取或单独请求
+     */
+    private long downloadRange(String fileId, String authToken, long startByte, long endByte,
+                               WritableByteChannel sink, RemoteFileInfo[] info, RemoteFileInfo fileInfo) throws GuangYuYunException {
+        return downloadRange(fileId, authToken, startByte, endByte, sink, info, fileInfo, null);
+    }
+    
+    /**
+     * @param tracker 传输事件发布，不为null时报告重试
+     */
+    private long downloadRange(final String fileId, final String authToken, final long startByte, final long endByte,
+                               WritableByteChannel sink, final RemoteFileInfo[] info, RemoteFileInfo fileInfo,
+                               final TransferTracker tracker) throws GuangYuYunException {
+        DiskBlockCache cache = diskBlockCache;
+        if (cache != null && info == null) {
+            // 磁盘块缓存按文件总大小判断末尾块，按校验标识区分文件版本
+            if (fileInfo == null) {
+                fileInfo = fileInfoCache != null ? fileInfoCache.get(fileId) : null;
+            }
+            if (fileInfo == null) {
+                fileInfo = getFileInfoWithRetry(fileId, authToken);
+                if (fileInfoCache != null) {
+                    fileInfoCache.put(fileInfo);
+                }
+            }
+            if (fileInfo.getTotalSize() < 0) {
+                throw new GuangYuYunException("Unable to determine file size");
+            }
+            SegmentedDownload.RangeFetcher remote = new SegmentedDownload.RangeFetcher() {
+                @Override
+                public long fetch(long rangeStart, long rangeEnd, WritableByteChannel target) throws GuangYuYunException {
+                    return fetchRange(fileId, authToken, rangeStart, rangeEnd, target, null, tracker);
+                }
+            };
+            return new CachingRangeFetcher(cache, fileInfo, remote).fetch(startByte, endByte, sink);
+        }
+        return fetchRange(fileId, authToken, startByte, endByte, sink, info, tracker);
+    }
+    
+    /**
+     * 从服务端下载区间，不经磁盘块缓存
+     */
+    private long fetchRange(final String fileId, final String authToken, final long startByte, final long endByte,
+                            WritableByteChannel sink, final RemoteFileInfo[] info,
+                            final TransferTracker tracker) throws GuangYuYunException {
+        final CountingChannel counter = new CountingChannel(sink);
+        RetryExecutor.RetryListener retryListener = tracker != null ? new RetryExecutor.RetryListener() {
+            @Override
+            public void onRetry(int attempt, GuangYuYunException error) {
+                tracker.retried(startByte + counter.count, attempt, error);
+            }
+        } : null;
+        retryExecutor.execute("Download range " + startByte + "-" + endByte + " of " + fileId,
+            new RetryExecutor.Attempt<Long>() {
+                @Override
+                public Long run(int attempt) throws GuangYuYunException {
+                    recordRetry(ClientMetrics.Operation.DOWNLOAD_RANGE, attempt);
+                    try {
+                        return downloadFileChunk(fileId, authToken, startByte + counter.count, endByte, counter, info);
+                    } catch (GuangYuYunException e) {
+                        // 写入本地失败（如磁盘已满）不是网络问题，不重试
+                        if (counter.writeFailed) {
+                            e.setRetryable(false);
+                        }
+                        throw e;
+                    }
+                }
+            }, retryListener);
+        return counter.count;
+    }
+    
+    /**
+     * 获取远端文件信息，可重试的失败按重试策略重新请求
+     */
+    private RemoteFileInfo getFileInfoWithRetry(final String fileId, final String authToken) throws GuangYuYunException {
+        return retryExecutor.execute("Get file info of " + fileId, new RetryExecutor.Attempt<RemoteFileInfo>() {
+            @Override
+            public RemoteFileInfo run(int attempt) throws GuangYuYunException {
+                recordRetry(ClientMetrics.Operation.FILE_INFO, attempt);
+                return getFileInfo(fileId, authToken);
+            }
+        });
+    }
+    
+    /**
+     * 统计写入字节数的通道，重试时据此确定剩余区间
+     */
+    private static class CountingChannel implements WritableByteChannel {
+        
+        private final WritableByteChannel target;
+        private long count;
+        private boolean writeFailed;
+        
+        private CountingChannel(WritableByteChannel target) {
+            this.target = target;
+        }
+        
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            try {
+                int written = target.write(src);
+                count += written;
+                return written;
+            } catch (IOException e) {
+                writeFailed = true;
+                throw e;
+            }
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return target.isOpen();
+        }
+        
+        @Override
+        public void close() {
+            // 由调用方关闭目标通道
+        }
+    }
+    
+    /**
+     * 下载整个文件并顺序写入目标通道
+     * 
+     * 按分片发出Range请求，每个分片的响应体直接写入sink，内存占用恒定。
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @param sink 目标通道，不会被关闭
+     * @return 写入的字节数
+     * @throws GuangYuYunException 当请求失败时抛出异常
+     */
+    public long downloadTo(String fileId, String authToken, WritableByteChannel sink) throws GuangYuYunException {
+        if (sink == null) {
+            throw new GuangYuYunException("Sink channel cannot be null");
+        }
+        
+        // 文件大小优先使用缓存，否则由第一个分片响应的Content-Range得到，不单独探测
+        RemoteFileInfo cached = fileInfoCache != null ? fileInfoCache.get(fileId) : null;
+        long totalSize = cached != null ? cached.getTotalSize() : -1;
+        RemoteFileInfo[] info = new RemoteFileInfo[1];
+        if (totalSize < 0 && diskBlockCache != null) {
+            // 使用磁盘块缓存时先获取文件大小，所有分片都经缓存读取
+            info[0] = getFileInfoWithRetry(fileId, authToken);
+            totalSize = info[0].getTotalSize();
+            if (totalSize < 0) {
+                throw new GuangYuYunException("Unable to determine file size");
+            }
+            if (fileInfoCache != null) {
+                fileInfoCache.put(info[0]);
+            }
+        }
+        
+        int chunkSize = DownloadUtils.getDefaultChunkSize();
+        long currentByte = 0;
+        while (totalSize < 0 || currentByte < totalSize) {
+            long endByte = totalSize < 0 ? chunkSize - 1 : Math.min(currentByte + chunkSize - 1, totalSize - 1);
+            long received = downloadRange(fileId, authToken, currentByte, endByte, sink, totalSize < 0 ? info : null,
+                cached != null ? cached : info[0]);
+            if (totalSize < 0) {
+                totalSize = info[0] != null ? info[0].getTotalSize() : -1;
+                if (totalSize < 0) {
+                    throw new GuangYuYunException("Unable to determine file size");
+                }
+                if (fileInfoCache != null) {
+                    fileInfoCache.put(info[0]);
+                }
+                if (totalSize == 0) {
+                    return 0;
+                }
+            }
+            if (received == 0) {
+                throw new GuangYuYunException("Received empty chunk data");
+            }
+            currentByte += received;
+            logger.debug("Downloaded {}/{} bytes of {}", currentByte, totalSize, fileId);
+        }
+        return currentByte;
     }
     
     /**
-     * 下载文件（支持断点续传）
+     * 下载整个文件并顺序写入输出流
      * 
      * @param fileId 文件ID
      * @param authToken 认证令牌
-     * @param outputPath 输出文件路径
-     * @return 下载结果
+     * @param outputStream 输出流，不会被关闭
+     * @return 写入的字节数
      * @throws GuangYuYunException 当请求失败时抛出异常
+     * @see #downloadTo(String, String, WritableByteChannel)
      */
-    public FileDownloadResponse downloadFile(String fileId, String authToken, String outputPath) throws GuangYuYunException {
-        FileDownloadRequest request = new FileDownloadRequest(fileId, authToken, outputPath);
-        return downloadFile(request);
+    public long downloadTo(String fileId, String authToken, OutputStream outputStream) throws GuangYuYunException {
+        if (outputStream == null) {
+            throw new GuangYuYunException("OutputStream cannot be null");
+        }
+        long written = downloadTo(fileId, authToken, Channels.newChannel(outputStream));
+        try {
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new GuangYuYunException("File download error: " + e.getMessage(), e);
+        }
+        return written;
     }
     
     /**
-     * 下载文件（使用统一token）
+     * 打开远端文件的随机读取通道（使用统一token和默认参数）
      * 
      * @param fileId 文件ID
-     * @param outputPath 输出文件路径
-     * @return 下载结果
-     * @throws GuangYuYunException 当请求失败时抛出异常
+     * @return 只读通道，使用完毕后需关闭
+     * @throws GuangYuYunException 当获取文件信息失败时抛出异常
      */
-    public FileDownloadResponse downloadFile(String fileId, String outputPath) throws GuangYuYunException {
+    public RemoteSeekableChannel openChannel(String fileId) throws GuangYuYunException {
         if (!hasAuthToken()) {
-            throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use downloadFile(fileId, authToken, outputPath)");
+            throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use openChannel(fileId, authToken)");
         }
-        return downloadFile(fileId, this.authToken, outputPath);
+        return openChannel(fileId, currentAuthToken(), new RemoteChannelOptions());
     }
     
     /**
-     * 下载文件（支持断点续传）
+     * 打开远端文件的随机读取通道（默认参数）
      * 
-     * @param request 文件下载请求参数
-     * @return 下载结果
-     * @throws GuangYuYunException 当请求失败时抛出异常
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @return 只读通道，使用完毕后需关闭
+     * @throws GuangYuYunException 当获取文件信息失败时抛出异常
      */
-    public FileDownloadResponse downloadFile(FileDownloadRequest request) throws GuangYuYunException {
-        validateDownloadRequest(request);
-        
-        try {
-            String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + request.getFileId();
-            
-            logger.info("Starting file download: {} to {}", request.getFileId(), request.getOutputPath());
-            
-            // 创建输出目录
-            DownloadUtils.createDirectories(request.getOutputPath());
-            
-            // 检查是否需要断点续传
-            long startByte = 0;
-            if (request.isResumeEnabled() && DownloadUtils.fileExists(request.getOutputPath())) {
-                startByte = DownloadUtils.getFileSize(request.getOutputPath());
-                logger.info("Resuming download from byte: {}", startByte);
-            }
-            
-            // 获取文件总大小
-            long totalSize = getFileSize(request.getFileId(), request.getAuthToken());
-            if (totalSize <= 0) {
-                throw new GuangYuYunException("Unable to determine file size");
-            }
-            
-            // 如果已经下载完成
-            if (startByte >= totalSize) {
-                FileDownloadResponse response = new FileDownloadResponse(true, "File already downloaded");
-                response.setFilePath(request.getOutputPath());
-                response.setTotalSize(totalSize);
-                response.setDownloadedSize(totalSize);
-                response.setFileId(request.getFileId());
-                response.setCompleted(true);
-                return response;
-            }
-            
-            // 设置默认分片大小
-            int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : DownloadUtils.getDefaultChunkSize();
-            if (!DownloadUtils.isValidChunkSize(chunkSize)) {
-                chunkSize = DownloadUtils.getDefaultChunkSize();
-            }
-            
-            long downloadedSize = startByte;
-            long currentByte = startByte;
-            
-            int chunkNumber = 1;
-            while (currentByte < totalSize) {
-                long endByte = Math.min(currentByte + chunkSize - 1, totalSize - 1);
-                
-                System.out.println("=== 下载分片 " + chunkNumber + " ===");
-                System.out.println("分片范围: " + currentByte + " - " + endByte + " bytes");
-                System.out.println("分片大小: " + (endByte - currentByte + 1) + " bytes");
-                System.out.println("开始下载分片...");
-                
-                long startTime = System.currentTimeMillis();
-                byte[] chunkData = downloadFileChunk(request.getFileId(), request.getAuthToken(), currentByte, endByte);
-                long endTime = System.currentTimeMillis();
-                
-                if (chunkData.length == 0) {
-                    throw new GuangYuYunException("Received empty chunk data");
-                }
-                
-                System.out.println("分片下载完成!");
-                System.out.println("实际下载大小: " + chunkData.length + " bytes");
-                System.out.println("下载耗时: " + (endTime - startTime) + " ms");
-                System.out.println("下载速度: " + DownloadUtils.formatSpeed(chunkData.length * 1000 / (endTime - startTime)));
-                
-                // 追加数据到文件
-                if (currentByte == 0) {
-                    // 第一次下载，创建新文件
-                    System.out.println("创建新文件: " + request.getOutputPath());
-                    DownloadUtils.writeToFile(request.getOutputPath(), chunkData);
-                } else {
-                    // 断点续传，追加数据
-                    System.out.println("追加数据到文件...");
-                    DownloadUtils.appendToFile(request.getOutputPath(), chunkData);
-                }
-                
-                downloadedSize += chunkData.length;
-                currentByte = downloadedSize;
-                
-                double progress = (double) downloadedSize / totalSize * 100;
-                System.out.println("总进度: " + downloadedSize + "/" + totalSize + " bytes (" + String.format("%.2f", progress) + "%)");
-                System.out.println("剩余大小: " + (totalSize - downloadedSize) + " bytes");
-                System.out.println();
-                
-                chunkNumber++;
-            }
-            
-            FileDownloadResponse response = new FileDownloadResponse(true, "Download completed successfully");
-            response.setFilePath(request.getOutputPath());
-            response.setTotalSize(totalSize);
-            response.setDownloadedSize(downloadedSize);
-            response.setFileId(request.getFileId());
-            response.setCompleted(true);
-            
-            logger.info("File download completed: {} ({})", request.getOutputPath(), 
-                DownloadUtils.formatFileSize(downloadedSize));
-            
-            return response;
-            
-        } catch (IOException e) {
-            logger.error("Error downloading file", e);
-            throw new GuangYuYunException("File download error: " + e.getMessage(), e);
-        }
+    public RemoteSeekableChannel openChannel(String fileId, String authToken) throws GuangYuYunException {
+        return openChannel(fileId, authToken, new RemoteChannelOptions());
     }
     
     /**
-     * 下载文件分片
+     * 打开远端文件的随机读取通道
+     * 
+     * 打开时获取文件大小（配置了文件信息缓存时可能不发出请求），之后只在读取未缓存的块时发出Range请求，
+     * 可重试的失败按重试策略继续请求剩余区间。
      * 
      * @param fileId 文件ID
      * @param authToken 认证令牌
-     * @param startByte 起始字节
-     * @param endByte 结束字节
-     * @return 分片数据
-     * @throws GuangYuYunException 当请求失败时抛出异常
+     * @param options 分块、缓存与预读参数
+     * @return 只读通道，使用完毕后需关闭
+     * @throws GuangYuYunException 当获取文件信息失败时抛出异常
      */
-    public byte[] downloadFileChunk(String fileId, String authToken, long startByte, long endByte) throws GuangYuYunException {
-        try {
-            String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + fileId;
-            
-            HttpGet httpGet = new HttpGet(url);
-            httpGet.setHeader("AuthToken", authToken);
-            httpGet.setHeader("Range", "bytes=" + startByte + "-" + endByte);
-            
-            HttpResponse response = httpClient.execute(httpGet);
-            HttpEntity entity = response.getEntity();
-            
-            if (entity != null) {
-                byte[] data = EntityUtils.toByteArray(entity);
-                
-                int statusCode = response.getStatusLine().getStatusCode();
-                if (statusCode == 206) { // Partial Content
-                    return data;
-                } else if (statusCode == 200) { // OK (full content)
-                    return data;
-                } else {
-                    throw new GuangYuYunException("HTTP error: " + statusCode);
-                }
-            } else {
-                throw new GuangYuYunException("Empty response from server");
-            }
-            
-        } catch (IOException e) {
-            logger.error("Error downloading file chunk", e);
-            throw new GuangYuYunException("Network error: " + e.getMessage(), e);
+    public RemoteSeekableChannel openChannel(final String fileId, final String authToken, RemoteChannelOptions options)
+            throws GuangYuYunException {
+        if (fileId == null || fileId.trim().isEmpty()) {
+            throw new GuangYuYunException("FileId cannot be null or empty");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Channel options cannot be null");
         }
+        final RemoteFileInfo fileInfo = getFileInfoWithRetry(fileId, authToken);
+        long totalSize = fileInfo.getTotalSize();
+        if (totalSize < 0) {
+            throw new GuangYuYunException("Unable to determine file size");
+        }
+        SegmentedDownload.RangeFetcher fetcher = new SegmentedDownload.RangeFetcher() {
+            @Override
+            public long fetch(long rangeStart, long rangeEnd, WritableByteChannel sink) throws GuangYuYunException {
+                return downloadRange(fileId, authToken, rangeStart, rangeEnd, sink, null, fileInfo);
+            }
+        };
+        return new RemoteSeekableChannel(fileId, fetcher, totalSize, options);
+    }
+    
+    /**
+     * 打开远端文件的输入流，skip按块跳过而不读取中间数据
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @return 输入流，使用完毕后需关闭
+     * @throws GuangYuYunException 当获取文件信息失败时抛出异常
+     * @see #openChannel(String, String, RemoteChannelOptions)
+     */
+    public InputStream openInputStream(String fileId, String authToken) throws GuangYuYunException {
+        return Channels.newInputStream(openChannel(fileId, authToken));
     }
     
     /**
@@ -754,10 +2204,26 @@ public class GuangYuYunClient {
      * 
      * @param fileId 文件ID
      * @param authToken 认证令牌
-     * @return 文件大小
-     * @throws GuangYuYunException 当请求失败时抛出异常
+     * @return 文件大小，无法确定时为-1
+     * @throws GuangYuYunException 当请求失败（如文件不存在）时抛出异常
      */
     public long getFileSize(String fileId, String authToken) throws GuangYuYunException {
+        return getFileInfo(fileId, authToken).getTotalSize();
+    }
+    
+    /**
+     * 获取远端文件信息（总大小与校验标识）
+     * 
+     * @param fileId 文件ID
+     * @param authToken 认证令牌
+     * @return 文件信息，无法确定大小时totalSize为-1
+     * @throws GuangYuYunException 当请求失败（如文件不存在）时抛出异常
+     */
+    public RemoteFileInfo getFileInfo(final String fileId, String authToken) throws GuangYuYunException {
+        RemoteFileInfo cached = fileInfoCache != null ? fileInfoCache.get(fileId) : null;
+        if (cached != null) {
+            return cached;
+        }
         try {
             String url = baseUrl + FILE_DOWNLOAD_ENDPOINT + "?id=" + fileId;
             
@@ -765,38 +2231,25 @@ public class GuangYuYunClient {
             httpGet.setHeader("AuthToken", authToken);
             httpGet.setHeader("Range", "bytes=0-0"); // 只请求第一个字节
             
-            HttpResponse response = httpClient.execute(httpGet);
-            
-            String contentRange = response.getFirstHeader("Content-Range") != null ? 
-                response.getFirstHeader("Content-Range").getValue() : null;
-            
-            if (contentRange != null) {
-                // Content-Range: bytes 0-0/1234567
-                String[] parts = contentRange.split("/");
-                if (parts.length == 2) {
-                    return Long.parseLong(parts[1]);
+            RemoteFileInfo info = execute(ClientMetrics.Operation.FILE_INFO, httpGet, new ResponseHandler<RemoteFileInfo>() {
+                @Override
+                public RemoteFileInfo handle(HttpResponse response) throws GuangYuYunException {
+                    ResponseMapper.checkRangeStatus(response.getStatusLine().getStatusCode());
+                    return new RemoteFileInfo(fileId, ResponseMapper.parseTotalSizeFromStart(response),
+                        ResponseMapper.parseValidator(response));
                 }
+            });
+            if (fileInfoCache != null) {
+                fileInfoCache.put(info);
             }
-            
-            // 如果没有Content-Range头，尝试从Content-Length获取
-            String contentLength = response.getFirstHeader("Content-Length") != null ? 
-                response.getFirstHeader("Content-Length").getValue() : null;
-            
-            if (contentLength != null) {
-                return Long.parseLong(contentLength);
-            }
-            
-            // 如果都没有，返回-1表示无法确定大小
-            return -1;
+            return info;
             
         } catch (IOException e) {
-            logger.error("Error getting file size", e);
-            throw new GuangYuYunException("Network error: " + e.getMessage(), e);
+            logger.error("Error getting file info", e);
+            throw ResponseMapper.networkError(e);
         }
     }
     
-
-    
     /**
      * 获取文件大小（使用统一token）
      * 
@@ -808,61 +2261,130 @@ public class GuangYuYunClient {
         if (!hasAuthToken()) {
             throw new GuangYuYunException("AuthToken not set. Please call setAuthToken() first or use getFileSize(fileId, authToken)");
         }
-        return getFileSize(fileId, this.authToken);
+        return getFileSize(fileId, currentAuthToken());
     }
     
     /**
-     * 验证请求参数
+     * 响应处理回调，在连接释放前读取响应
      */
-    private void validateRequest(TokenRequest request) throws GuangYuYunException {
-        if (request == null) {
-            throw new GuangYuYunException("Request cannot be null");
-        }
-        
-        if (request.getAccount() == null || request.getAccount().trim().isEmpty()) {
-            throw new GuangYuYunException("Account cannot be null or empty");
+    private interface ResponseHandler<T> {
+        T handle(HttpResponse response) throws IOException, GuangYuYunException;
+    }
+    
+    /**
+     * 执行请求并记录延迟与成功/失败，包含token失效后的重发
+     */
+    private <T> T execute(ClientMetrics.Operation operation, HttpUriRequest request, ResponseHandler<T> handler)
+            throws IOException, GuangYuYunException {
+        ClientMetrics currentMetrics = metrics;
+        if (currentMetrics == null) {
+            return execute(request, handler);
         }
-        
-        if (request.getApiKey() == null || request.getApiKey().trim().isEmpty()) {
-            throw new GuangYuYunException("ApiKey cannot be null or empty");
+        long startNanos = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = execute(request, handler);
+            success = true;
+            return result;
+        } finally {
+            currentMetrics.recordRequest(operation, System.nanoTime() - startNanos, success);
         }
-        
-        if (request.getExpireTime() == null || request.getExpireTime() <= 0) {
-            throw new GuangYuYunException("ExpireTime must be a positive number");
+    }
+    
+    private void recordTransfer(ClientMetrics.Operation operation, long bytes, long startNanos) {
+        ClientMetrics currentMetrics = metrics;
+        if (currentMetrics != null && bytes > 0) {
+            currentMetrics.recordTransfer(operation, bytes, System.nanoTime() - startNanos);
         }
     }
     
     /**
-     * 验证大文件上传请求参数
+     * 第attempt次尝试大于1时记录一次重试
      */
-    private void validateLargeFileUploadRequest(LargeFileUploadRequest request) throws GuangYuYunException {
-        if (request == null) {
-            throw new GuangYuYunException("Request cannot be null");
+    private void recordRetry(ClientMetrics.Operation operation, int attempt) {
+        ClientMetrics currentMetrics = metrics;
+        if (currentMetrics != null && attempt > 1) {
+            currentMetrics.recordRetry(operation);
         }
-        
-        if (request.getFileName() == null || request.getFileName().trim().isEmpty()) {
-            throw new GuangYuYunException("FileName cannot be null or empty");
-        }
-        
-        if (request.getFileMd5() == null || request.getFileMd5().trim().isEmpty()) {
-            throw new GuangYuYunException("FileMd5 cannot be null or empty");
-        }
-        
-        if (request.getFileSize() == null || request.getFileSize() <= 0) {
-            throw new GuangYuYunException("FileSize must be a positive number");
+    }
+    
+    /**
+     * 执行请求并保证连接归还连接池
+     * 
+     * 所有请求都经由此方法发出：处理成功时读完剩余响应体以便连接复用；
+     * 处理过程中抛出异常时直接关闭响应（连接被关闭而不是读完未知长度的响应体）。
+     */
+    private <T> T execute(HttpUriRequest request, ResponseHandler<T> handler) throws IOException, GuangYuYunException {
+        TokenProvider provider = tokenProvider;
+        Header tokenHeader = request.getFirstHeader("AuthToken");
+        boolean managed = provider != null && tokenHeader != null && provider.isManaged(tokenHeader.getValue());
+        if (managed) {
+            // 由提供方签发的token在发出前换成当前有效的
+            request.setHeader("AuthToken", provider.getToken());
         }
         
-        if (request.getFileStartIndex() == null || request.getFileStartIndex() < 0) {
-            throw new GuangYuYunException("FileStartIndex must be a non-negative number");
+        ConnectionLeakDetector.Lease lease = leakDetector != null ? leakDetector.acquire(request.getRequestLine().toString()) : null;
+        try {
+            String rejectedToken = null;
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                if (managed && response.getStatusLine().getStatusCode() == 401 && isRepeatable(request)) {
+                    rejectedToken = request.getFirstHeader("AuthToken").getValue();
+                } else {
+                    T result = handler.handle(response);
+                    EntityUtils.consume(response.getEntity());
+                    return result;
+                }
+            }
+            
+            // token失效被拒绝：换取新token后重发一次
+            String freshToken = provider.onTokenRejected(rejectedToken);
+            if (freshToken == null) {
+                throw new GuangYuYunException("HTTP error: 401");
+            }
+            logger.info("Token rejected, replaying {} with a new token", request.getRequestLine());
+            request.setHeader("AuthToken", freshToken);
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                T result = handler.handle(response);
+                EntityUtils.consume(response.getEntity());
+                return result;
+            }
+        } finally {
+            if (lease != null) {
+                lease.release();
+            }
         }
-        
-        if (request.getAuthToken() == null || request.getAuthToken().trim().isEmpty()) {
-            throw new GuangYuYunException("AuthToken cannot be null or empty");
+    }
+    
+    private static boolean isRepeatable(HttpUriRequest request) {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            return entity == null || entity.isRepeatable();
         }
-        
-        if (request.getFileData() == null || request.getFileData().length == 0) {
-            throw new GuangYuYunException("FileData cannot be null or empty");
+        return true;
+    }
+    
+    /**
+     * 获取连接池统计（租用中、空闲、等待中的连接数及上限），共享传输层时为所有视图的合计
+     */
+    public PoolStats getPoolStats() {
+        return transport.getPoolStats();
+    }
+    
+    /**
+     * 获取连接泄漏检测器，未开启时返回null
+     */
+    public ConnectionLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+    
+    /**
+     * 计算文件MD5（配置了MD5缓存时优先使用缓存）
+     */
+    private String calculateFileMd5(File file) throws IOException {
+        if (digestCache != null) {
+            return digestCache.getOrCompute(file);
         }
+        return FileUtils.calculateMD5(file);
     }
     
     /**
@@ -903,65 +2425,176 @@ public class GuangYuYunClient {
     }
     
     /**
-     * 验证小文件上传请求参数
+     * 关闭客户端资源；共享传输层的视图不关闭传输层
+     */
+    public void close() {
+        if (ownsTransport) {
+            transport.close();
+        }
+    }
+    
+    /**
+     * 获取传输层，可用于为其他租户创建共享连接池的客户端视图
+     * 
+     * @see ClientTransport#newClient(TokenProvider)
+     */
+    public ClientTransport getTransport() {
+        return transport;
+    }
+    
+    /**
+     * 客户端构建器
      */
-    private void validateSmallFileUploadRequest(SmallFileUploadRequest request) throws GuangYuYunException {
-        if (request == null) {
-            throw new GuangYuYunException("Request cannot be null");
+    public static class Builder {
+        
+        private final ClientConfig config = new ClientConfig();
+        
+        private Builder() {
         }
         
-        if (request.getFile() == null) {
-            throw new GuangYuYunException("File cannot be null");
+        public Builder baseUrl(String baseUrl) {
+            config.setBaseUrl(baseUrl);
+            return this;
         }
         
-        if (!request.getFile().exists()) {
-            throw new GuangYuYunException("File does not exist: " + request.getFile().getPath());
+        public Builder maxConnectionsTotal(int maxConnectionsTotal) {
+            config.setMaxConnectionsTotal(maxConnectionsTotal);
+            return this;
         }
         
-        if (request.getFile().isDirectory()) {
-            throw new GuangYuYunException("File cannot be a directory");
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            config.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+            return this;
         }
         
-        if (request.getAuthToken() == null || request.getAuthToken().trim().isEmpty()) {
-            throw new GuangYuYunException("AuthToken cannot be null or empty");
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            config.setConnectTimeoutMillis(toMillis(timeout, unit));
+            return this;
         }
-    }
-    
-    /**
-     * 验证下载请求参数
-     */
-    private void validateDownloadRequest(FileDownloadRequest request) throws GuangYuYunException {
-        if (request == null) {
-            throw new GuangYuYunException("Request cannot be null");
+        
+        public Builder socketTimeout(long timeout, TimeUnit unit) {
+            config.setSocketTimeoutMillis(toMillis(timeout, unit));
+            return this;
         }
         
-        if (request.getFileId() == null || request.getFileId().trim().isEmpty()) {
-            throw new GuangYuYunException("FileId cannot be null or empty");
+        public Builder connectionRequestTimeout(long timeout, TimeUnit unit) {
+            config.setConnectionRequestTimeoutMillis(toMillis(timeout, unit));
+            return this;
         }
         
-        if (request.getAuthToken() == null || request.getAuthToken().trim().isEmpty()) {
-            throw new GuangYuYunException("AuthToken cannot be null or empty");
+        public Builder keepAlive(long duration, TimeUnit unit) {
+            config.setKeepAliveMillis(unit.toMillis(duration));
+            return this;
         }
         
-        if (request.getOutputPath() == null || request.getOutputPath().trim().isEmpty()) {
-            throw new GuangYuYunException("OutputPath cannot be null or empty");
+        public Builder validateAfterInactivity(long duration, TimeUnit unit) {
+            config.setValidateAfterInactivityMillis(toMillis(duration, unit));
+            return this;
         }
         
-        if (request.getChunkSize() != null && !DownloadUtils.isValidChunkSize(request.getChunkSize())) {
-            throw new GuangYuYunException("Chunk size must be between 64KB and 10MB");
+        public Builder idleConnectionTimeout(long duration, TimeUnit unit) {
+            config.setIdleConnectionTimeoutMillis(unit.toMillis(duration));
+            return this;
         }
-    }
-    
-    /**
-     * 关闭客户端资源
-     */
-    public void close() {
-        try {
-            if (httpClient instanceof org.apache.http.impl.client.CloseableHttpClient) {
-                ((org.apache.http.impl.client.CloseableHttpClient) httpClient).close();
-            }
-        } catch (IOException e) {
-            logger.warn("Error closing HTTP client", e);
+        
+        public Builder uploadReadAheadBytes(long uploadReadAheadBytes) {
+            config.setUploadReadAheadBytes(uploadReadAheadBytes);
+            return this;
+        }
+        
+        public Builder uploadSpoolMemoryBytes(int uploadSpoolMemoryBytes) {
+            config.setUploadSpoolMemoryBytes(uploadSpoolMemoryBytes);
+            return this;
+        }
+        
+        public Builder downloadParallelism(int downloadParallelism) {
+            config.setDownloadParallelism(downloadParallelism);
+            return this;
+        }
+        
+        public Builder batchConcurrency(int batchConcurrency) {
+            config.setBatchConcurrency(batchConcurrency);
+            return this;
+        }
+        
+        public Builder adaptiveChunkSizing(boolean adaptiveChunkSizing) {
+            config.setAdaptiveChunkSizing(adaptiveChunkSizing);
+            return this;
+        }
+        
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            config.setRetryPolicy(retryPolicy);
+            return this;
+        }
+        
+        public Builder retryBudget(RetryBudget retryBudget) {
+            config.setRetryBudget(retryBudget);
+            return this;
+        }
+        
+        public Builder leakDetectionThreshold(long threshold, TimeUnit unit) {
+            config.setLeakDetectionThresholdMillis(unit.toMillis(threshold));
+            return this;
+        }
+        
+        public Builder digestCache(DigestCache digestCache) {
+            config.setDigestCache(digestCache);
+            return this;
+        }
+        
+        public Builder fileInfoCache(RemoteFileInfoCache fileInfoCache) {
+            config.setFileInfoCache(fileInfoCache);
+            return this;
+        }
+        
+        public Builder tokenProvider(TokenProvider tokenProvider) {
+            config.setTokenProvider(tokenProvider);
+            return this;
+        }
+        
+        public Builder diskBlockCache(DiskBlockCache diskBlockCache) {
+            config.setDiskBlockCache(diskBlockCache);
+            return this;
+        }
+        
+        public Builder smallObjectCache(SmallObjectCache smallObjectCache) {
+            config.setSmallObjectCache(smallObjectCache);
+            return this;
+        }
+        
+        public Builder uploadSessionStore(UploadSessionStore uploadSessionStore) {
+            config.setUploadSessionStore(uploadSessionStore);
+            return this;
+        }
+        
+        public Builder transferListener(TransferListener transferListener) {
+            config.setTransferListener(transferListener);
+            return this;
+        }
+        
+        public Builder progressInterval(long interval, TimeUnit unit) {
+            config.setProgressIntervalMillis(unit.toMillis(interval));
+            return this;
+        }
+        
+        public Builder metrics(ClientMetrics metrics) {
+            config.setMetrics(metrics);
+            return this;
+        }
+        
+        public GuangYuYunClient build() {
+            return new GuangYuYunClient(config);
+        }
+        
+        /**
+         * 创建可被多个客户端视图共享的传输层，凭证与缓存在各视图上单独设置
+         */
+        public ClientTransport buildTransport() {
+            return new ClientTransport(config);
+        }
+        
+        private static int toMillis(long duration, TimeUnit unit) {
+            return (int) Math.min(Integer.MAX_VALUE, unit.toMillis(duration));
         }
     }
 }
@@ -0,0 +1,189 @@
+package com.guangyuyun.sdk;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.model.FileDownloadRequest;
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+import com.guangyuyun.sdk.model.SmallFileUploadRequest;
+import com.guangyuyun.sdk.model.TokenRequest;
+import com.guangyuyun.sdk.util.DownloadUtils;
+import com.guangyuyun.sdk.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 请求参数校验与分片大小处理（同步与异步客户端共用）
+ */
+final class RequestValidator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RequestValidator.class);
+    
+    private RequestValidator() {
+    }
+    
+    /**
+     * 验证Token请求参数
+     */
+    static void validateTokenRequest(TokenRequest request) throws GuangYuYunException {
+        if (request == null) {
+            throw new GuangYuYunException("Request cannot be null");
+        }
+        
+        if (request.getAccount() == null || request.getAccount().trim().isEmpty()) {
+            throw new GuangYuYunException("Account cannot be null or empty");
+        }
+        
+        if (request.getApiKey() == null || request.getApiKey().trim().isEmpty()) {
+            throw new GuangYuYunException("ApiKey cannot be null or empty");
+        }
+        
+        if (request.getExpireTime() == null || request.getExpireTime() <= 0) {
+            throw new GuangYuYunException("ExpireTime must be a positive number");
+        }
+    }
+    
+    /**
+     * 验证小文件上传请求参数
+     */
+    static void validateSmallFileUploadRequest(SmallFileUploadRequest request) throws GuangYuYunException {
+        if (request == null) {
+            throw new GuangYuYunException("Request cannot be null");
+        }
+        
+        if (request.getFile() == null) {
+            throw new GuangYuYunException("File cannot be null");
+        }
+        
+        if (!request.getFile().exists()) {
+            throw new GuangYuYunException("File does not exist: " + request.getFile().getPath());
+        }
+        
+        if (request.getFile().isDirectory()) {
+            throw new GuangYuYunException("File cannot be a directory");
+        }
+        
+        if (request.getAuthToken() == null || request.getAuthToken().trim().isEmpty()) {
+            throw new GuangYuYunException("AuthToken cannot be null or empty");
+        }
+    }
+    
+    /**
+     * 验证大文件上传请求参数
+     */
+    static void validateLargeFileUploadRequest(LargeFileUploadRequest request) throws GuangYuYunException {
+        if (request == null) {
+            throw new GuangYuYunException("Request cannot be null");
+        }
+        
+        if (request.getFileName() == null || request.getFileName().trim().isEmpty()) {
+            throw new GuangYuYunException("FileName cannot be null or empty");
+        }
+        
+        if (request.getFileMd5() == null || request.getFileMd5().trim().isEmpty()) {
+            throw new GuangYuYunException("FileMd5 cannot be null or empty");
+        }
+        
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            throw new GuangYuYunException("FileSize must be a positive number");
+        }
+        
+        if (request.getFileStartIndex() == null || request.getFileStartIndex() < 0) {
+            throw new GuangYuYunException("FileStartIndex must be a non-negative number");
+        }
+        
+        if (request.getAuthToken() == null || request.getAuthToken().trim().isEmpty()) {
+            throw new GuangYuYunException("AuthToken cannot be null or empty");
+        }
+        
+        if (request.getChunkLength() <= 0) {
+            throw new GuangYuYunException("FileData cannot be null or empty");
+        }
+    }
+    
+    /**
+     * 验证下载请求参数
+     */
+    static void validateDownloadRequest(FileDownloadRequest request) throws GuangYuYunException {
+        if (request == null) {
+            throw new GuangYuYunException("Request cannot be null");
+        }
+        
+        if (request.getFileId() == null || request.getFileId().trim().isEmpty()) {
+            throw new GuangYuYunException("FileId cannot be null or empty");
+        }
+        
+        if (request.getAuthToken() == null || request.getAuthToken().trim().isEmpty()) {
+            throw new GuangYuYunException("AuthToken cannot be null or empty");
+        }
+        
+        if (request.getOutputPath() == null || request.getOutputPath().trim().isEmpty()) {
+            throw new GuangYuYunException("OutputPath cannot be null or empty");
+        }
+        
+        if (request.getChunkSize() != null && !DownloadUtils.isValidChunkSize(request.getChunkSize())) {
+            throw new GuangYuYunException("Chunk size must be between 64KB and 10MB");
+        }
+        
+        if (request.getParallelism() != null && request.getParallelism() < 1) {
+            throw new GuangYuYunException("Parallelism must be a positive number");
+        }
+    }
+    
+    /**
+     * 解析大文件分片大小：未指定时使用默认值，并校验范围
+     */
+    static int resolveLargeFileChunkSize(Integer chunkSize) throws GuangYuYunException {
+        // 使用默认分片大小
+        if (chunkSize == null) {
+            chunkSize = FileUtils.getMinChunkSize();
+        }
+        
+        // 验证分片大小
+        if (!FileUtils.isValidChunkSize(chunkSize)) {
+            throw new GuangYuYunException("Chunk size must be between 1MB and 10MB");
+        }
+        return chunkSize;
+    }
+    
+    /**
+     * 在上传前尽量调整分片大小，避免最后一片小于1MB而被服务端拒绝
+     */
+    static int adjustChunkSizeForLastChunk(long fileSize, int chunkSize) {
+        int minChunk = FileUtils.getMinChunkSize();
+        if (fileSize > 0) {
+            long remainder = fileSize % chunkSize;
+            if (remainder > 0 && remainder < minChunk) {
+                int step = 64 * 1024; // 64KB步进调整，兼顾效率与精度
+                int original = chunkSize;
+                boolean adjusted = false;
+                // 优先尝试减小分片大小
+                for (int candidate = chunkSize - step; candidate >= minChunk; candidate -= step) {
+                    if (!FileUtils.isValidChunkSize(candidate)) continue;
+                    long r = fileSize % candidate;
+                    if (r == 0 || r >= minChunk) {
+                        chunkSize = candidate;
+                        adjusted = true;
+                        break;
+                    }
+                }
+                // 再尝试增大分片大小
+                if (!adjusted) {
+                    for (int candidate = chunkSize + step; FileUtils.isValidChunkSize(candidate); candidate += step) {
+                        long r = fileSize % candidate;
+                        if (r == 0 || r >= minChunk) {
+                            chunkSize = candidate;
+                            adjusted = true;
+                            break;
+                        }
+                    }
+                }
+                if (adjusted) {
+                    logger.info("Adjusted chunk size from {} to {} bytes so that the last chunk is at least 1MB", original, chunkSize);
+                } else {
+                    logger.warn("No chunk size between 1MB and 10MB avoids a last chunk smaller than 1MB for {} bytes, "
+                        + "the last chunk may be rejected", fileSize);
+                }
+            }
+        }
+        return chunkSize;
+    }
+}
@@ -0,0 +1,184 @@
+package com.guangyuyun.sdk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.model.LargeFileUploadResponse;
+import com.guangyuyun.sdk.model.SmallFileUploadResponse;
+import com.guangyuyun.sdk.model.TokenResponse;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import java.io.IOException;
+import java.net.UnknownHostException;
+
+/**
+ * 响应结果到GuangYuYunException的映射（同步与异步客户端共用）
+ */
+final class ResponseMapper {
+    
+    private ResponseMapper() {
+    }
+    
+    /**
+     * 检查Token响应，失败时抛出异常
+     */
+    static TokenResponse checkTokenResponse(TokenResponse tokenResponse) throws GuangYuYunException {
+        if (!tokenResponse.isSuccess()) {
+            throw new GuangYuYunException(tokenResponse.getCode(), 
+                "Failed to create token: " + tokenResponse.getMessage(),tokenResponse.getCode());
+        }
+        return tokenResponse;
+    }
+    
+    /**
+     * 检查小文件上传响应，失败时抛出异常
+     */
+    static SmallFileUploadResponse checkSmallFileUploadResponse(SmallFileUploadResponse uploadResponse) throws GuangYuYunException {
+        if (!uploadResponse.isSuccess()) {
+            String errorMessage = getErrorMessage(uploadResponse.getCode(), uploadResponse.getMessage());
+            throw new GuangYuYunException(uploadResponse.getCode(), 
+                "Failed to upload file: " + errorMessage, uploadResponse.getCode());
+        }
+        return uploadResponse;
+    }
+    
+    /**
+     * 检查大文件分片上传响应
+     * 
+     * 对于错误码7（文件索引错误），不抛出异常，直接返回响应对象，让调用方处理这种情况
+     */
+    static LargeFileUploadResponse checkLargeFileUploadResponse(LargeFileUploadResponse uploadResponse) throws GuangYuYunException {
+        if (!uploadResponse.isSuccess() && uploadResponse.getCode() != 7) {
+            throw new GuangYuYunException(uploadResponse.getCode(), 
+                "Failed to upload file chunk: " + uploadResponse.getMessage(),uploadResponse.getCode());
+        }
+        return uploadResponse;
+    }
+    
+    /**
+     * 检查下载响应状态码：206 Partial Content 或 200 OK（完整内容）
+     */
+    static void checkDownloadStatus(int statusCode) throws GuangYuYunException {
+        if (statusCode != 206 && statusCode != 200) {
+            throw new GuangYuYunException("HTTP error: " + statusCode, null, isTransientStatus(statusCode));
+        }
+    }
+    
+    /**
+     * 检查探测文件大小的Range请求状态码
+     * 
+     * 416表示请求区间超出文件（空文件），服务端在Content-Range中给出文件大小，不视为错误；
+     * 其他非200/206状态（如404）抛出异常，而不是把错误响应的Content-Length当作文件大小。
+     */
+    static void checkRangeStatus(int statusCode) throws GuangYuYunException {
+        if (statusCode != 416) {
+            checkDownloadStatus(statusCode);
+        }
+    }
+    
+    /**
+     * 检查临时性的HTTP错误（408、429、5xx），此类响应没有可解析的业务结果，抛出可重试的异常
+     */
+    static void checkTransientStatus(int statusCode) throws GuangYuYunException {
+        if (isTransientStatus(statusCode)) {
+            throw new GuangYuYunException("HTTP error: " + statusCode, null, true);
+        }
+    }
+    
+    private static boolean isTransientStatus(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+    
+    /**
+     * 网络异常映射：连接重置、超时等临时错误标记为可重试；
+     * 域名解析、TLS证书与响应解析错误重试也不会成功，不标记
+     */
+    static GuangYuYunException networkError(Exception e) {
+        boolean retryable = e instanceof IOException
+                && !(e instanceof UnknownHostException)
+                && !(e instanceof SSLHandshakeException)
+                && !(e instanceof SSLPeerUnverifiedException)
+                && !(e instanceof JsonProcessingException);
+        return new GuangYuYunException("Network error: " + e.getMessage(), e, retryable);
+    }
+    
+    /**
+     * 解析从0开始的区间请求得到的文件总大小：416说明连第一个字节都不存在，响应未带大小时即为空文件
+     */
+    static long parseTotalSizeFromStart(HttpResponse response) {
+        long totalSize = parseTotalSize(response);
+        if (totalSize < 0 && response.getStatusLine().getStatusCode() == 416) {
+            return 0;
+        }
+        return totalSize;
+    }
+
+    /**
+     * 从响应头解析文件总大小，无法确定时返回-1
+     */
+    static long parseTotalSize(HttpResponse response) {
+        Header contentRange = response.getFirstHeader("Content-Range");
+        if (contentRange != null) {
+            // Content-Range: bytes 0-0/1234567，416时为bytes */1234567，总大小未知时为bytes 0-0/*
+            String[] parts = contentRange.getValue().split("/");
+            if (parts.length == 2) {
+                try {
+                    return Long.parseLong(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        
+        // 服务端忽略Range返回整个文件时，Content-Length即文件大小；其他状态的Content-Length是错误信息的长度
+        Header contentLength = response.getFirstHeader("Content-Length");
+        if (contentLength != null && response.getStatusLine().getStatusCode() == 200) {
+            try {
+                return Long.parseLong(contentLength.getValue().trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        
+        // 如果都没有，返回-1表示无法确定大小
+        return -1;
+    }
+    
+    /**
+     * 从响应头解析远端文件校验标识（优先ETag，其次Last-Modified），都没有时返回null
+     */
+    static String parseValidator(HttpResponse response) {
+        Header etag = response.getFirstHeader("ETag");
+        if (etag != null) {
+            return etag.getValue().trim();
+        }
+        Header lastModified = response.getFirstHeader("Last-Modified");
+        return lastModified != null ? lastModified.getValue().trim() : null;
+    }
+    
+    /**
+     * 根据错误码获取错误消息
+     */
+    static String getErrorMessage(Integer code, String defaultMessage) {
+        if (code == null) {
+            return defaultMessage != null ? defaultMessage : "Unknown error";
+        }
+        
+        switch (code) {
+            case 4:
+                return "不支持多文件上传";
+            case 5:
+                return "单文件大小不能超过100M,大文件上传请调用大文件上传接口";
+            case 6:
+                return "文件错误";
+            case 7:
+                return "添加到分布式存储系统错误";
+            case 8:
+                return "写入数据库错误";
+            default:
+                return defaultMessage != null ? defaultMessage : "Unknown error code: " + code;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.guangyuyun.sdk.auth;
+
+import com.guangyuyun.sdk.GuangYuYunClient;
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.metrics.ClientMetrics;
+import com.guangyuyun.sdk.model.TokenRequest;
+import com.guangyuyun.sdk.model.TokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按账号和API密钥自动创建并提前刷新token
+ *
+ * 当前token保存在volatile字段中，有效期内读取不加锁。进入刷新窗口（到期前5分钟，不超过有效期的一半）后，
+ * 第一个发现的线程创建新token，其他线程继续使用当前token，不会等待；token已过期或被服务端拒绝时，
+ * 并发的调用方合并为一次/u/createToken请求，其余线程等待其结果。新token整体替换，读取方不会看到半更新的状态。
+ */
+public class RefreshingTokenProvider implements TokenProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingTokenProvider.class);
+
+    public static final long DEFAULT_REFRESH_AHEAD_MILLIS = 5 * 60 * 1000L;
+    private static final int MAX_ISSUED_TOKENS = 16;
+
+    private final GuangYuYunClient client;
+    private final String account;
+    private final String apiKey;
+    private final long lifetimeSeconds;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Map<String, Boolean> issuedTokens; // 最近签发的token，调用方可能仍持有旧token
+    private volatile long refreshAheadMillis = DEFAULT_REFRESH_AHEAD_MILLIS;
+    private volatile TokenState state;
+    private volatile long refreshCount;
+
+    /**
+     * @param client 用于创建token的客户端
+     * @param account 账号
+     * @param apiKey API密钥
+     * @param lifetime 每个token申请的有效期
+     * @param unit 有效期单位
+     */
+    public RefreshingTokenProvider(GuangYuYunClient client, String account, String apiKey, long lifetime, TimeUnit unit) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client cannot be null");
+        }
+        if (unit.toSeconds(lifetime) <= 0) {
+            throw new IllegalArgumentException("Token lifetime must be at least one second");
+        }
+        this.client = client;
+        this.account = account;
+        this.apiKey = apiKey;
+        this.lifetimeSeconds = unit.toSeconds(lifetime);
+        this.issuedTokens = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_ISSUED_TOKENS;
+            }
+        });
+    }
+
+    @Override
+    public String getToken() throws GuangYuYunException {
+        TokenState current = state;
+        long now = System.currentTimeMillis();
+        if (current != null && now < current.refreshAtMillis) {
+            return current.token;
+        }
+        if (current != null && now < current.expiresAtMillis) {
+            // 临近过期：只有拿到锁的线程刷新，其他线程继续使用当前token
+            if (refreshLock.tryLock()) {
+                try {
+                    if (state == current) {
+                        state = create();
+                    }
+                } catch (GuangYuYunException e) {
+                    logger.warn("Failed to refresh token ahead of expiry, keep using the current one: {}", e.getMessage());
+                } finally {
+                    refreshLock.unlock();
+                }
+            }
+            return state.token;
+        }
+        return refresh(current).token;
+    }
+
+    @Override
+    public String onTokenRejected(String rejectedToken) throws GuangYuYunException {
+        TokenState current = state;
+        if (current != null && !current.token.equals(rejectedToken)) {
+            return current.token; // 已经换过新token
+        }
+        return refresh(current).token;
+    }
+
+    @Override
+    public boolean isManaged(String token) {
+        if (token == null) {
+            return false;
+        }
+        TokenState current = state;
+        if (current != null && token.equals(current.token)) {
+            return true;
+        }
+        return issuedTokens.containsKey(token);
+    }
+
+    /**
+     * 等待刷新：已被其他线程刷新时直接返回其结果，否则创建新token
+     */
+    private TokenState refresh(TokenState seen) throws GuangYuYunException {
+        refreshLock.lock();
+        try {
+            TokenState current = state;
+            if (current != seen && current != null && System.currentTimeMillis() < current.expiresAtMillis) {
+                return current;
+            }
+            TokenState fresh = create();
+            state = fresh;
+            return fresh;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * 向服务端创建token，结果记入客户端指标
+     */
+    private TokenState create() throws GuangYuYunException {
+        ClientMetrics metrics = client.getMetrics();
+        boolean success = false;
+        try {
+            TokenState fresh = requestToken();
+            success = true;
+            return fresh;
+        } finally {
+            if (metrics != null) {
+                metrics.recordTokenRefresh(success);
+            }
+        }
+    }
+
+    private TokenState requestToken() throws GuangYuYunException {
+        long now = System.currentTimeMillis();
+        long requestedExpireTime = now / 1000 + lifetimeSeconds;
+        TokenResponse response = client.createToken(new TokenRequest(account, apiKey, requestedExpireTime));
+        String token = response.getToken();
+        if (token == null || token.trim().isEmpty()) {
+            throw new GuangYuYunException("Token response does not contain a token");
+        }
+        Long expireTime = response.getExpireTime();
+        long expiresAt = toMillis(expireTime != null ? expireTime : requestedExpireTime);
+        long refreshAhead = Math.min(refreshAheadMillis, Math.max(0, expiresAt - now) / 2);
+        refreshCount++;
+        logger.debug("Created token expiring at {}", expiresAt);
+        issuedTokens.put(token, Boolean.TRUE);
+        return new TokenState(token, expiresAt, expiresAt - refreshAhead);
+    }
+
+    /**
+     * 服务端使用10位秒级时间戳，同时兼容毫秒
+     */
+    private static long toMillis(long timestamp) {
+        return timestamp < 100000000000L ? timestamp * 1000 : timestamp;
+    }
+
+    public long getRefreshAheadMillis() {
+        return refreshAheadMillis;
+    }
+
+    /**
+     * 到期前多久开始刷新，默认5分钟，实际不超过token有效期的一半
+     */
+    public void setRefreshAhead(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Refresh ahead time cannot be negative");
+        }
+        this.refreshAheadMillis = unit.toMillis(time);
+    }
+
+    /**
+     * 当前token的到期时间（毫秒时间戳），尚未创建token时返回0
+     */
+    public long getExpiresAtMillis() {
+        TokenState current = state;
+        return current != null ? current.expiresAtMillis : 0;
+    }
+
+    /**
+     * 已创建的token数
+     */
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshingTokenProvider{" +
+                "account='" + account + '\'' +
+                ", lifetimeSeconds=" + lifetimeSeconds +
+                ", refreshAheadMillis=" + refreshAheadMillis +
+                ", expiresAtMillis=" + getExpiresAtMillis() +
+                ", refreshCount=" + refreshCount +
+                '}';
+    }
+
+    private static class TokenState {
+
+        private final String token;
+        private final long expiresAtMillis;
+        private final long refreshAtMillis;
+
+        private TokenState(String token, long expiresAtMillis, long refreshAtMillis) {
+            this.token = token;
+            this.expiresAtMillis = expiresAtMillis;
+            this.refreshAtMillis = refreshAtMillis;
+        }
+    }
+}
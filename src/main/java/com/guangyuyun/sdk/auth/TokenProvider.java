@@ -0,0 +1,33 @@
+package com.guangyuyun.sdk.auth;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+
+/**
+ * 认证令牌提供方
+ *
+ * 客户端设置提供方后，每个请求发出前把由提供方签发的token换成当前有效的token；
+ * 请求因token失效被拒绝（HTTP 401）时通知提供方换取新token，并用新token重发一次该请求。
+ */
+public interface TokenProvider {
+
+    /**
+     * 获取当前有效的token，频繁调用，应尽量不加锁
+     *
+     * @throws GuangYuYunException 当没有有效token且获取失败时抛出异常
+     */
+    String getToken() throws GuangYuYunException;
+
+    /**
+     * 请求因token失效被拒绝时调用
+     *
+     * @param rejectedToken 被拒绝的token
+     * @return 用于重发请求的新token，null表示不重发
+     * @throws GuangYuYunException 当获取新token失败时抛出异常
+     */
+    String onTokenRejected(String rejectedToken) throws GuangYuYunException;
+
+    /**
+     * token是否由该提供方签发（包括已被替换的旧token），只有这样的token会被自动替换和刷新
+     */
+    boolean isManaged(String token);
+}
@@ -0,0 +1,11 @@
+package com.guangyuyun.sdk.batch;
+
+/**
+ * 批量下载结果回调
+ *
+ * 每个文件完成（成功、跳过或失败）时在下载线程中调用，多个文件的回调可能并发执行，实现需线程安全。
+ */
+public interface BatchDownloadListener {
+
+    void onResult(BatchDownloadResult result);
+}
@@ -0,0 +1,78 @@
+package com.guangyuyun.sdk.batch;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.model.FileDownloadResponse;
+
+/**
+ * 批量下载中单个文件的结果
+ */
+public class BatchDownloadResult {
+
+    private final String fileId;
+    private final String outputPath;
+    private final FileDownloadResponse response;
+    private final GuangYuYunException error;
+    private final boolean skipped;
+    private final long elapsedMillis;
+
+    public BatchDownloadResult(String fileId, String outputPath, FileDownloadResponse response,
+                               GuangYuYunException error, boolean skipped, long elapsedMillis) {
+        this.fileId = fileId;
+        this.outputPath = outputPath;
+        this.response = response;
+        this.error = error;
+        this.skipped = skipped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    /**
+     * 下载结果，失败或跳过时为null
+     */
+    public FileDownloadResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * 失败原因，成功或跳过时为null
+     */
+    public GuangYuYunException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * 目标文件已经完整存在，没有发出请求
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * 下载耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchDownloadResult{" +
+                "fileId='" + fileId + '\'' +
+                ", outputPath='" + outputPath + '\'' +
+                ", error=" + (error != null ? error.getMessage() : null) +
+                ", skipped=" + skipped +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
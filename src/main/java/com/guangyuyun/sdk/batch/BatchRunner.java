@@ -0,0 +1,94 @@
+package com.guangyuyun.sdk.batch;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 限制并发数的批量任务执行
+ *
+ * 每个任务按其占用的连接数取得许可（分段并行下载的文件占用多个），所有任务合计不超过总并发数。
+ * 提交线程在许可不足时阻塞，直到有任务完成，因此任务来源（如Stream）按需逐个取出，
+ * 不会一次性把全部任务堆积在队列中。任务共用客户端的连接池，总并发数不应超过单路由最大连接数。
+ */
+public class BatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final Semaphore permits;
+
+    /**
+     * @param executor 执行任务的线程池，需能同时运行concurrency个任务
+     * @param concurrency 总并发数
+     */
+    public BatchRunner(ExecutorService executor, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be a positive number");
+        }
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * 提交占用一个连接的任务，并发数已满时等待
+     */
+    public void submit(Runnable task) throws GuangYuYunException {
+        submit(task, 1);
+    }
+
+    /**
+     * 提交任务，许可不足时等待
+     *
+     * @param weight 任务占用的连接数，超过总并发数时按总并发数计
+     */
+    public void submit(final Runnable task, int weight) throws GuangYuYunException {
+        final int acquired = Math.max(1, Math.min(weight, concurrency));
+        try {
+            permits.acquire(acquired);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GuangYuYunException("Batch interrupted", e);
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        logger.warn("Batch task failed", e);
+                    } finally {
+                        permits.release(acquired);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release(acquired);
+            throw new GuangYuYunException("Batch executor has been shut down", e);
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * 等待已提交的任务全部完成
+     */
+    public void awaitCompletion() throws GuangYuYunException {
+        try {
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GuangYuYunException("Batch interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.guangyuyun.sdk.batch;
+
+/**
+ * 批量上传结果回调
+ *
+ * 每个文件完成（成功或失败）时在上传线程中调用，多个文件的回调可能并发执行，实现需线程安全。
+ */
+public interface BatchUploadListener {
+
+    void onResult(BatchUploadResult result);
+}
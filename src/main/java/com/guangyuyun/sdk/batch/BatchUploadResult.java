@@ -0,0 +1,72 @@
+package com.guangyuyun.sdk.batch;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+
+import java.io.File;
+
+/**
+ * 批量上传中单个文件的结果：成功时为文件ID，失败时为异常
+ */
+public class BatchUploadResult {
+
+    private final File file;
+    private final String fileId;
+    private final GuangYuYunException error;
+    private final boolean largeFile;
+    private final long elapsedMillis;
+
+    public BatchUploadResult(File file, String fileId, GuangYuYunException error, boolean largeFile, long elapsedMillis) {
+        this.file = file;
+        this.fileId = fileId;
+        this.error = error;
+        this.largeFile = largeFile;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 文件ID，失败时为null
+     */
+    public String getFileId() {
+        return fileId;
+    }
+
+    /**
+     * 失败原因，成功时为null
+     */
+    public GuangYuYunException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * 是否超过100MB而走大文件分片上传
+     */
+    public boolean isLargeFile() {
+        return largeFile;
+    }
+
+    /**
+     * 上传耗时（毫秒）
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchUploadResult{" +
+                "file=" + file +
+                ", fileId='" + fileId + '\'' +
+                ", error=" + (error != null ? error.getMessage() : null) +
+                ", largeFile=" + largeFile +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,311 @@
+package com.guangyuyun.sdk.cache;
+
+import com.guangyuyun.sdk.hash.HexFormat;
+import com.guangyuyun.sdk.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 文件MD5持久化缓存
+ *
+ * 以(路径, 大小, 修改时间, 文件标识/inode)为键缓存文件的MD5，避免重试或续传时重复完整读取大文件。
+ * 条目数有上限，超出后按最近最少使用淘汰。存储格式为追加写入的二进制日志，每条记录带CRC32校验，
+ * 每次写入只追加一条记录；进程崩溃留下的半条记录在加载时被丢弃。日志中的过期记录累积到条目数的两倍时，
+ * 先写入临时文件再原子替换为只含当前条目的新文件，并同步父目录，均摊到每次写入的开销为常数。
+ */
+public class DigestCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigestCache.class);
+
+    private static final int MAGIC = 0x47594443; // "GYDC"
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final int COMPACT_SLACK = 64;
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final int MD5_LENGTH = 16;
+
+    private final Path storeFile;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private int journalRecords; // 日志文件中的记录数，含已被覆盖或淘汰的记录
+    private boolean rewriteNeeded = true; // 日志文件不存在、无法识别或末尾有残缺记录时需先整体重写
+
+    /**
+     * @param storeFile 缓存文件路径
+     */
+    public DigestCache(Path storeFile) {
+        this(storeFile, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param storeFile 缓存文件路径
+     * @param maxEntries 最大条目数
+     */
+    public DigestCache(Path storeFile, int maxEntries) {
+        if (storeFile == null) {
+            throw new IllegalArgumentException("Store file cannot be null");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be a positive number");
+        }
+        this.storeFile = storeFile;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        load();
+    }
+
+    /**
+     * 查询缓存的MD5，文件已变化或未缓存时返回null
+     */
+    public synchronized String get(File file) throws IOException {
+        FileIdentity identity = FileIdentity.of(file);
+        Entry entry = entries.get(identity.getPath());
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.identity.equals(identity)) {
+            entries.remove(identity.getPath());
+            return null;
+        }
+        return HexFormat.toHex(entry.md5);
+    }
+
+    /**
+     * 获取文件MD5，未命中时计算并写入缓存；写入缓存失败（如磁盘已满）只记录日志，仍返回计算结果
+     */
+    public String getOrCompute(File file) throws IOException {
+        String cached = get(file);
+        if (cached != null) {
+            logger.debug("MD5 cache hit: {}", file.getPath());
+            return cached;
+        }
+        FileIdentity before = FileIdentity.of(file);
+        String md5 = FileUtils.calculateMD5(file);
+        // 计算期间文件被修改时不写入缓存
+        if (before.equals(FileIdentity.of(file))) {
+            try {
+                put(before, md5);
+            } catch (IOException e) {
+                logger.warn("Failed to write MD5 of {} to cache {}: {}", file.getPath(), storeFile, e.getMessage());
+            }
+        }
+        return md5;
+    }
+
+    /**
+     * 写入文件MD5
+     */
+    public void put(File file, String md5) throws IOException {
+        put(FileIdentity.of(file), md5);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() throws IOException {
+        entries.clear();
+        rewrite();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void put(FileIdentity identity, String md5) throws IOException {
+        byte[] digest = HexFormat.fromHex(md5);
+        if (digest.length != MD5_LENGTH) {
+            throw new IllegalArgumentException("Invalid MD5: " + md5);
+        }
+        Entry entry = new Entry(identity, digest);
+        entries.put(identity.getPath(), entry);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        if (rewriteNeeded || journalRecords >= 2 * entries.size() + COMPACT_SLACK) {
+            rewrite();
+        } else {
+            try {
+                append(entry);
+            } catch (IOException e) {
+                // 日志末尾可能留下残缺的记录，下次写入时重写整个文件
+                rewriteNeeded = true;
+                throw e;
+            }
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(storeFile)) {
+            return;
+        }
+        try {
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(storeFile));
+            if (content.remaining() < HEADER_LENGTH || content.getInt() != MAGIC || content.getInt() != VERSION) {
+                throw new IOException("Unrecognized digest cache format");
+            }
+            CRC32 crc = new CRC32();
+            while (content.remaining() >= 4) {
+                int length = content.getInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH || content.remaining() < length + 8) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                content.get(record);
+                crc.reset();
+                crc.update(record, 0, length);
+                if (content.getLong() != crc.getValue()) {
+                    break;
+                }
+                Entry entry = decode(record);
+                entries.remove(entry.identity.getPath());
+                entries.put(entry.identity.getPath(), entry);
+                journalRecords++;
+            }
+            Iterator<String> it = entries.keySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+            // 末尾残缺（崩溃时写了一半）的日志不能继续追加
+            rewriteNeeded = content.hasRemaining();
+            logger.debug("Loaded {} MD5 cache entries from {}", entries.size(), storeFile);
+        } catch (IOException e) {
+            entries.clear();
+            journalRecords = 0;
+            logger.warn("Ignoring unreadable MD5 cache {}: {}", storeFile, e.getMessage());
+        }
+    }
+
+    private static Entry decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String path = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String fileKey = in.readUTF();
+        byte[] md5 = new byte[MD5_LENGTH];
+        in.readFully(md5);
+        return new Entry(new FileIdentity(path, size, lastModified, fileKey.isEmpty() ? null : fileKey), md5);
+    }
+
+    /**
+     * 编码一条记录：长度、内容与内容的CRC32
+     */
+    private static void encode(Entry entry, DataOutputStream out) throws IOException {
+        ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(96);
+        DataOutputStream record = new DataOutputStream(recordBuffer);
+        record.writeUTF(entry.identity.getPath());
+        record.writeLong(entry.identity.getSize());
+        record.writeLong(entry.identity.getLastModified());
+        record.writeUTF(entry.identity.getFileKey() != null ? entry.identity.getFileKey() : "");
+        record.write(entry.md5);
+        record.flush();
+        byte[] bytes = recordBuffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeLong(crc.getValue());
+    }
+
+    /**
+     * 追加一条记录；崩溃时最多丢失最近的几条记录，缓存只是跳过计算的捷径，不逐条落盘
+     */
+    private void append(Entry entry) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        encode(entry, out);
+        out.flush();
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(channel, buffer.toByteArray());
+        }
+        journalRecords++;
+    }
+
+    /**
+     * 只写入当前条目的新日志：落盘后原子替换旧文件，再同步父目录使改名本身持久化
+     */
+    private void rewrite() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + entries.size() * 112);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        for (Entry entry : entries.values()) {
+            encode(entry, out);
+        }
+        out.flush();
+
+        Path parent = storeFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, storeFile.getFileName().toString(), ".tmp");
+        try {
+            // 落盘后再替换，避免崩溃后留下已改名但内容未写入的文件
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, buffer.toByteArray());
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, storeFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        syncDirectory(parent);
+        journalRecords = entries.size();
+        rewriteNeeded = false;
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(bytes);
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * 同步目录项；部分平台（如Windows）不支持打开目录，此时忽略
+     */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Cannot sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static class Entry {
+        private final FileIdentity identity;
+        private final byte[] md5;
+
+        private Entry(FileIdentity identity, byte[] md5) {
+            this.identity = identity;
+            this.md5 = md5;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.guangyuyun.sdk.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 本地磁盘块缓存，同一主机上的多个进程可共享
+ *
+ * 远端文件按固定大小分块，以(文件ID, 块序号)为键缓存在目录下的两个文件中：
+ * <ul>
+ *     <li>blocks.idx：内存映射的索引，文件头之后是固定数量的槽位记录（文件ID哈希、块序号、长度、CRC32、最近访问时间）</li>
+ *     <li>blocks.dat：与槽位一一对应的块数据，大小为槽位数乘以块大小（稀疏文件，按实际写入占用磁盘）</li>
+ * </ul>
+ * 槽位按8路组相联组织：键的哈希决定所在的组，组内查找命中，组满时替换最久未访问的槽位（近似LRU），
+ * 总占用不超过创建时的容量。每组的索引区间用文件锁保护（读取共享、写入独占），进程内另有按组分段的锁，
+ * 因此多个进程可以同时读写同一目录；块数据带CRC32校验，进程崩溃留下的半写块读取时视为未命中。
+ *
+ * 文件ID以64位哈希比较。目录的块大小与容量在首次创建时确定，之后打开时沿用已有的设置。
+ * 同一进程内每个目录只能打开一个实例（文件锁按进程持有），应在客户端之间共享。
+ */
+public class DiskBlockCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskBlockCache.class);
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private static final int MAGIC = 0x47594243; // "GYBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int ENTRY_SIZE = 32;
+    private static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 256;
+    private static final int MAX_SETS = (Integer.MAX_VALUE - HEADER_SIZE) / (WAYS * ENTRY_SIZE); // 索引映射不超过2GB
+
+    // 槽位记录内的偏移
+    private static final int FILE_HASH = 0;
+    private static final int BLOCK_INDEX = 8;
+    private static final int LAST_ACCESS = 16;
+    private static final int LENGTH = 24;
+    private static final int CRC = 28;
+
+    private final Path directory;
+    private final FileChannel indexChannel;
+    private final FileChannel dataChannel;
+    private final MappedByteBuffer index;
+    private final int blockSize;
+    private final int sets;
+    private final ReentrantLock[] locks;
+
+    /**
+     * 使用默认块大小（1MB）
+     *
+     * @param directory 缓存目录
+     * @param maxBytes 缓存容量（字节）
+     */
+    public DiskBlockCache(Path directory, long maxBytes) throws IOException {
+        this(directory, maxBytes, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param directory 缓存目录
+     * @param maxBytes 缓存容量（字节），至少为8个块
+     * @param blockSize 块大小（字节）
+     */
+    public DiskBlockCache(Path directory, long maxBytes, int blockSize) throws IOException {
+        if (blockSize <= 0 || maxBytes < (long) blockSize * WAYS) {
+            throw new IllegalArgumentException("Cache must hold at least " + WAYS + " blocks");
+        }
+        int requestedSets = (int) Math.min(MAX_SETS, maxBytes / blockSize / WAYS);
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.indexChannel = FileChannel.open(directory.resolve("blocks.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.dataChannel = FileChannel.open(directory.resolve("blocks.dat"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            indexChannel.close();
+            throw e;
+        }
+
+        try {
+            // 创建与读取文件头时独占，避免多个进程同时初始化
+            int existingBlockSize;
+            int existingSets;
+            FileLock headerLock = indexChannel.lock(0, HEADER_SIZE, false);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                indexChannel.read(header, 0);
+                header.flip();
+                if (header.remaining() == HEADER_SIZE && header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+                    existingBlockSize = header.getInt(8);
+                    existingSets = header.getInt(12);
+                    if (existingBlockSize != blockSize || existingSets != requestedSets) {
+                        logger.info("Using existing block cache layout in {}: {} sets of {} byte blocks",
+                                directory, existingSets, existingBlockSize);
+                    }
+                } else {
+                    existingBlockSize = blockSize;
+                    existingSets = requestedSets;
+                    indexChannel.truncate(0);
+                    dataChannel.truncate(0);
+                    long indexSize = HEADER_SIZE + (long) existingSets * WAYS * ENTRY_SIZE;
+                    // 先扩展文件再写入文件头，其他进程看到文件头时大小已经正确
+                    indexChannel.write(ByteBuffer.wrap(new byte[1]), indexSize - 1);
+                    ByteBuffer created = ByteBuffer.allocate(HEADER_SIZE);
+                    created.putInt(MAGIC).putInt(VERSION).putInt(existingBlockSize).putInt(existingSets);
+                    created.flip();
+                    indexChannel.write(created, 0);
+                    indexChannel.force(true);
+                }
+            } finally {
+                headerLock.release();
+            }
+            this.blockSize = existingBlockSize;
+            this.sets = existingSets;
+            this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) sets * WAYS * ENTRY_SIZE);
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        } catch (RuntimeException e) {
+            closeChannels();
+            throw e;
+        }
+
+        this.locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 块大小，除文件的最后一块外每个缓存块都是这个大小
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 缓存容量（字节）
+     */
+    public long getCapacity() {
+        return (long) sets * WAYS * blockSize;
+    }
+
+    /**
+     * 读取缓存的块
+     *
+     * @return 块数据（可读部分即块内容，文件的最后一块可能短于块大小），未命中时返回null
+     */
+    public ByteBuffer get(String fileId, long blockIndex) throws IOException {
+        long fileHash = hash(fileId);
+        int set = setOf(fileHash, blockIndex);
+        ReentrantLock lock = locks[set % LOCK_STRIPES];
+        lock.lock();
+        try {
+            FileLock fileLock = indexChannel.lock(entryOffset(set, 0), (long) WAYS * ENTRY_SIZE, true);
+            try {
+                int slot = find(set, fileHash, blockIndex);
+                if (slot < 0) {
+                    return null;
+                }
+                int offset = entryOffset(set, slot);
+                int length = index.getInt(offset + LENGTH);
+                if (length < 0 || length > blockSize) {
+                    return null;
+                }
+                ByteBuffer data = ByteBuffer.allocate(length);
+                long position = slotPosition(set, slot);
+                while (data.hasRemaining()) {
+                    if (dataChannel.read(data, position + data.position()) < 0) {
+                        break;
+                    }
+                }
+                data.flip();
+                if (data.remaining() != length || crc(data.duplicate()) != index.getInt(offset + CRC)) {
+                    // 写入中途崩溃或被其他进程替换后留下的不完整数据
+                    return null;
+                }
+                // 访问时间允许多个持有共享锁的进程同时更新，只影响淘汰顺序
+                index.putLong(offset + LAST_ACCESS, System.currentTimeMillis());
+                return data;
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 块是否已缓存（不校验数据）
+     */
+    public boolean contains(String fileId, long blockIndex) throws IOException {
+        long fileHash = hash(fileId);
+        int set = setOf(fileHash, blockIndex);
+        ReentrantLock lock = locks[set % LOCK_STRIPES];
+        lock.lock();
+        try {
+            FileLock fileLock = indexChannel.lock(entryOffset(set, 0), (long) WAYS * ENTRY_SIZE, true);
+            try {
+                return find(set, fileHash, blockIndex) >= 0;
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 缓存块数据，已存在时不重复写入；组满时替换最久未访问的块
+     *
+     * @param data 块内容（position到limit），长度不超过块大小，不改变其位置
+     */
+    public void put(String fileId, long blockIndex, ByteBuffer data) throws IOException {
+        if (data.remaining() > blockSize) {
+            throw new IllegalArgumentException("Block exceeds block size: " + data.remaining());
+        }
+        long fileHash = hash(fileId);
+        int set = setOf(fileHash, blockIndex);
+        ReentrantLock lock = locks[set % LOCK_STRIPES];
+        lock.lock();
+        try {
+            FileLock fileLock = indexChannel.lock(entryOffset(set, 0), (long) WAYS * ENTRY_SIZE, false);
+            try {
+                if (find(set, fileHash, blockIndex) >= 0) {
+                    return;
+                }
+                int slot = victim(set);
+                int offset = entryOffset(set, slot);
+                // 先使槽位失效再写数据，崩溃时不会留下指向新数据的旧记录
+                index.putLong(offset + FILE_HASH, 0);
+                ByteBuffer source = data.duplicate();
+                int length = source.remaining();
+                long position = slotPosition(set, slot);
+                while (source.hasRemaining()) {
+                    dataChannel.write(source, position + length - source.remaining());
+                }
+                index.putLong(offset + BLOCK_INDEX, blockIndex);
+                index.putLong(offset + LAST_ACCESS, System.currentTimeMillis());
+                index.putInt(offset + LENGTH, length);
+                index.putInt(offset + CRC, crc(data.duplicate()));
+                index.putLong(offset + FILE_HASH, fileHash);
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 组内查找，返回槽位序号，未找到时返回-1
+     */
+    private int find(int set, long fileHash, long blockIndex) {
+        for (int way = 0; way < WAYS; way++) {
+            int offset = entryOffset(set, way);
+            if (index.getLong(offset + FILE_HASH) == fileHash && index.getLong(offset + BLOCK_INDEX) == blockIndex) {
+                return way;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 选择替换的槽位：优先空槽位，否则最久未访问的
+     */
+    private int victim(int set) {
+        int oldest = 0;
+        long oldestAccess = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            int offset = entryOffset(set, way);
+            if (index.getLong(offset + FILE_HASH) == 0) {
+                return way;
+            }
+            long access = index.getLong(offset + LAST_ACCESS);
+            if (access < oldestAccess) {
+                oldestAccess = access;
+                oldest = way;
+            }
+        }
+        return oldest;
+    }
+
+    private int setOf(long fileHash, long blockIndex) {
+        long h = fileHash ^ (blockIndex * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 29;
+        return (int) ((h & Long.MAX_VALUE) % sets);
+    }
+
+    private int entryOffset(int set, int way) {
+        return HEADER_SIZE + (set * WAYS + way) * ENTRY_SIZE;
+    }
+
+    private long slotPosition(int set, int way) {
+        return ((long) set * WAYS + way) * blockSize;
+    }
+
+    /**
+     * 文件ID的64位FNV-1a哈希，0保留为空槽位标记
+     */
+    private static long hash(String fileId) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : fileId.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h != 0 ? h : 1;
+    }
+
+    private static int crc(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeChannels();
+    }
+
+    private void closeChannels() throws IOException {
+        try {
+            indexChannel.close();
+        } finally {
+            dataChannel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DiskBlockCache{" +
+                "directory=" + directory +
+                ", blockSize=" + blockSize +
+                ", capacity=" + getCapacity() +
+                '}';
+    }
+}
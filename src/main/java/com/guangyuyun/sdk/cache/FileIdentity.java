@@ -0,0 +1,87 @@
+package com.guangyuyun.sdk.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 文件标识：规范路径、大小、修改时间以及文件系统提供的fileKey（Unix下包含设备号和inode）
+ *
+ * 标识相同时认为文件内容未变化，可复用之前计算的MD5或上传进度。
+ */
+public final class FileIdentity {
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String fileKey;
+
+    public FileIdentity(String path, long size, long lastModified, String fileKey) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.fileKey = fileKey;
+    }
+
+    /**
+     * 读取文件当前的标识
+     */
+    public static FileIdentity of(File file) throws IOException {
+        Path path = file.toPath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        return new FileIdentity(file.getCanonicalPath(), attributes.size(),
+                attributes.lastModifiedTime().toMillis(), fileKey != null ? fileKey.toString() : null);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 文件系统提供的文件标识，不支持时为null
+     */
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FileIdentity)) {
+            return false;
+        }
+        FileIdentity that = (FileIdentity) o;
+        return size == that.size
+                && lastModified == that.lastModified
+                && path.equals(that.path)
+                && (fileKey == null ? that.fileKey == null : fileKey.equals(that.fileKey));
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode() * 31 + (int) (size ^ (size >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "FileIdentity{" +
+                "path='" + path + '\'' +
+                ", size=" + size +
+                ", lastModified=" + lastModified +
+                ", fileKey='" + fileKey + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,400 @@
+package com.guangyuyun.sdk.cache;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小文件内存缓存，按文件ID缓存完整内容
+ *
+ * 容量按字节计算，采用W-TinyLFU策略：新对象先进入占容量1%的LRU窗口，移出窗口时与主区中最久未访问的对象
+ * 比较近期访问频率，频率更高才被接纳，因此一次性扫描大量文件不会挤掉热点对象。主区为分段LRU，
+ * 在试用段中再次被访问的对象升入受保护段（占主区80%）。访问频率由4位计数的Count-Min Sketch估计，
+ * 计数总量达到采样上限后全部减半，使频率随时间衰减。
+ *
+ * 数据可以放在堆内或堆外（直接内存），读取返回只读视图，不复制数据。条目超过有效期后视为未命中。线程安全。
+ */
+public class SmallObjectCache {
+
+    public static final int DEFAULT_MAX_OBJECT_SIZE = 1024 * 1024;
+
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final int IN_WINDOW = 0;
+    private static final int IN_PROBATION = 1;
+    private static final int IN_PROTECTED = 2;
+
+    private final long maxBytes;
+    private final long windowMaxBytes;
+    private final long mainMaxBytes;
+    private final long protectedMaxBytes;
+    private final int maxObjectSize;
+    private final long ttlNanos;
+    private final boolean offHeap;
+    private final FrequencySketch sketch;
+
+    private final HashMap<String, Node> nodes = new HashMap<String, Node>();
+    // 按插入顺序排列，访问时移到末尾，第一个即最久未访问的
+    private final LinkedHashMap<String, Node> window = new LinkedHashMap<String, Node>();
+    private final LinkedHashMap<String, Node> probation = new LinkedHashMap<String, Node>();
+    private final LinkedHashMap<String, Node> protectedSegment = new LinkedHashMap<String, Node>();
+    private long windowBytes;
+    private long probationBytes;
+    private long protectedBytes;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long rejectionCount;
+    private long expirationCount;
+
+    /**
+     * 堆内缓存，单个对象不超过1MB
+     *
+     * @param maxBytes 容量（字节）
+     * @param ttl 有效期
+     * @param unit 有效期单位
+     */
+    public SmallObjectCache(long maxBytes, long ttl, TimeUnit unit) {
+        this(maxBytes, ttl, unit, DEFAULT_MAX_OBJECT_SIZE, false);
+    }
+
+    /**
+     * @param maxBytes 容量（字节）
+     * @param ttl 有效期
+     * @param unit 有效期单位
+     * @param maxObjectSize 可缓存的最大对象（字节），更大的文件不缓存
+     * @param offHeap 是否把数据放在直接内存中，减少大容量缓存对GC的压力
+     */
+    public SmallObjectCache(long maxBytes, long ttl, TimeUnit unit, int maxObjectSize, boolean offHeap) {
+        if (maxBytes <= 0 || ttl <= 0 || maxObjectSize <= 0) {
+            throw new IllegalArgumentException("Cache size, TTL and max object size must be positive numbers");
+        }
+        this.maxBytes = maxBytes;
+        this.windowMaxBytes = Math.max(1, maxBytes * WINDOW_PERCENT / 100);
+        this.mainMaxBytes = maxBytes - windowMaxBytes;
+        this.protectedMaxBytes = mainMaxBytes * PROTECTED_PERCENT / 100;
+        this.maxObjectSize = (int) Math.min(maxObjectSize, maxBytes);
+        this.ttlNanos = unit.toNanos(ttl);
+        this.offHeap = offHeap;
+        // 按平均4KB估计条目数确定计数器数量
+        this.sketch = new FrequencySketch((int) Math.max(1024, Math.min(1 << 20, maxBytes / 4096)));
+    }
+
+    /**
+     * 查找缓存的文件内容
+     *
+     * @return 只读视图（position为0，limit为文件大小），不存在或已过期时返回null
+     */
+    public synchronized ByteBuffer get(String fileId) {
+        sketch.increment(fileId);
+        Node node = nodes.get(fileId);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        if (System.nanoTime() - node.createdNanos > ttlNanos) {
+            remove(node);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.data.asReadOnlyBuffer();
+    }
+
+    /**
+     * 缓存文件的完整内容，数据被复制，调用后src的position不变
+     *
+     * 对象先进入窗口，移出窗口时按访问频率决定是否进入主区。
+     *
+     * @return 超过单个对象上限而未缓存时返回false
+     */
+    public synchronized boolean put(String fileId, ByteBuffer src) {
+        int length = src.remaining();
+        if (length > maxObjectSize) {
+            return false;
+        }
+        ByteBuffer data = offHeap ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+        data.put(src.duplicate());
+        data.flip();
+
+        sketch.increment(fileId);
+        Node existing = nodes.get(fileId);
+        if (existing != null) {
+            remove(existing);
+        }
+        Node node = new Node(fileId, data, System.nanoTime());
+        nodes.put(fileId, node);
+        addLast(window, node, IN_WINDOW);
+        while (windowBytes > windowMaxBytes) {
+            admit(pollFirst(window));
+        }
+        return true;
+    }
+
+    /**
+     * 移除文件内容，如远端文件被替换时
+     */
+    public synchronized void invalidate(String fileId) {
+        Node node = nodes.get(fileId);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowBytes = 0;
+        probationBytes = 0;
+        protectedBytes = 0;
+    }
+
+    /**
+     * 移出窗口的对象与主区的淘汰对象比较访问频率，频率更高时淘汰后者并进入试用段，否则丢弃
+     */
+    private void admit(Node candidate) {
+        if (candidate.weight() > mainMaxBytes) {
+            nodes.remove(candidate.fileId);
+            rejectionCount++;
+            return;
+        }
+        int candidateFrequency = sketch.frequency(candidate.fileId);
+        while (probationBytes + protectedBytes + candidate.weight() > mainMaxBytes) {
+            LinkedHashMap<String, Node> queue = probation.isEmpty() ? protectedSegment : probation;
+            Node victim = queue.values().iterator().next();
+            if (candidateFrequency <= sketch.frequency(victim.fileId)) {
+                nodes.remove(candidate.fileId);
+                rejectionCount++;
+                return;
+            }
+            remove(victim);
+            evictionCount++;
+        }
+        addLast(probation, candidate, IN_PROBATION);
+    }
+
+    private void onAccess(Node node) {
+        switch (node.queue) {
+            case IN_WINDOW:
+                window.remove(node.fileId);
+                window.put(node.fileId, node);
+                break;
+            case IN_PROBATION:
+                // 试用段中再次访问，升入受保护段，受保护段超出时最久未访问的降回试用段
+                probation.remove(node.fileId);
+                probationBytes -= node.weight();
+                addLast(protectedSegment, node, IN_PROTECTED);
+                while (protectedBytes > protectedMaxBytes) {
+                    addLast(probation, pollFirst(protectedSegment), IN_PROBATION);
+                }
+                break;
+            default:
+                protectedSegment.remove(node.fileId);
+                protectedSegment.put(node.fileId, node);
+                break;
+        }
+    }
+
+    private void addLast(LinkedHashMap<String, Node> queue, Node node, int queueId) {
+        node.queue = queueId;
+        queue.put(node.fileId, node);
+        adjustBytes(queueId, node.weight());
+    }
+
+    private Node pollFirst(LinkedHashMap<String, Node> queue) {
+        Iterator<Node> it = queue.values().iterator();
+        Node node = it.next();
+        it.remove();
+        adjustBytes(node.queue, -node.weight());
+        return node;
+    }
+
+    private void remove(Node node) {
+        nodes.remove(node.fileId);
+        LinkedHashMap<String, Node> queue = node.queue == IN_WINDOW ? window
+                : node.queue == IN_PROBATION ? probation : protectedSegment;
+        if (queue.remove(node.fileId) != null) {
+            adjustBytes(node.queue, -node.weight());
+        }
+    }
+
+    private void adjustBytes(int queueId, long delta) {
+        if (queueId == IN_WINDOW) {
+            windowBytes += delta;
+        } else if (queueId == IN_PROBATION) {
+            probationBytes += delta;
+        } else {
+            protectedBytes += delta;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getMaxObjectSize() {
+        return maxObjectSize;
+    }
+
+    /**
+     * 缓存的对象数
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 缓存对象的总字节数
+     */
+    public synchronized long getSizeBytes() {
+        return windowBytes + probationBytes + protectedBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 命中率，没有请求时为0
+     */
+    public synchronized double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * 为接纳新对象而淘汰的对象数
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 移出窗口时因访问频率不高而未被接纳的对象数
+     */
+    public synchronized long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * 因超过有效期而移除的对象数
+     */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SmallObjectCache{" +
+                "maxBytes=" + maxBytes +
+                ", sizeBytes=" + getSizeBytes() +
+                ", size=" + nodes.size() +
+                ", offHeap=" + offHeap +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", rejectionCount=" + rejectionCount +
+                ", expirationCount=" + expirationCount +
+                '}';
+    }
+
+    private static class Node {
+
+        private final String fileId;
+        private final ByteBuffer data;
+        private final long createdNanos;
+        private int queue;
+
+        private Node(String fileId, ByteBuffer data, long createdNanos) {
+            this.fileId = fileId;
+            this.data = data;
+            this.createdNanos = createdNanos;
+        }
+
+        private long weight() {
+            // 空文件也计1字节，避免无限量的空对象
+            return Math.max(1, data.capacity());
+        }
+    }
+
+    /**
+     * 4位计数的Count-Min Sketch，4行，取各行最小值作为频率估计
+     */
+    private static class FrequencySketch {
+
+        private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+        };
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int counters) {
+            int width = Integer.highestOneBit(counters - 1) << 1;
+            this.table = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        private int frequency(String key) {
+            long hash = spread(key);
+            int min = MAX_COUNT;
+            for (int row = 0; row < SEEDS.length; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private void increment(String key) {
+            long hash = spread(key);
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int i = index(hash, row);
+                if (table[row][i] < MAX_COUNT) {
+                    table[row][i]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        /**
+         * 所有计数减半，使旧的访问频率逐渐失效
+         */
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(long hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (h >>> 32) & mask;
+        }
+
+        private static long spread(String key) {
+            long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 29);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.guangyuyun.sdk.download;
+
+import com.guangyuyun.sdk.cache.DiskBlockCache;
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 经本地磁盘块缓存读取区间
+ *
+ * 区间覆盖的块按顺序处理：已缓存的块直接从本地写入sink；连续缺失的块合并为一个按块边界对齐的请求，
+ * 响应数据一边写入sink（只写请求区间内的部分），一边按块存入缓存。文件末尾由已知的总大小确定：
+ * 只有文件的最后一块可以不足一块，响应提前结束时不缓存残缺的块，从已收到的位置继续请求。
+ * 缓存键包含文件的校验标识，远端文件变化后不会读到旧数据。
+ * 缓存读写失败只记录日志，按未命中处理，不影响下载本身。
+ */
+public class CachingRangeFetcher implements SegmentedDownload.RangeFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingRangeFetcher.class);
+
+    private final DiskBlockCache cache;
+    private final String fileId;
+    private final String cacheKey;
+    private final long totalSize;
+    private final SegmentedDownload.RangeFetcher remote;
+    private final int blockSize;
+
+    /**
+     * @param cache 磁盘块缓存
+     * @param fileInfo 远端文件信息，总大小必须已知
+     * @param remote 缓存未命中时的远端区间获取，应自行处理重试
+     */
+    public CachingRangeFetcher(DiskBlockCache cache, RemoteFileInfo fileInfo, SegmentedDownload.RangeFetcher remote) {
+        if (fileInfo.getTotalSize() < 0) {
+            throw new IllegalArgumentException("Total size of " + fileInfo.getFileId() + " is unknown");
+        }
+        this.cache = cache;
+        this.fileId = fileInfo.getFileId();
+        this.cacheKey = fileInfo.getValidator() != null ? fileId + "\n" + fileInfo.getValidator() : fileId;
+        this.totalSize = fileInfo.getTotalSize();
+        this.remote = remote;
+        this.blockSize = cache.getBlockSize();
+    }
+
+    @Override
+    public long fetch(long startByte, long endByte, WritableByteChannel sink) throws GuangYuYunException {
+        endByte = Math.min(endByte, totalSize - 1);
+        long position = startByte;
+        while (position <= endByte) {
+            long block = position / blockSize;
+            ByteBuffer data = cached(block);
+            if (data != null) {
+                int offset = (int) (position - block * blockSize);
+                data.position(offset);
+                data.limit((int) Math.min(data.limit(), offset + (endByte - position + 1)));
+                position += data.remaining();
+                try {
+                    while (data.hasRemaining()) {
+                        sink.write(data);
+                    }
+                } catch (IOException e) {
+                    throw new GuangYuYunException("File download error: " + e.getMessage(), e);
+                }
+                continue;
+            }
+
+            // 合并连续缺失的块
+            long lastBlock = endByte / blockSize;
+            long runEnd = block;
+            while (runEnd < lastBlock && !isCached(runEnd + 1)) {
+                runEnd++;
+            }
+            long requestStart = block * blockSize;
+            long requestEnd = Math.min((runEnd + 1) * blockSize, totalSize) - 1;
+            TeeChannel tee = new TeeChannel(block, requestStart, position, endByte, sink);
+            long requestPosition = requestStart;
+            while (requestPosition <= requestEnd) {
+                // 响应短于请求但未到文件末尾时，从已收到的位置继续请求
+                long received = remote.fetch(requestPosition, requestEnd, tee);
+                if (received <= 0) {
+                    throw new GuangYuYunException("No data for range " + requestPosition + "-" + requestEnd + " of " + fileId
+                        + " before the end of the file at " + totalSize);
+                }
+                requestPosition += received;
+            }
+            tee.finish();
+            position = Math.min(requestEnd, endByte) + 1;
+        }
+        return Math.max(0, position - startByte);
+    }
+
+    /**
+     * 块在文件中的实际长度，只有最后一块可能不足一块
+     */
+    private long blockLength(long block) {
+        return Math.min(blockSize, totalSize - block * blockSize);
+    }
+
+    /**
+     * 读取缓存的块，长度与文件不符（残缺或过期的数据）时按未命中处理
+     */
+    private ByteBuffer cached(long block) {
+        try {
+            ByteBuffer data = cache.get(cacheKey, block);
+            if (data != null && data.remaining() != blockLength(block)) {
+                return null;
+            }
+            return data;
+        } catch (IOException e) {
+            logger.warn("Failed to read block {} of {} from cache: {}", block, fileId, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isCached(long block) {
+        try {
+            return cache.contains(cacheKey, block);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void store(long block, ByteBuffer data) {
+        try {
+            cache.put(cacheKey, block, data);
+        } catch (IOException e) {
+            logger.warn("Failed to write block {} of {} to cache: {}", block, fileId, e.getMessage());
+        }
+    }
+
+    /**
+     * 把响应数据按块存入缓存，并把[deliverFrom, deliverTo]内的部分写入目标通道
+     */
+    private class TeeChannel implements WritableByteChannel {
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+        private final long deliverFrom;
+        private final long deliverTo;
+        private final WritableByteChannel sink;
+        private long block;
+        private long streamPosition;
+
+        private TeeChannel(long block, long streamPosition, long deliverFrom, long deliverTo, WritableByteChannel sink) {
+            this.block = block;
+            this.streamPosition = streamPosition;
+            this.deliverFrom = deliverFrom;
+            this.deliverTo = deliverTo;
+            this.sink = sink;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int total = 0;
+            while (src.hasRemaining()) {
+                int n = Math.min(src.remaining(), buffer.remaining());
+                ByteBuffer chunk = src.duplicate();
+                chunk.limit(chunk.position() + n);
+
+                // 请求区间内的部分写入目标通道
+                long from = Math.max(streamPosition, deliverFrom);
+                long to = Math.min(streamPosition + n - 1, deliverTo);
+                if (from <= to) {
+                    ByteBuffer deliver = chunk.duplicate();
+                    deliver.position(chunk.position() + (int) (from - streamPosition));
+                    deliver.limit(deliver.position() + (int) (to - from + 1));
+                    while (deliver.hasRemaining()) {
+                        sink.write(deliver);
+                    }
+                }
+
+                buffer.put(chunk);
+                src.position(src.position() + n);
+                streamPosition += n;
+                total += n;
+                if (!buffer.hasRemaining()) {
+                    flushBlock();
+                }
+            }
+            return total;
+        }
+
+        /**
+         * 响应结束：剩余数据恰好是文件的最后一块时缓存，否则是提前结束的残缺块，丢弃
+         */
+        private void finish() {
+            if (buffer.position() > 0 && buffer.position() == blockLength(block)) {
+                flushBlock();
+            }
+            buffer.clear();
+        }
+
+        private void flushBlock() {
+            buffer.flip();
+            store(block, buffer);
+            buffer.clear();
+            block++;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.guangyuyun.sdk.download;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 下载续传日志
+ *
+ * 与临时文件放在一起的小文件，记录文件ID、总大小、校验标识（ETag/Last-Modified）、分段大小，
+ * 以及已完成分段的位图。中断后重新下载时只请求位图中缺失的分段，不依赖临时文件的大小
+ * （预分配的临时文件大小始终等于文件总大小）。
+ *
+ * 文件格式：头部（创建时写入一次，带CRC32）+ 两个交替写入的位图槽（序号 + 位图 + CRC32）。
+ * 每次落盘先对数据文件执行force，再写入序号较旧的槽并force，崩溃时至少保留一个完整的槽，
+ * 位图中标记为完成的分段一定已经写入磁盘。
+ */
+public class DownloadJournal implements Closeable {
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int MAGIC = 0x47594A4C; // "GYJL"
+    private static final int VERSION = 1;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path path;
+    private final String fileId;
+    private final long totalSize;
+    private final int segmentSize;
+    private final String validator;
+    private final int segmentCount;
+    private final byte[] bitmap;
+    private final int headerLength;
+    private final int slotLength;
+    private final FileChannel journalChannel;
+    private final FileChannel dataChannel;
+    private final long checkpointIntervalNanos;
+
+    private long sequence;
+    private int completedSegments;
+    private boolean dirty;
+    private long lastCheckpoint = System.nanoTime();
+
+    private DownloadJournal(Path path, String fileId, long totalSize, int segmentSize, String validator,
+                            byte[] bitmap, long sequence, int headerLength,
+                            FileChannel journalChannel, FileChannel dataChannel) {
+        this.path = path;
+        this.fileId = fileId;
+        this.totalSize = totalSize;
+        this.segmentSize = segmentSize;
+        this.validator = validator;
+        this.segmentCount = segmentCount(totalSize, segmentSize);
+        this.bitmap = bitmap;
+        this.sequence = sequence;
+        this.headerLength = headerLength;
+        this.slotLength = 8 + bitmap.length + 8;
+        this.journalChannel = journalChannel;
+        this.dataChannel = dataChannel;
+        this.checkpointIntervalNanos = DEFAULT_CHECKPOINT_INTERVAL_NANOS;
+        for (int i = 0; i < segmentCount; i++) {
+            if (isComplete(i)) {
+                completedSegments++;
+            }
+        }
+    }
+
+    /**
+     * 目标文件对应的日志文件路径
+     */
+    public static Path journalFile(Path target) {
+        return target.resolveSibling(target.getFileName() + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * 打开已有日志，文件ID、总大小或校验标识与当前不一致（远端文件已变化）或日志损坏时返回null
+     *
+     * @param path 日志文件
+     * @param dataChannel 数据文件通道，落盘时先对其执行force
+     */
+    public static DownloadJournal open(Path path, FileChannel dataChannel, String fileId, long totalSize,
+                                       String validator) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            DownloadJournal journal = load(path, channel, dataChannel);
+            if (journal != null
+                    && journal.fileId.equals(fileId)
+                    && journal.totalSize == totalSize
+                    && journal.validator.equals(normalize(validator))) {
+                return journal;
+            }
+        } catch (IOException e) {
+            // 日志损坏，按无日志处理
+        }
+        channel.close();
+        return null;
+    }
+
+    /**
+     * 创建新日志（覆盖已有日志），初始时所有分段均未完成
+     *
+     * @param path 日志文件
+     * @param dataChannel 数据文件通道，落盘时先对其执行force
+     */
+    public static DownloadJournal create(Path path, FileChannel dataChannel, String fileId, long totalSize,
+                                         int segmentSize, String validator) throws IOException {
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("Total size must be a positive number");
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Segment size must be a positive number");
+        }
+        byte[] bitmap = new byte[(segmentCount(totalSize, segmentSize) + 7) / 8];
+        byte[] header = header(fileId, totalSize, segmentSize, normalize(validator), bitmap.length);
+
+        // 先完整写入临时文件再替换，不会留下只有部分头部的日志
+        Path parent = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeFully(channel, ByteBuffer.wrap(header), 0);
+                writeFully(channel, slot(0, bitmap), header.length);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new DownloadJournal(path, fileId, totalSize, segmentSize, normalize(validator), bitmap, 0,
+                header.length, channel, dataChannel);
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * 分段起始字节
+     */
+    public long segmentStart(int index) {
+        return (long) index * segmentSize;
+    }
+
+    /**
+     * 分段结束字节（不含）
+     */
+    public long segmentEnd(int index) {
+        return Math.min(segmentStart(index) + segmentSize, totalSize);
+    }
+
+    public synchronized boolean isComplete(int index) {
+        return (bitmap[index >>> 3] & (1 << (index & 7))) != 0;
+    }
+
+    /**
+     * 是否所有分段均已完成
+     */
+    public synchronized boolean isDownloadComplete() {
+        return completedSegments == segmentCount;
+    }
+
+    /**
+     * 已完成分段的字节数
+     */
+    public synchronized long getCompletedBytes() {
+        long bytes = (long) completedSegments * segmentSize;
+        if (segmentCount > 0 && isComplete(segmentCount - 1)) {
+            bytes -= (long) segmentCount * segmentSize - totalSize;
+        }
+        return bytes;
+    }
+
+    /**
+     * 按顺序返回未完成的分段序号
+     */
+    public synchronized int[] missingSegments() {
+        int[] missing = new int[segmentCount - completedSegments];
+        int n = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            if (!isComplete(i)) {
+                missing[n++] = i;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 标记分段已写入数据文件，距上次落盘超过间隔时落盘
+     */
+    public synchronized void markComplete(int index) throws IOException {
+        if (isComplete(index)) {
+            return;
+        }
+        bitmap[index >>> 3] |= (byte) (1 << (index & 7));
+        completedSegments++;
+        dirty = true;
+        if (System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * 标记[0, length)范围内的完整分段为已完成，用于接管没有日志的已有部分文件
+     */
+    public synchronized void markCompletePrefix(long length) throws IOException {
+        long fullSegments = Math.min(segmentCount, length / segmentSize);
+        if (length >= totalSize) {
+            fullSegments = segmentCount;
+        }
+        for (int i = 0; i < fullSegments; i++) {
+            if (!isComplete(i)) {
+                bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+                completedSegments++;
+                dirty = true;
+            }
+        }
+        checkpoint();
+    }
+
+    /**
+     * 落盘：先force数据文件，再写入较旧的位图槽并force日志文件
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dataChannel.force(false);
+        long next = sequence + 1;
+        writeFully(journalChannel, slot(next, bitmap), headerLength + (next & 1) * slotLength);
+        journalChannel.force(false);
+        sequence = next;
+        dirty = false;
+        lastCheckpoint = System.nanoTime();
+    }
+
+    /**
+     * 落盘并关闭日志文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (journalChannel.isOpen() && dataChannel.isOpen()) {
+                checkpoint();
+            }
+        } finally {
+            journalChannel.close();
+        }
+    }
+
+    /**
+     * 关闭并删除日志文件（下载完成后调用）
+     */
+    public synchronized void delete() throws IOException {
+        journalChannel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private static DownloadJournal load(Path path, FileChannel channel, FileChannel dataChannel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer content = ByteBuffer.allocate((int) size);
+        while (content.hasRemaining()) {
+            if (channel.read(content, content.position()) < 0) {
+                return null;
+            }
+        }
+        byte[] bytes = content.array();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        long totalSize = in.readLong();
+        int segmentSize = in.readInt();
+        String fileId = in.readUTF();
+        String validator = in.readUTF();
+        int bitmapLength = in.readInt();
+        int headerLength = bytes.length - in.available();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, headerLength);
+        if (in.readLong() != crc.getValue()
+                || totalSize <= 0 || segmentSize <= 0
+                || bitmapLength != (segmentCount(totalSize, segmentSize) + 7) / 8) {
+            return null;
+        }
+        headerLength += 8;
+
+        // 选择CRC有效且序号最大的位图槽，两个槽都损坏时视为没有已完成的分段
+        int slotLength = 8 + bitmapLength + 8;
+        byte[] bitmap = new byte[bitmapLength];
+        long sequence = -1;
+        for (int i = 0; i < 2; i++) {
+            int offset = headerLength + i * slotLength;
+            if (offset + slotLength > bytes.length) {
+                continue;
+            }
+            ByteBuffer slot = ByteBuffer.wrap(bytes, offset, slotLength);
+            long slotSequence = slot.getLong();
+            crc.reset();
+            crc.update(bytes, offset, 8 + bitmapLength);
+            slot.position(offset + 8 + bitmapLength);
+            if (slot.getLong() == crc.getValue() && slotSequence > sequence) {
+                sequence = slotSequence;
+                System.arraycopy(bytes, offset + 8, bitmap, 0, bitmapLength);
+            }
+        }
+        return new DownloadJournal(path, fileId, totalSize, segmentSize, validator, bitmap, Math.max(sequence, 0),
+                headerLength, channel, dataChannel);
+    }
+
+    private static byte[] header(String fileId, long totalSize, int segmentSize, String validator, int bitmapLength)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + fileId.length() + validator.length());
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(totalSize);
+        out.writeInt(segmentSize);
+        out.writeUTF(fileId);
+        out.writeUTF(validator);
+        out.writeInt(bitmapLength);
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static ByteBuffer slot(long sequence, byte[] bitmap) {
+        ByteBuffer slot = ByteBuffer.allocate(8 + bitmap.length + 8);
+        slot.putLong(sequence);
+        slot.put(bitmap);
+        CRC32 crc = new CRC32();
+        crc.update(slot.array(), 0, 8 + bitmap.length);
+        slot.putLong(crc.getValue());
+        slot.flip();
+        return slot;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+
+    private static int segmentCount(long totalSize, int segmentSize) {
+        long count = (totalSize + segmentSize - 1) / segmentSize;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many segments: " + count);
+        }
+        return (int) count;
+    }
+
+    private static String normalize(String validator) {
+        return validator != null ? validator : "";
+    }
+}
@@ -0,0 +1,181 @@
+package com.guangyuyun.sdk.download;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 一次可续传的文件下载
+ *
+ * 数据写入与目标文件同目录的临时文件（目标文件名加.part后缀，预分配为文件总大小），
+ * 已完成的分段记录在{@link DownloadJournal}中。顺序下载与分段并行下载共用同一套临时文件和日志，
+ * 中断后无论以哪种方式重新下载，都只请求缺失的分段。全部完成后临时文件替换为目标文件并删除日志。
+ */
+public class DownloadSession implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadSession.class);
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path target;
+    private final Path partFile;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final DownloadJournal journal;
+    private final boolean resumed;
+    private boolean completed;
+
+    private DownloadSession(Path target, Path partFile, RandomAccessFile file, DownloadJournal journal, boolean resumed) {
+        this.target = target;
+        this.partFile = partFile;
+        this.file = file;
+        this.channel = file.getChannel();
+        this.journal = journal;
+        this.resumed = resumed;
+    }
+
+    /**
+     * 临时文件路径
+     */
+    public static Path partFile(Path target) {
+        return target.resolveSibling(target.getFileName() + PART_SUFFIX);
+    }
+
+    /**
+     * 目标文件是否有未完成的下载（存在续传日志）
+     */
+    public static boolean hasPendingDownload(Path target) {
+        return Files.exists(DownloadJournal.journalFile(target));
+    }
+
+    /**
+     * 打开下载
+     *
+     * 允许续传时：临时文件与日志都存在且日志与远端文件一致则继续；否则若目标文件已存在
+     * （没有日志的旧版部分下载），其内容视为文件开头的连续数据并接管到临时文件中。
+     * 不允许续传或远端文件已变化时重新开始。
+     *
+     * @param target 目标文件
+     * @param fileId 文件ID
+     * @param totalSize 文件总大小
+     * @param validator 远端文件校验标识（ETag/Last-Modified），可为null
+     * @param segmentSize 新建日志时的分段大小，续传时沿用日志中的分段大小
+     * @param resumeEnabled 是否允许续传
+     */
+    public static DownloadSession open(Path target, String fileId, long totalSize, String validator,
+                                       int segmentSize, boolean resumeEnabled) throws IOException {
+        Path part = partFile(target);
+        Path journalPath = DownloadJournal.journalFile(target);
+
+        if (resumeEnabled && Files.exists(part)) {
+            RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw");
+            try {
+                DownloadJournal journal = DownloadJournal.open(journalPath, file.getChannel(), fileId, totalSize, validator);
+                if (journal != null && file.length() == totalSize) {
+                    logger.info("Resuming download of {}: {}/{} bytes already present",
+                            fileId, journal.getCompletedBytes(), totalSize);
+                    return new DownloadSession(target, part, file, journal, true);
+                }
+                if (journal != null) {
+                    journal.close();
+                }
+            } catch (IOException e) {
+                file.close();
+                throw e;
+            }
+            file.close();
+            logger.info("Discarding stale partial download of {}", fileId);
+        }
+
+        long legacyPrefix = 0;
+        if (resumeEnabled && Files.exists(target) && Files.size(target) < totalSize) {
+            // 没有日志的部分文件：按旧方式视为连续写入的前缀
+            legacyPrefix = Files.size(target);
+            Files.move(target, part, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(part);
+        }
+
+        RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw");
+        try {
+            file.setLength(totalSize);
+            DownloadJournal journal = DownloadJournal.create(journalPath, file.getChannel(), fileId, totalSize,
+                    segmentSize, validator);
+            if (legacyPrefix > 0) {
+                journal.markCompletePrefix(legacyPrefix);
+                logger.info("Resuming download of {} from existing {} bytes", fileId, legacyPrefix);
+            }
+            return new DownloadSession(target, part, file, journal, legacyPrefix > 0);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+
+    public Path getPartFile() {
+        return partFile;
+    }
+
+    /**
+     * 临时文件通道，各分段按偏移量定位写入
+     */
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public DownloadJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 是否从之前中断的下载继续
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * 完成下载：落盘，关闭文件，临时文件替换为目标文件并删除日志
+     */
+    public void complete() throws IOException {
+        if (!journal.isDownloadComplete()) {
+            throw new IllegalStateException("Download has missing segments");
+        }
+        journal.checkpoint();
+        file.close();
+        try {
+            Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        journal.delete();
+        completed = true;
+    }
+
+    /**
+     * 未完成时落盘已完成的分段并保留临时文件与日志，供下次续传
+     */
+    @Override
+    public void close() throws IOException {
+        if (completed) {
+            return;
+        }
+        try {
+            journal.close();
+        } finally {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.guangyuyun.sdk.download;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 从指定偏移量开始顺序写入文件通道的视图，不改变通道自身的位置，多个视图可并发写入不同区间
+ */
+class PositionalWriteChannel implements WritableByteChannel {
+
+    private final FileChannel channel;
+    private long position;
+
+    PositionalWriteChannel(FileChannel channel, long position) {
+        this.channel = channel;
+        this.position = position;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int written = channel.write(src, position);
+        position += written;
+        return written;
+    }
+
+    long position() {
+        return position;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * 不关闭底层通道
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,72 @@
+package com.guangyuyun.sdk.download;
+
+/**
+ * 远端随机读取通道参数
+ *
+ * 数据按固定大小的块通过Range请求读取并缓存；连续顺序读取时预读窗口逐次翻倍，
+ * 一个请求取回多个块，随机读取时窗口恢复为一个块。
+ */
+public class RemoteChannelOptions {
+
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    public static final int DEFAULT_CACHE_BLOCKS = 32;
+    public static final int DEFAULT_MAX_READ_AHEAD_BLOCKS = 16;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private int cacheBlocks = DEFAULT_CACHE_BLOCKS;
+    private int maxReadAheadBlocks = DEFAULT_MAX_READ_AHEAD_BLOCKS;
+
+    public RemoteChannelOptions() {
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 块大小（字节），默认256KB
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be a positive number");
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getCacheBlocks() {
+        return cacheBlocks;
+    }
+
+    /**
+     * 缓存的块数，超过后淘汰最久未读取的块，默认32
+     */
+    public void setCacheBlocks(int cacheBlocks) {
+        if (cacheBlocks <= 0) {
+            throw new IllegalArgumentException("Cache blocks must be a positive number");
+        }
+        this.cacheBlocks = cacheBlocks;
+    }
+
+    public int getMaxReadAheadBlocks() {
+        return maxReadAheadBlocks;
+    }
+
+    /**
+     * 顺序读取时单个请求最多取回的块数，1表示不预读，默认16，不超过缓存块数
+     */
+    public void setMaxReadAheadBlocks(int maxReadAheadBlocks) {
+        if (maxReadAheadBlocks <= 0) {
+            throw new IllegalArgumentException("Read-ahead blocks must be a positive number");
+        }
+        this.maxReadAheadBlocks = maxReadAheadBlocks;
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteChannelOptions{" +
+                "blockSize=" + blockSize +
+                ", cacheBlocks=" + cacheBlocks +
+                ", maxReadAheadBlocks=" + maxReadAheadBlocks +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.guangyuyun.sdk.download;
+
+/**
+ * 远端文件信息：总大小与校验标识（ETag，没有时为Last-Modified）
+ */
+public class RemoteFileInfo {
+
+    private final String fileId;
+    private final long totalSize;
+    private final String validator;
+
+    public RemoteFileInfo(String fileId, long totalSize, String validator) {
+        this.fileId = fileId;
+        this.totalSize = totalSize;
+        this.validator = validator;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    /**
+     * 文件总大小，无法确定时为-1
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * 校验标识，服务端未提供时为null
+     */
+    public String getValidator() {
+        return validator;
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteFileInfo{" +
+                "fileId='" + fileId + '\'' +
+                ", totalSize=" + totalSize +
+                ", validator='" + validator + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.guangyuyun.sdk.download;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 远端文件信息的短期缓存，按文件ID索引
+ *
+ * 下载与getFileInfo/getFileSize得到的文件大小和校验标识在有效期内复用，重复下载或查询同一文件时不再单独探测。
+ * 条目超过上限时淘汰最久未使用的，有效期应短于远端文件可能被替换的间隔。线程安全。
+ */
+public class RemoteFileInfoCache {
+
+    public static final long DEFAULT_TTL_MILLIS = 60 * 1000L;
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * 默认缓存：有效期60秒，最多10000个文件
+     */
+    public RemoteFileInfoCache() {
+        this(DEFAULT_TTL_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param ttl 有效期
+     * @param unit 有效期单位
+     * @param maxEntries 最多缓存的文件数
+     */
+    public RemoteFileInfoCache(long ttl, TimeUnit unit, final int maxEntries) {
+        if (ttl <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache TTL and size must be positive numbers");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 查找未过期的文件信息
+     *
+     * @return 文件信息，不存在或已过期时返回null
+     */
+    public synchronized RemoteFileInfo get(String fileId) {
+        Entry entry = entries.get(fileId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdNanos > ttlNanos) {
+            entries.remove(fileId);
+            return null;
+        }
+        return entry.info;
+    }
+
+    /**
+     * 记录文件信息，大小未知的不缓存
+     */
+    public synchronized void put(RemoteFileInfo info) {
+        if (info == null || info.getFileId() == null || info.getTotalSize() < 0) {
+            return;
+        }
+        entries.put(info.getFileId(), new Entry(info, System.nanoTime()));
+    }
+
+    /**
+     * 移除文件信息，如下载失败或发现远端文件变化时
+     */
+    public synchronized void invalidate(String fileId) {
+        entries.remove(fileId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteFileInfoCache{" +
+                "ttlMillis=" + TimeUnit.NANOSECONDS.toMillis(ttlNanos) +
+                ", maxEntries=" + maxEntries +
+                ", size=" + size() +
+                '}';
+    }
+
+    private static class Entry {
+
+        private final RemoteFileInfo info;
+        private final long createdNanos;
+
+        private Entry(RemoteFileInfo info, long createdNanos) {
+            this.info = info;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
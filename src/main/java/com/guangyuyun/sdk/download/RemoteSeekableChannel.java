@@ -0,0 +1,281 @@
+package com.guangyuyun.sdk.download;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按需通过Range请求读取远端文件的只读通道
+ *
+ * 文件按固定大小分块，读取时只请求所需的块，最近读取的块保存在LRU缓存中，重复读取文件尾部索引等位置不再请求。
+ * 缺失的块紧接上一次请求的末尾时视为顺序读取，预读窗口翻倍（不超过上限），一个请求取回多个块；
+ * 其他位置的缺失视为随机读取，窗口恢复为一个块。适合Parquet、ZIP等只需读取文件少量区域的格式。
+ *
+ * 线程安全，但多个线程共享同一位置，并发读取不同区域应各自打开通道。
+ */
+public class RemoteSeekableChannel implements SeekableByteChannel {
+
+    private final String fileId;
+    private final SegmentedDownload.RangeFetcher fetcher;
+    private final long size;
+    private final int blockSize;
+    private final int cacheBlocks;
+    private final int maxReadAhead;
+    private final LinkedHashMap<Long, ByteBuffer> cache;
+
+    private long position;
+    private boolean open = true;
+    private long nextSequentialBlock = -1; // 上一次请求之后的第一个块
+    private int readAhead = 1; // 当前预读窗口（块数）
+
+    private long cacheHits;
+    private long cacheMisses;
+    private long requestCount;
+    private long bytesFetched;
+
+    /**
+     * @param fileId 文件ID
+     * @param fetcher 区间数据获取
+     * @param size 文件总大小
+     * @param options 分块、缓存与预读参数
+     */
+    public RemoteSeekableChannel(String fileId, SegmentedDownload.RangeFetcher fetcher, long size,
+                                 RemoteChannelOptions options) {
+        if (size < 0) {
+            throw new IllegalArgumentException("File size cannot be negative");
+        }
+        this.fileId = fileId;
+        this.fetcher = fetcher;
+        this.size = size;
+        this.blockSize = options.getBlockSize();
+        this.cacheBlocks = options.getCacheBlocks();
+        this.maxReadAhead = Math.min(options.getMaxReadAheadBlocks(), options.getCacheBlocks());
+        this.cache = new LinkedHashMap<Long, ByteBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+                return size() > cacheBlocks;
+            }
+        };
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long block = position / blockSize;
+            ByteBuffer data = cache.get(block);
+            if (data != null) {
+                cacheHits++;
+            } else {
+                cacheMisses++;
+                data = fetch(block);
+            }
+            ByteBuffer view = data.duplicate();
+            view.position((int) (position - block * blockSize));
+            if (view.remaining() > dst.remaining()) {
+                view.limit(view.position() + dst.remaining());
+            }
+            int n = view.remaining();
+            dst.put(view);
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * 请求从指定块开始的一个或多个块，放入缓存并返回第一个块
+     */
+    private ByteBuffer fetch(long firstBlock) throws IOException {
+        if (firstBlock == nextSequentialBlock) {
+            readAhead = Math.min(readAhead * 2, maxReadAhead);
+        } else {
+            readAhead = 1;
+        }
+
+        long blockCount = (size + blockSize - 1) / blockSize;
+        int count = 1;
+        while (count < readAhead && firstBlock + count < blockCount && !cache.containsKey(firstBlock + count)) {
+            count++;
+        }
+
+        long start = firstBlock * blockSize;
+        long end = Math.min(size, (firstBlock + count) * blockSize);
+        ByteBuffer[] blocks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long blockStart = start + (long) i * blockSize;
+            blocks[i] = ByteBuffer.allocate((int) (Math.min(end, blockStart + blockSize) - blockStart));
+        }
+
+        BlockSink sink = new BlockSink(blocks);
+        try {
+            while (sink.written < end - start) {
+                requestCount++;
+                if (fetcher.fetch(start + sink.written, end - 1, sink) == 0) {
+                    throw new IOException("Received empty chunk data");
+                }
+            }
+        } catch (GuangYuYunException e) {
+            throw new IOException("Failed to read " + fileId + " at " + (start + sink.written) + ": " + e.getMessage(), e);
+        }
+        bytesFetched += end - start;
+        nextSequentialBlock = firstBlock + count;
+
+        for (int i = 0; i < count; i++) {
+            blocks[i].flip();
+            cache.put(firstBlock + i, blocks[i]);
+        }
+        // 放入后续块时第一个块可能已被访问顺序淘汰，直接返回本次取得的数据
+        return blocks[0];
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position cannot be negative");
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+        cache.clear();
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    /**
+     * 从缓存中读到的块数
+     */
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * 需要请求的块数（预读取回的后续块读取时计为命中）
+     */
+    public synchronized long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * 发出的Range请求数
+     */
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * 从远端取回的字节数
+     */
+    public synchronized long getBytesFetched() {
+        return bytesFetched;
+    }
+
+    private synchronized void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RemoteSeekableChannel{" +
+                "fileId='" + fileId + '\'' +
+                ", size=" + size +
+                ", position=" + position +
+                ", cacheHits=" + cacheHits +
+                ", cacheMisses=" + cacheMisses +
+                ", requestCount=" + requestCount +
+                ", bytesFetched=" + bytesFetched +
+                '}';
+    }
+
+    /**
+     * 把响应体依次写入多个块缓冲区
+     */
+    private static class BlockSink implements WritableByteChannel {
+
+        private final ByteBuffer[] blocks;
+        private int current;
+        private long written;
+
+        private BlockSink(ByteBuffer[] blocks) {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int total = 0;
+            while (src.hasRemaining()) {
+                while (current < blocks.length && !blocks[current].hasRemaining()) {
+                    current++;
+                }
+                if (current == blocks.length) {
+                    throw new IOException("Response body exceeds requested range");
+                }
+                ByteBuffer block = blocks[current];
+                int n = Math.min(src.remaining(), block.remaining());
+                ByteBuffer slice = src.duplicate();
+                slice.limit(slice.position() + n);
+                block.put(slice);
+                src.position(src.position() + n);
+                total += n;
+            }
+            written += total;
+            return total;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
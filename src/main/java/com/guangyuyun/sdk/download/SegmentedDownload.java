@@ -0,0 +1,188 @@
+package com.guangyuyun.sdk.download;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import com.guangyuyun.sdk.util.AdaptiveChunkSizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 分段并行下载
+ *
+ * 把续传日志中缺失的分段按顺序平均分成N组，各组在独立线程中依次发出Range请求，
+ * 响应数据通过FileChannel按偏移量定位写入预先分配好大小的临时文件，每完成一个分段记入日志。
+ * 任一组失败时其余组尽快停止，已完成的分段保留在日志中供续传。
+ * 开启自适应分片时，各组按自己连接上的实测吞吐把相邻的多个分段合并为一个Range请求。
+ */
+public class SegmentedDownload {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedDownload.class);
+
+    /**
+     * 区间数据获取，[startByte, endByte]为闭区间
+     */
+    public interface RangeFetcher {
+        /**
+         * 把区间数据写入sink
+         *
+         * @return 写入的字节数，可能少于请求的区间长度
+         */
+        long fetch(long startByte, long endByte, WritableByteChannel sink) throws GuangYuYunException;
+    }
+
+    private final RangeFetcher fetcher;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final boolean adaptive;
+
+    /**
+     * @param fetcher 区间数据获取
+     * @param executor 执行各组下载的线程池
+     * @param parallelism 并行数
+     */
+    public SegmentedDownload(RangeFetcher fetcher, ExecutorService executor, int parallelism) {
+        this(fetcher, executor, parallelism, false);
+    }
+
+    /**
+     * @param fetcher 区间数据获取
+     * @param executor 执行各组下载的线程池
+     * @param parallelism 并行数
+     * @param adaptive 是否按实测吞吐合并相邻分段请求
+     */
+    public SegmentedDownload(RangeFetcher fetcher, ExecutorService executor, int parallelism, boolean adaptive) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be a positive number");
+        }
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * 下载会话中所有缺失的分段
+     *
+     * @return 本次下载的字节数
+     */
+    public long download(DownloadSession session) throws GuangYuYunException, IOException {
+        DownloadJournal journal = session.getJournal();
+        int[] missing = journal.missingSegments();
+        if (missing.length == 0) {
+            return 0;
+        }
+
+        // 相邻分段分到同一组，各组内按顺序请求
+        int groupCount = Math.min(parallelism, missing.length);
+        int perGroup = (missing.length + groupCount - 1) / groupCount;
+        List<int[]> groups = new ArrayList<int[]>(groupCount);
+        for (int from = 0; from < missing.length; from += perGroup) {
+            groups.add(Arrays.copyOfRange(missing, from, Math.min(from + perGroup, missing.length)));
+        }
+
+        long bytes = 0;
+        for (int index : missing) {
+            bytes += journal.segmentEnd(index) - journal.segmentStart(index);
+        }
+        logger.info("Downloading {} bytes in {} segments ({} parallel) to {}",
+                bytes, missing.length, groups.size(), session.getPartFile());
+
+        runGroups(session.getChannel(), journal, groups);
+        return bytes;
+    }
+
+    private void runGroups(final FileChannel channel, final DownloadJournal journal, List<int[]> groups)
+            throws GuangYuYunException, IOException {
+        final AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(groups.size());
+        for (final int[] group : groups) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    int segmentSize = journal.getSegmentSize();
+                    AdaptiveChunkSizer sizer = adaptive ? AdaptiveChunkSizer.forDownload(segmentSize, segmentSize) : null;
+                    try {
+                        int from = 0;
+                        while (from < group.length) {
+                            if (aborted.get()) {
+                                return null;
+                            }
+                            // 合并相邻分段，合并后的请求大小不超过自适应分片大小
+                            int span = sizer != null ? Math.max(1, sizer.getChunkSize() / segmentSize) : 1;
+                            int to = from + 1;
+                            while (to < group.length && to - from < span && group[to] == group[to - 1] + 1) {
+                                to++;
+                            }
+                            long begin = journal.segmentStart(group[from]);
+                            long end = journal.segmentEnd(group[to - 1]);
+                            long startTime = System.nanoTime();
+                            downloadSegment(channel, begin, end);
+                            if (sizer != null) {
+                                sizer.record(end - begin, System.nanoTime() - startTime);
+                            }
+                            for (int i = from; i < to; i++) {
+                                journal.markComplete(group[i]);
+                            }
+                            from = to;
+                        }
+                        return null;
+                    } catch (Exception e) {
+                        // 通知其余组停止
+                        aborted.set(true);
+                        throw e;
+                    }
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aborted.set(true);
+                for (Future<Void> f : futures) {
+                    f.cancel(true);
+                }
+                throw new GuangYuYunException("Download interrupted", e);
+            }
+        }
+
+        if (failure instanceof GuangYuYunException) {
+            throw (GuangYuYunException) failure;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new GuangYuYunException("Segment download failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void downloadSegment(FileChannel channel, long begin, long end) throws GuangYuYunException {
+        // 响应体经复用缓冲区直接写入文件对应位置，不在堆上缓存整个分片
+        PositionalWriteChannel sink = new PositionalWriteChannel(channel, begin);
+        while (sink.position() < end) {
+            if (fetcher.fetch(sink.position(), end - 1, sink) == 0) {
+                throw new GuangYuYunException("Received empty chunk data");
+            }
+        }
+        logger.debug("Segment {}-{} completed", begin, end - 1);
+    }
+}
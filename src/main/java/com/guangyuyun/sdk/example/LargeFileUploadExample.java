@@ -5,6 +5,8 @@ import com.guangyuyun.sdk.exception.GuangYuYunException;
 import com.guangyuyun.sdk.model.LargeFileUploadRequest;
 import com.guangyuyun.sdk.model.LargeFileUploadResponse;
 import com.guangyuyun.sdk.model.TokenResponse;
+import com.guangyuyun.sdk.transfer.TransferAdapter;
+import com.guangyuyun.sdk.transfer.TransferEvent;
 import com.guangyuyun.sdk.util.FileUtils;
 
 import java.io.File;
@@ -27,6 +29,24 @@ public class LargeFileUploadExample {
         System.out.println("=== 基本大文件上传示例（根据文件路径）===");
         
         GuangYuYunClient client = new GuangYuYunClient();
+        // 上传过程不再输出到控制台，需要时通过回调输出进度
+        client.setTransferListener(new TransferAdapter() {
+            @Override
+            public void onProgress(TransferEvent event) {
+                System.out.printf("上传进度: %d/%d bytes (%.2f%%)%n",
+                        event.getTransferredBytes(), event.getTotalBytes(), event.getPercent());
+            }
+            
+            @Override
+            public void onResynced(TransferEvent event) {
+                System.out.println("服务器返回码7，从索引 " + event.getOffset() + " 继续上传");
+            }
+            
+            @Override
+            public void onRetried(TransferEvent event) {
+                System.out.println("分片重试（第" + event.getAttempt() + "次尝试）: " + event.getError().getMessage());
+            }
+        });
         
         try {
             // 指定要上传的文件路径
@@ -8,6 +8,7 @@ public class GuangYuYunException extends Exception {
     private Integer code;
     private String message;
     private Integer fileIndex;
+    private boolean retryable;
     
     public GuangYuYunException(String message) {
         super(message);
@@ -26,6 +27,15 @@ public class GuangYuYunException extends Exception {
         this.message = message;
     }
     
+    /**
+     * @param retryable 是否为可重试的临时错误（连接重置、超时、5xx等）
+     */
+    public GuangYuYunException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.message = message;
+        this.retryable = retryable;
+    }
+    
     public GuangYuYunException(Integer code, String message, Throwable cause) {
         super(message, cause);
         this.code = code;
@@ -49,12 +59,24 @@ public class GuangYuYunException extends Exception {
         this.message = message;
     }
     
+    /**
+     * 是否为可重试的临时错误，重试同一请求可能成功
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+    
+    public void setRetryable(boolean retryable) {
+        this.retryable = retryable;
+    }
+    
     @Override
     public String toString() {
         return "GuangYuYunException{" +
                 "code=" + code +
                 ", message='" + message + '\'' +
                 ", fileIndex=" + fileIndex +
+                ", retryable=" + retryable +
                 '}';
     }
 
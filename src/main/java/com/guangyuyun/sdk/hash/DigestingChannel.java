@@ -0,0 +1,116 @@
+package com.guangyuyun.sdk.hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 边传输边计算摘要的通道
+ *
+ * 包装一个可读或可写通道，所有经过的数据都会计入摘要，可用于下载、转存等不再单独读取一遍数据的场景。
+ */
+public class DigestingChannel implements ReadableByteChannel, WritableByteChannel {
+
+    private final ReadableByteChannel source;
+    private final WritableByteChannel target;
+    private final MultiDigest digest;
+    private FileDigests result;
+
+    private DigestingChannel(ReadableByteChannel source, WritableByteChannel target, HashAlgorithm... algorithms) {
+        this.source = source;
+        this.target = target;
+        this.digest = new MultiDigest(algorithms);
+    }
+
+    /**
+     * 包装可读通道：计算从中读出的数据的摘要
+     */
+    public static DigestingChannel reading(ReadableByteChannel source, HashAlgorithm... algorithms) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source channel cannot be null");
+        }
+        return new DigestingChannel(source, null, algorithms);
+    }
+
+    /**
+     * 包装可写通道：计算写入其中的数据的摘要
+     */
+    public static DigestingChannel writing(WritableByteChannel target, HashAlgorithm... algorithms) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target channel cannot be null");
+        }
+        return new DigestingChannel(null, target, algorithms);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (source == null) {
+            throw new NonReadableChannelException();
+        }
+        checkNotFinished();
+        int start = dst.position();
+        int n = source.read(dst);
+        if (n > 0) {
+            ByteBuffer view = dst.duplicate();
+            view.position(start).limit(start + n);
+            digest.update(view);
+        }
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (target == null) {
+            throw new NonWritableChannelException();
+        }
+        checkNotFinished();
+        int start = src.position();
+        int n = target.write(src);
+        if (n > 0) {
+            ByteBuffer view = src.duplicate();
+            view.position(start).limit(start + n);
+            digest.update(view);
+        }
+        return n;
+    }
+
+    /**
+     * 已经过通道的字节数
+     */
+    public long getLength() {
+        return digest.length();
+    }
+
+    /**
+     * 结束计算并返回摘要，之后不能再读写
+     */
+    public FileDigests digests() {
+        if (result == null) {
+            result = digest.finish();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return source != null ? source.isOpen() : target.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (source != null) {
+            source.close();
+        } else {
+            target.close();
+        }
+    }
+
+    private void checkNotFinished() throws IOException {
+        if (result != null) {
+            throw new IOException("Digest already finished");
+        }
+    }
+}
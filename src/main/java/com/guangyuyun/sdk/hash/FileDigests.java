@@ -0,0 +1,63 @@
+package com.guangyuyun.sdk.hash;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 一次读取计算出的摘要结果
+ */
+public class FileDigests {
+
+    private final long length;
+    private final Map<HashAlgorithm, byte[]> digests;
+
+    FileDigests(long length, Map<HashAlgorithm, byte[]> digests) {
+        this.length = length;
+        this.digests = Collections.unmodifiableMap(new EnumMap<HashAlgorithm, byte[]>(digests));
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 获取指定算法的原始摘要，未计算时返回null
+     */
+    public byte[] getDigest(HashAlgorithm algorithm) {
+        byte[] digest = digests.get(algorithm);
+        return digest != null ? digest.clone() : null;
+    }
+
+    /**
+     * 获取指定算法摘要的小写十六进制表示，未计算时返回null
+     */
+    public String getHex(HashAlgorithm algorithm) {
+        byte[] digest = digests.get(algorithm);
+        return digest != null ? HexFormat.toHex(digest) : null;
+    }
+
+    public String getMd5() {
+        return getHex(HashAlgorithm.MD5);
+    }
+
+    public String getSha256() {
+        return getHex(HashAlgorithm.SHA256);
+    }
+
+    public String getCrc32c() {
+        return getHex(HashAlgorithm.CRC32C);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FileDigests{length=").append(length);
+        for (Map.Entry<HashAlgorithm, byte[]> entry : digests.entrySet()) {
+            sb.append(", ").append(entry.getKey()).append("='").append(HexFormat.toHex(entry.getValue())).append('\'');
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.guangyuyun.sdk.hash;
+
+/**
+ * 支持的摘要/校验算法
+ */
+public enum HashAlgorithm {
+
+    MD5("MD5"),
+    SHA256("SHA-256"),
+    /** 需要Java 9及以上版本 */
+    CRC32C("CRC32C");
+
+    private final String algorithmName;
+
+    HashAlgorithm(String algorithmName) {
+        this.algorithmName = algorithmName;
+    }
+
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+}
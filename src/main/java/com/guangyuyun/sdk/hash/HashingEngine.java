@@ -0,0 +1,78 @@
+package com.guangyuyun.sdk.hash;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件摘要计算引擎
+ *
+ * 以大块缓冲区顺序读取文件，一次读取同时计算MD5及可选的SHA-256、CRC32C。
+ * 不使用内存映射：摘要算法只接受字节数组，映射的数据同样要复制一次，却要占用地址空间直到GC解除映射，
+ * 且文件在计算期间被截断时访问映射会导致进程崩溃。
+ */
+public final class HashingEngine {
+
+    private static final int READ_BUFFER_SIZE = 4 * 1024 * 1024; // 4MB
+
+    private HashingEngine() {
+    }
+
+    /**
+     * 计算文件MD5（小写十六进制）
+     */
+    public static String md5(File file) throws IOException {
+        return hash(file, HashAlgorithm.MD5).getMd5();
+    }
+
+    /**
+     * 一次读取计算文件的多个摘要
+     */
+    public static FileDigests hash(File file, HashAlgorithm... algorithms) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return hash(channel, 0, channel.size(), algorithms);
+        }
+    }
+
+    /**
+     * 计算文件通道中[position, position + length)区间的摘要，不改变通道自身的position
+     */
+    public static FileDigests hash(FileChannel channel, long position, long length, HashAlgorithm... algorithms) throws IOException {
+        MultiDigest digest = new MultiDigest(algorithms);
+        // 堆缓冲区的数组直接交给各算法，读取之外不再复制
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_SIZE, Math.max(length, 1)));
+        long offset = position;
+        long end = position + length;
+        while (offset < end) {
+            buffer.clear();
+            if (end - offset < buffer.capacity()) {
+                buffer.limit((int) (end - offset));
+            }
+            int n = channel.read(buffer, offset);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at position " + offset);
+            }
+            buffer.flip();
+            digest.update(buffer);
+            offset += n;
+        }
+        return digest.finish();
+    }
+
+    /**
+     * 读取通道直至结束并计算摘要
+     */
+    public static FileDigests hash(ReadableByteChannel channel, HashAlgorithm... algorithms) throws IOException {
+        MultiDigest digest = new MultiDigest(algorithms);
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return digest.finish();
+    }
+}
@@ -0,0 +1,44 @@
+package com.guangyuyun.sdk.hash;
+
+/**
+ * 十六进制编解码（查表实现，避免逐字节String.format）
+ */
+public final class HexFormat {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private HexFormat() {
+    }
+
+    /**
+     * 转换为小写十六进制字符串
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xff;
+            chars[i * 2] = DIGITS[v >>> 4];
+            chars[i * 2 + 1] = DIGITS[v & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 解析十六进制字符串
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex == null || (hex.length() & 1) != 0) {
+            throw new IllegalArgumentException("Invalid hex string: " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex string: " + hex);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,101 @@
+package com.guangyuyun.sdk.hash;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.Checksum;
+
+/**
+ * 多算法摘要累加器，同一份数据只喂给每个算法一次
+ */
+class MultiDigest {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024; // 64KB
+
+    private final HashAlgorithm[] algorithms;
+    private final MessageDigest[] messageDigests;
+    private final Checksum[] checksums;
+    private byte[] copyBuffer;
+    private long length;
+
+    MultiDigest(HashAlgorithm... algorithms) {
+        if (algorithms == null || algorithms.length == 0) {
+            throw new IllegalArgumentException("At least one hash algorithm is required");
+        }
+        this.algorithms = algorithms.clone();
+        this.messageDigests = new MessageDigest[algorithms.length];
+        this.checksums = new Checksum[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            if (algorithms[i] == HashAlgorithm.CRC32C) {
+                checksums[i] = newCrc32c();
+            } else {
+                try {
+                    messageDigests[i] = MessageDigest.getInstance(algorithms[i].getAlgorithmName());
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(algorithms[i].getAlgorithmName() + " algorithm not available", e);
+                }
+            }
+        }
+    }
+
+    void update(byte[] data, int offset, int len) {
+        for (int i = 0; i < algorithms.length; i++) {
+            if (messageDigests[i] != null) {
+                messageDigests[i].update(data, offset, len);
+            } else {
+                checksums[i].update(data, offset, len);
+            }
+        }
+        length += len;
+    }
+
+    /**
+     * 消费缓冲区中position到limit之间的数据，结束后position等于limit
+     */
+    void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int len = buffer.remaining();
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.limit());
+            return;
+        }
+        // 直接缓冲区：复制一次到共享数组，再喂给所有算法
+        if (copyBuffer == null) {
+            copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+        while (buffer.hasRemaining()) {
+            int n = Math.min(buffer.remaining(), copyBuffer.length);
+            buffer.get(copyBuffer, 0, n);
+            update(copyBuffer, 0, n);
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    FileDigests finish() {
+        Map<HashAlgorithm, byte[]> result = new EnumMap<HashAlgorithm, byte[]>(HashAlgorithm.class);
+        for (int i = 0; i < algorithms.length; i++) {
+            if (messageDigests[i] != null) {
+                result.put(algorithms[i], messageDigests[i].digest());
+            } else {
+                long value = checksums[i].getValue();
+                result.put(algorithms[i], new byte[] {
+                        (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+            }
+        }
+        return new FileDigests(length, result);
+    }
+
+    private static Checksum newCrc32c() {
+        try {
+            // java.util.zip.CRC32C自Java 9起提供，SDK以Java 8为编译目标，因此通过反射创建
+            return (Checksum) Class.forName("java.util.zip.CRC32C").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("CRC32C requires Java 9 or later", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.guangyuyun.sdk.http;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+import org.apache.http.util.Args;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * 非阻塞请求体：可选的前缀字节 + 文件区间 + 可选的后缀字节
+ *
+ * 用于异步客户端发送大文件分片（仅文件区间）和小文件multipart请求（前缀/后缀为multipart边界与头部）。
+ * 编码器支持时通过FileContentEncoder直接从文件通道传输，否则经64KB缓冲区写出。通道由调用方负责关闭。
+ */
+public class AsyncFileRegionEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024; // 64KB
+
+    private final byte[] head;
+    private final FileChannel channel;
+    private final long position;
+    private final long length;
+    private final byte[] tail;
+
+    private ByteBuffer headBuffer;
+    private ByteBuffer tailBuffer;
+    private ByteBuffer transferBuffer;
+    private long readOffset;
+    private long writtenOffset;
+
+    public AsyncFileRegionEntity(FileChannel channel, long position, long length, ContentType contentType) {
+        this(null, channel, position, length, null, contentType);
+    }
+
+    public AsyncFileRegionEntity(byte[] head, FileChannel channel, long position, long length,
+                                 byte[] tail, ContentType contentType) {
+        this.head = head != null ? head : EMPTY;
+        this.channel = Args.notNull(channel, "File channel");
+        this.position = Args.notNegative(position, "Position");
+        this.length = Args.notNegative(length, "Length");
+        this.tail = tail != null ? tail : EMPTY;
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+        reset();
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (headBuffer.hasRemaining()) {
+            encoder.write(headBuffer);
+            if (headBuffer.hasRemaining()) {
+                return;
+            }
+        }
+        if (writtenOffset < length) {
+            if (encoder instanceof FileContentEncoder && transferBuffer == null) {
+                writtenOffset += ((FileContentEncoder) encoder).transfer(channel, position + writtenOffset, length - writtenOffset);
+            } else {
+                writeBuffered(encoder);
+            }
+            if (writtenOffset < length) {
+                return;
+            }
+        }
+        if (tailBuffer.hasRemaining()) {
+            encoder.write(tailBuffer);
+            if (tailBuffer.hasRemaining()) {
+                return;
+            }
+        }
+        encoder.complete();
+    }
+
+    private void writeBuffered(ContentEncoder encoder) throws IOException {
+        if (transferBuffer == null) {
+            transferBuffer = ByteBuffer.allocate((int) Math.min(TRANSFER_BUFFER_SIZE, Math.max(length, 1)));
+            transferBuffer.flip();
+        }
+        if (!transferBuffer.hasRemaining()) {
+            transferBuffer.clear();
+            long remaining = length - readOffset;
+            if (remaining < transferBuffer.capacity()) {
+                transferBuffer.limit((int) remaining);
+            }
+            int n = channel.read(transferBuffer, position + readOffset);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at position " + (position + readOffset));
+            }
+            readOffset += n;
+            transferBuffer.flip();
+        }
+        writtenOffset += encoder.write(transferBuffer);
+    }
+
+    private void reset() {
+        headBuffer = ByteBuffer.wrap(head);
+        tailBuffer = ByteBuffer.wrap(tail);
+        transferBuffer = null;
+        readOffset = 0;
+        writtenOffset = 0;
+    }
+
+    /**
+     * 请求结束或需要重发时由框架调用：重置发送进度，不关闭文件通道
+     */
+    @Override
+    public void close() {
+        reset();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return head.length + length + tail.length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(head),
+                new FileRegionEntity(channel, position, length).getContent(),
+                new ByteArrayInputStream(tail))));
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        outstream.write(head);
+        new FileRegionEntity(channel, position, length).writeTo(outstream);
+        outstream.write(tail);
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,148 @@
+package com.guangyuyun.sdk.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接泄漏检测器
+ *
+ * 每次请求从发出到释放连接视为一次租用，租用时记录调用栈；后台线程定期检查，
+ * 租用时长超过阈值时输出告警日志（附带租用时的调用栈），每次租用只告警一次。
+ */
+public class ConnectionLeakDetector implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionLeakDetector.class);
+
+    private final long thresholdNanos;
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<Long, Lease>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong suspectedLeaks = new AtomicLong();
+    private final ScheduledExecutorService scanner;
+
+    /**
+     * @param threshold 租用时长阈值
+     * @param unit 时间单位
+     */
+    public ConnectionLeakDetector(long threshold, TimeUnit unit) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Leak detection threshold must be a positive number");
+        }
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.scanner = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "guangyuyun-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(100), thresholdNanos / 2);
+        this.scanner.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                scan();
+            }
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次租用
+     *
+     * @param description 请求描述（如请求行）
+     */
+    public Lease acquire(String description) {
+        long id = sequence.incrementAndGet();
+        Lease lease = new Lease(id, description, Thread.currentThread().getName());
+        leases.put(id, lease);
+        return lease;
+    }
+
+    /**
+     * 当前未释放的租用数
+     */
+    public int getActiveLeases() {
+        return leases.size();
+    }
+
+    /**
+     * 累计超过阈值的租用数
+     */
+    public long getSuspectedLeaks() {
+        return suspectedLeaks.get();
+    }
+
+    /**
+     * 当前超过阈值仍未释放的租用描述
+     */
+    public List<String> getLongHeldLeases() {
+        long now = System.nanoTime();
+        List<String> result = new ArrayList<String>();
+        for (Lease lease : leases.values()) {
+            if (now - lease.acquiredAt > thresholdNanos) {
+                result.add(lease.describe(now));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private void scan() {
+        long now = System.nanoTime();
+        for (Lease lease : leases.values()) {
+            if (!lease.reported && now - lease.acquiredAt > thresholdNanos) {
+                lease.reported = true;
+                suspectedLeaks.incrementAndGet();
+                logger.warn("Possible connection leak: " + lease.describe(now), lease.origin);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scanner.shutdownNow();
+        leases.clear();
+    }
+
+    /**
+     * 一次连接租用，请求结束时必须调用{@link #release()}
+     */
+    public class Lease {
+
+        private final long id;
+        private final String description;
+        private final String threadName;
+        private final long acquiredAt = System.nanoTime();
+        private final Throwable origin = new Throwable("Connection lease acquired here");
+        private volatile boolean reported;
+
+        private Lease(long id, String description, String threadName) {
+            this.id = id;
+            this.description = description;
+            this.threadName = threadName;
+        }
+
+        public void release() {
+            leases.remove(id);
+            if (reported) {
+                logger.info("Connection lease released after {} ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquiredAt), description);
+            }
+        }
+
+        private String describe(long now) {
+            return description + " held for " + TimeUnit.NANOSECONDS.toMillis(now - acquiredAt)
+                    + " ms by thread " + threadName;
+        }
+    }
+}
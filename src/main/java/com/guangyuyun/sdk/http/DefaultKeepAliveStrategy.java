@@ -0,0 +1,24 @@
+package com.guangyuyun.sdk.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 连接保持策略：优先使用服务端Keep-Alive头指定的时长，未指定时使用配置的默认时长
+ */
+public class DefaultKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private final long defaultKeepAliveMillis;
+
+    public DefaultKeepAliveStrategy(long defaultKeepAliveMillis) {
+        this.defaultKeepAliveMillis = defaultKeepAliveMillis;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? duration : defaultKeepAliveMillis;
+    }
+}
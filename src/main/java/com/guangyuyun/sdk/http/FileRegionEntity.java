@@ -0,0 +1,143 @@
+package com.guangyuyun.sdk.http;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 文件区间请求体
+ *
+ * 直接从一个长期打开的FileChannel中按位置读取[position, position + length)区间写入连接，
+ * 不重新打开文件，也不为整个分片分配byte[]。通道由调用方负责关闭。
+ */
+public class FileRegionEntity extends AbstractHttpEntity {
+
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024; // 64KB
+
+    private final FileChannel channel;
+    private final long position;
+    private final long length;
+
+    public FileRegionEntity(FileChannel channel, long position, long length) {
+        this(channel, position, length, ContentType.DEFAULT_BINARY);
+    }
+
+    public FileRegionEntity(FileChannel channel, long position, long length, ContentType contentType) {
+        this.channel = Args.notNull(channel, "File channel");
+        this.position = Args.notNegative(position, "Position");
+        this.length = Args.notNegative(length, "Length");
+        if (contentType != null) {
+            setContentType(contentType.toString());
+        }
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new RegionInputStream();
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        Args.notNull(outstream, "Output stream");
+        byte[] buffer = new byte[(int) Math.min(TRANSFER_BUFFER_SIZE, Math.max(length, 1))];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long offset = position;
+        long remaining = length;
+        while (remaining > 0) {
+            byteBuffer.clear();
+            if (remaining < byteBuffer.capacity()) {
+                byteBuffer.limit((int) remaining);
+            }
+            int bytesRead = channel.read(byteBuffer, offset);
+            if (bytesRead < 0) {
+                throw new IOException("Unexpected end of file at position " + offset
+                        + ", " + remaining + " bytes of region still expected");
+            }
+            outstream.write(buffer, 0, bytesRead);
+            offset += bytesRead;
+            remaining -= bytesRead;
+        }
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "FileRegionEntity{" +
+                "position=" + position +
+                ", length=" + length +
+                '}';
+    }
+
+    /**
+     * 基于位置读取的区间输入流，不改变通道自身的position
+     */
+    private class RegionInputStream extends InputStream {
+
+        private long offset = position;
+        private final long end = position + length;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (offset >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - offset);
+            int bytesRead = channel.read(ByteBuffer.wrap(b, off, toRead), offset);
+            if (bytesRead > 0) {
+                offset += bytesRead;
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - offset));
+            offset += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - offset);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.guangyuyun.sdk.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON响应解析
+ *
+ * 按响应类型预先创建ObjectReader，解析时不再查找类型的反序列化器，直接从响应体流解析，不生成中间字符串。
+ * 只有开启debug日志时才把响应体读成字符串并记录。线程安全，可在多个客户端之间共享。
+ */
+public class JsonResponseReader<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonResponseReader.class);
+
+    private final ObjectReader reader;
+
+    /**
+     * @param objectMapper JSON序列化器
+     * @param type 响应类型
+     */
+    public JsonResponseReader(ObjectMapper objectMapper, Class<T> type) {
+        this.reader = objectMapper.readerFor(type);
+    }
+
+    /**
+     * 解析响应体
+     *
+     * @throws GuangYuYunException 当响应没有响应体时抛出异常
+     * @throws IOException 当读取或解析失败时抛出异常
+     */
+    public T read(HttpResponse response) throws IOException, GuangYuYunException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new GuangYuYunException("Empty response from server");
+        }
+        if (logger.isDebugEnabled()) {
+            String responseBody = EntityUtils.toString(entity, StandardCharsets.UTF_8);
+            logger.debug("Response body: {}", responseBody);
+            return reader.readValue(responseBody);
+        }
+        try (InputStream content = entity.getContent()) {
+            return reader.readValue(content);
+        }
+    }
+}
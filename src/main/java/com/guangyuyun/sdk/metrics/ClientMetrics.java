@@ -0,0 +1,78 @@
+package com.guangyuyun.sdk.metrics;
+
+/**
+ * 客户端指标记录接口
+ *
+ * 客户端在请求与传输过程中同步调用，实现需线程安全且不应阻塞。内置{@link InMemoryClientMetrics}不依赖第三方库，
+ * 也可以使用{@link MicrometerClientMetrics}或{@link DropwizardClientMetrics}接入已有的指标系统。
+ * 未设置时客户端不记录任何指标。
+ */
+public interface ClientMetrics {
+
+    /**
+     * 接口操作，对应服务端的各个端点
+     */
+    enum Operation {
+        /** /u/createToken */
+        CREATE_TOKEN("create_token"),
+        /** /v1/add */
+        UPLOAD_SMALL_FILE("upload_small_file"),
+        /** /v1/addLargeFile */
+        UPLOAD_CHUNK("upload_chunk"),
+        /** /v1/cat 区间读取 */
+        DOWNLOAD_RANGE("download_range"),
+        /** /v1/cat 获取文件大小与校验标识 */
+        FILE_INFO("file_info");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * 用作指标名称或标签的小写名称
+         */
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    /**
+     * 一次HTTP请求完成（包括读取响应体），token失效后重发的请求计入同一次
+     *
+     * @param durationNanos 耗时（纳秒）
+     * @param success 是否成功取得结果
+     */
+    void recordRequest(Operation operation, long durationNanos, boolean success);
+
+    /**
+     * 一个分片或区间传输完成，用于统计传输字节数与吞吐
+     *
+     * @param bytes 通过网络传输的字节数
+     * @param durationNanos 耗时（纳秒），包括重试
+     */
+    void recordTransfer(Operation operation, long bytes, long durationNanos);
+
+    /**
+     * 请求失败后按重试策略重试
+     */
+    void recordRetry(Operation operation);
+
+    /**
+     * 大文件上传收到码7，按服务端期望的位置重新同步
+     */
+    void recordResync();
+
+    /**
+     * 令牌提供方创建新token
+     *
+     * @param success 是否成功
+     */
+    void recordTokenRefresh(boolean success);
+
+    /**
+     * 绑定连接池，实现据此提供租用中、等待中等连接数的指标；同一连接池可能被多次绑定（多个客户端视图），实现应忽略重复绑定
+     */
+    void bindConnectionPool(ConnectionPoolStats pool);
+}
@@ -0,0 +1,27 @@
+package com.guangyuyun.sdk.metrics;
+
+/**
+ * 连接池当前状态，每次调用读取最新值
+ */
+public interface ConnectionPoolStats {
+
+    /**
+     * 租用中的连接数
+     */
+    int getLeased();
+
+    /**
+     * 等待获取连接的请求数
+     */
+    int getPending();
+
+    /**
+     * 空闲可用的连接数
+     */
+    int getAvailable();
+
+    /**
+     * 连接数上限
+     */
+    int getMax();
+}
@@ -0,0 +1,132 @@
+package com.guangyuyun.sdk.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把客户端指标记录到Dropwizard Metrics
+ *
+ * 需要应用自行引入metrics-core。每个操作注册以下指标（operation为{@link Operation#getTag()}）：
+ * guangyuyun.requests.operation（请求延迟计时器）、guangyuyun.requests.operation.failures（失败次数）、
+ * guangyuyun.transfer.operation.bytes（传输字节数及速率）、guangyuyun.transfer.operation.throughput
+ * （分片与区间吞吐直方图，字节/秒）、guangyuyun.retries.operation（重试次数）；
+ * 另有guangyuyun.upload.resyncs、guangyuyun.token.refreshes、guangyuyun.token.refreshes.failures
+ * 以及guangyuyun.pool.leased/pending/available/max连接池状态。
+ */
+public class DropwizardClientMetrics implements ClientMetrics {
+
+    private final MetricRegistry registry;
+    private final Map<Operation, Timer> timers = new EnumMap<Operation, Timer>(Operation.class);
+    private final Map<Operation, Meter> failures = new EnumMap<Operation, Meter>(Operation.class);
+    private final Map<Operation, Meter> bytes = new EnumMap<Operation, Meter>(Operation.class);
+    private final Map<Operation, com.codahale.metrics.Histogram> throughput =
+            new EnumMap<Operation, com.codahale.metrics.Histogram>(Operation.class);
+    private final Map<Operation, Counter> retries = new EnumMap<Operation, Counter>(Operation.class);
+    private final Counter resyncs;
+    private final Counter tokenRefreshes;
+    private final Counter tokenRefreshFailures;
+
+    public DropwizardClientMetrics(MetricRegistry registry) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            String tag = operation.getTag();
+            timers.put(operation, registry.timer(MetricRegistry.name("guangyuyun.requests", tag)));
+            failures.put(operation, registry.meter(MetricRegistry.name("guangyuyun.requests", tag, "failures")));
+            bytes.put(operation, registry.meter(MetricRegistry.name("guangyuyun.transfer", tag, "bytes")));
+            throughput.put(operation, registry.histogram(MetricRegistry.name("guangyuyun.transfer", tag, "throughput")));
+            retries.put(operation, registry.counter(MetricRegistry.name("guangyuyun.retries", tag)));
+        }
+        this.resyncs = registry.counter("guangyuyun.upload.resyncs");
+        this.tokenRefreshes = registry.counter("guangyuyun.token.refreshes");
+        this.tokenRefreshFailures = registry.counter("guangyuyun.token.refreshes.failures");
+    }
+
+    @Override
+    public void recordRequest(Operation operation, long durationNanos, boolean success) {
+        timers.get(operation).update(durationNanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            failures.get(operation).mark();
+        }
+    }
+
+    @Override
+    public void recordTransfer(Operation operation, long bytesTransferred, long durationNanos) {
+        bytes.get(operation).mark(bytesTransferred);
+        if (durationNanos > 0) {
+            throughput.get(operation).update((long) (bytesTransferred * 1e9 / durationNanos));
+        }
+    }
+
+    @Override
+    public void recordRetry(Operation operation) {
+        retries.get(operation).inc();
+    }
+
+    @Override
+    public void recordResync() {
+        resyncs.inc();
+    }
+
+    @Override
+    public void recordTokenRefresh(boolean success) {
+        (success ? tokenRefreshes : tokenRefreshFailures).inc();
+    }
+
+    /**
+     * 注册连接池状态；同名指标已存在时保留已有的，重复绑定不生效
+     */
+    @Override
+    public void bindConnectionPool(final ConnectionPoolStats pool) {
+        registry.gauge("guangyuyun.pool.leased", new MetricRegistry.MetricSupplier<Gauge<Integer>>() {
+            @Override
+            public Gauge<Integer> newMetric() {
+                return new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return pool.getLeased();
+                    }
+                };
+            }
+        });
+        registry.gauge("guangyuyun.pool.pending", new MetricRegistry.MetricSupplier<Gauge<Integer>>() {
+            @Override
+            public Gauge<Integer> newMetric() {
+                return new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return pool.getPending();
+                    }
+                };
+            }
+        });
+        registry.gauge("guangyuyun.pool.available", new MetricRegistry.MetricSupplier<Gauge<Integer>>() {
+            @Override
+            public Gauge<Integer> newMetric() {
+                return new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return pool.getAvailable();
+                    }
+                };
+            }
+        });
+        registry.gauge("guangyuyun.pool.max", new MetricRegistry.MetricSupplier<Gauge<Integer>>() {
+            @Override
+            public Gauge<Integer> newMetric() {
+                return new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return pool.getMax();
+                    }
+                };
+            }
+        });
+    }
+}
@@ -0,0 +1,189 @@
+package com.guangyuyun.sdk.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内置的指标记录，不依赖第三方库
+ *
+ * 每个操作分别统计请求延迟直方图（微秒）、成功与失败数、重试数、传输字节数与吞吐直方图（字节/秒），
+ * 另外统计码7重新同步与token刷新次数。统计自创建起累计，可定期读取后调用{@link #reset()}按时间窗口统计。
+ */
+public class InMemoryClientMetrics implements ClientMetrics {
+
+    private final Map<Operation, OperationStats> operations = new EnumMap<Operation, OperationStats>(Operation.class);
+    private final AtomicLong resyncCount = new AtomicLong();
+    private final AtomicLong tokenRefreshCount = new AtomicLong();
+    private final AtomicLong tokenRefreshFailureCount = new AtomicLong();
+    private volatile ConnectionPoolStats pool;
+
+    public InMemoryClientMetrics() {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationStats());
+        }
+    }
+
+    @Override
+    public void recordRequest(Operation operation, long durationNanos, boolean success) {
+        OperationStats stats = operations.get(operation);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        (success ? stats.successCount : stats.failureCount).incrementAndGet();
+    }
+
+    @Override
+    public void recordTransfer(Operation operation, long bytes, long durationNanos) {
+        OperationStats stats = operations.get(operation);
+        stats.bytes.addAndGet(bytes);
+        if (durationNanos > 0) {
+            stats.throughput.record((long) (bytes * 1e9 / durationNanos));
+        }
+    }
+
+    @Override
+    public void recordRetry(Operation operation) {
+        operations.get(operation).retryCount.incrementAndGet();
+    }
+
+    @Override
+    public void recordResync() {
+        resyncCount.incrementAndGet();
+    }
+
+    @Override
+    public void recordTokenRefresh(boolean success) {
+        (success ? tokenRefreshCount : tokenRefreshFailureCount).incrementAndGet();
+    }
+
+    @Override
+    public void bindConnectionPool(ConnectionPoolStats pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 请求延迟直方图（微秒）
+     */
+    public Histogram getLatency(Operation operation) {
+        return operations.get(operation).latency;
+    }
+
+    /**
+     * 传输吞吐直方图（字节/秒），每个分片或区间记录一次
+     */
+    public Histogram getThroughput(Operation operation) {
+        return operations.get(operation).throughput;
+    }
+
+    public long getSuccessCount(Operation operation) {
+        return operations.get(operation).successCount.get();
+    }
+
+    public long getFailureCount(Operation operation) {
+        return operations.get(operation).failureCount.get();
+    }
+
+    public long getRetryCount(Operation operation) {
+        return operations.get(operation).retryCount.get();
+    }
+
+    /**
+     * 传输的字节数
+     */
+    public long getBytes(Operation operation) {
+        return operations.get(operation).bytes.get();
+    }
+
+    public long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    public long getTokenRefreshCount() {
+        return tokenRefreshCount.get();
+    }
+
+    public long getTokenRefreshFailureCount() {
+        return tokenRefreshFailureCount.get();
+    }
+
+    /**
+     * 租用中的连接数，未绑定连接池时为0
+     */
+    public int getLeasedConnections() {
+        ConnectionPoolStats current = pool;
+        return current != null ? current.getLeased() : 0;
+    }
+
+    /**
+     * 等待获取连接的请求数，未绑定连接池时为0
+     */
+    public int getPendingConnections() {
+        ConnectionPoolStats current = pool;
+        return current != null ? current.getPending() : 0;
+    }
+
+    public int getAvailableConnections() {
+        ConnectionPoolStats current = pool;
+        return current != null ? current.getAvailable() : 0;
+    }
+
+    public int getMaxConnections() {
+        ConnectionPoolStats current = pool;
+        return current != null ? current.getMax() : 0;
+    }
+
+    /**
+     * 清空所有统计，连接池绑定保留
+     */
+    public void reset() {
+        for (OperationStats stats : operations.values()) {
+            stats.reset();
+        }
+        resyncCount.set(0);
+        tokenRefreshCount.set(0);
+        tokenRefreshFailureCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("InMemoryClientMetrics{");
+        for (Map.Entry<Operation, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            if (stats.successCount.get() + stats.failureCount.get() == 0) {
+                continue;
+            }
+            sb.append(entry.getKey().getTag())
+                    .append("={success=").append(stats.successCount.get())
+                    .append(", failure=").append(stats.failureCount.get())
+                    .append(", retry=").append(stats.retryCount.get())
+                    .append(", bytes=").append(stats.bytes.get())
+                    .append(", latencyMicros=").append(stats.latency)
+                    .append("}, ");
+        }
+        return sb.append("resyncCount=").append(resyncCount.get())
+                .append(", tokenRefreshCount=").append(tokenRefreshCount.get())
+                .append(", tokenRefreshFailureCount=").append(tokenRefreshFailureCount.get())
+                .append(", leasedConnections=").append(getLeasedConnections())
+                .append(", pendingConnections=").append(getPendingConnections())
+                .append('}').toString();
+    }
+
+    private static class OperationStats {
+
+        private final Histogram latency = new Histogram();
+        private final Histogram throughput = new Histogram();
+        private final AtomicLong successCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong retryCount = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private void reset() {
+            latency.reset();
+            throughput.reset();
+            successCount.set(0);
+            failureCount.set(0);
+            retryCount.set(0);
+            bytes.set(0);
+        }
+    }
+}
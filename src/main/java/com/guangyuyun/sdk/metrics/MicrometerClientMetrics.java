@@ -0,0 +1,130 @@
+package com.guangyuyun.sdk.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 把客户端指标记录到Micrometer
+ *
+ * 需要应用自行引入micrometer-core。指标名称：
+ * <ul>
+ *   <li>guangyuyun.requests：请求延迟计时器，标签operation与outcome（success/failure），发布百分位直方图</li>
+ *   <li>guangyuyun.transfer.bytes：传输字节数，标签operation</li>
+ *   <li>guangyuyun.transfer.throughput：分片与区间吞吐（字节/秒），标签operation，发布百分位直方图</li>
+ *   <li>guangyuyun.retries：重试次数，标签operation</li>
+ *   <li>guangyuyun.upload.resyncs：码7重新同步次数</li>
+ *   <li>guangyuyun.token.refreshes：token创建次数，标签outcome</li>
+ *   <li>guangyuyun.pool.leased/pending/available/max：连接池状态</li>
+ * </ul>
+ * 所有计量器在创建时注册，记录时不再查找。
+ */
+public class MicrometerClientMetrics implements ClientMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<Operation, Timer> successTimers = new EnumMap<Operation, Timer>(Operation.class);
+    private final Map<Operation, Timer> failureTimers = new EnumMap<Operation, Timer>(Operation.class);
+    private final Map<Operation, Counter> bytes = new EnumMap<Operation, Counter>(Operation.class);
+    private final Map<Operation, DistributionSummary> throughput = new EnumMap<Operation, DistributionSummary>(Operation.class);
+    private final Map<Operation, Counter> retries = new EnumMap<Operation, Counter>(Operation.class);
+    private final Counter resyncs;
+    private final Counter tokenRefreshes;
+    private final Counter tokenRefreshFailures;
+
+    public MicrometerClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            successTimers.put(operation, requestTimer(operation, "success"));
+            failureTimers.put(operation, requestTimer(operation, "failure"));
+            bytes.put(operation, Counter.builder("guangyuyun.transfer.bytes")
+                    .tag("operation", operation.getTag())
+                    .baseUnit("bytes")
+                    .register(registry));
+            throughput.put(operation, DistributionSummary.builder("guangyuyun.transfer.throughput")
+                    .tag("operation", operation.getTag())
+                    .baseUnit("bytes.per.second")
+                    .publishPercentileHistogram()
+                    .register(registry));
+            retries.put(operation, Counter.builder("guangyuyun.retries")
+                    .tag("operation", operation.getTag())
+                    .register(registry));
+        }
+        this.resyncs = Counter.builder("guangyuyun.upload.resyncs").register(registry);
+        this.tokenRefreshes = Counter.builder("guangyuyun.token.refreshes").tag("outcome", "success").register(registry);
+        this.tokenRefreshFailures = Counter.builder("guangyuyun.token.refreshes").tag("outcome", "failure").register(registry);
+    }
+
+    private Timer requestTimer(Operation operation, String outcome) {
+        return Timer.builder("guangyuyun.requests")
+                .tag("operation", operation.getTag())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void recordRequest(Operation operation, long durationNanos, boolean success) {
+        (success ? successTimers : failureTimers).get(operation).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordTransfer(Operation operation, long bytesTransferred, long durationNanos) {
+        bytes.get(operation).increment(bytesTransferred);
+        if (durationNanos > 0) {
+            throughput.get(operation).record(bytesTransferred * 1e9 / durationNanos);
+        }
+    }
+
+    @Override
+    public void recordRetry(Operation operation) {
+        retries.get(operation).increment();
+    }
+
+    @Override
+    public void recordResync() {
+        resyncs.increment();
+    }
+
+    @Override
+    public void recordTokenRefresh(boolean success) {
+        (success ? tokenRefreshes : tokenRefreshFailures).increment();
+    }
+
+    /**
+     * 注册连接池计量器；名称相同的计量器已存在时Micrometer返回已有的，重复绑定不生效
+     */
+    @Override
+    public void bindConnectionPool(ConnectionPoolStats pool) {
+        Gauge.builder("guangyuyun.pool.leased", pool, new ToDoubleFunction<ConnectionPoolStats>() {
+            @Override
+            public double applyAsDouble(ConnectionPoolStats stats) {
+                return stats.getLeased();
+            }
+        }).register(registry);
+        Gauge.builder("guangyuyun.pool.pending", pool, new ToDoubleFunction<ConnectionPoolStats>() {
+            @Override
+            public double applyAsDouble(ConnectionPoolStats stats) {
+                return stats.getPending();
+            }
+        }).register(registry);
+        Gauge.builder("guangyuyun.pool.available", pool, new ToDoubleFunction<ConnectionPoolStats>() {
+            @Override
+            public double applyAsDouble(ConnectionPoolStats stats) {
+                return stats.getAvailable();
+            }
+        }).register(registry);
+        Gauge.builder("guangyuyun.pool.max", pool, new ToDoubleFunction<ConnectionPoolStats>() {
+            @Override
+            public double applyAsDouble(ConnectionPoolStats stats) {
+                return stats.getMax();
+            }
+        }).register(registry);
+    }
+}
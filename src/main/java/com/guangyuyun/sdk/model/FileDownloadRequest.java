@@ -12,6 +12,7 @@ public class FileDownloadRequest {
     private Long endByte;
     private Integer chunkSize;
     private boolean resumeEnabled;
+    private Integer parallelism;
     
     public FileDownloadRequest() {
         this.resumeEnabled = true;
@@ -80,6 +81,17 @@ public class FileDownloadRequest {
         this.resumeEnabled = resumeEnabled;
     }
     
+    public Integer getParallelism() {
+        return parallelism;
+    }
+    
+    /**
+     * 并行下载的分段数，大于1时分段并发下载，未设置时使用客户端配置
+     */
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+    
     @Override
     public String toString() {
         return "FileDownloadRequest{" +
@@ -90,6 +102,7 @@ public class FileDownloadRequest {
                 ", endByte=" + endByte +
                 ", chunkSize=" + chunkSize +
                 ", resumeEnabled=" + resumeEnabled +
+                ", parallelism=" + parallelism +
                 '}';
     }
 }
\ No newline at end of file
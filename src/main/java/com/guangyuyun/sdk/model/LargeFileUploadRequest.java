@@ -2,6 +2,8 @@ package com.guangyuyun.sdk.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.nio.channels.FileChannel;
+
 /**
  * 大文件上传请求参数
  */
@@ -28,6 +30,21 @@ public class LargeFileUploadRequest {
     @JsonIgnore
     private byte[] fileData;
     
+    @JsonIgnore
+    private int fileDataOffset; // 分片数据在fileData中的起始位置
+    
+    @JsonIgnore
+    private int fileDataLength;
+    
+    @JsonIgnore
+    private FileChannel fileChannel; // 文件区间（与fileData二选一）
+    
+    @JsonIgnore
+    private long regionPosition;
+    
+    @JsonIgnore
+    private long regionLength;
+    
     public LargeFileUploadRequest() {
     }
     
@@ -38,7 +55,7 @@ public class LargeFileUploadRequest {
         this.fileSize = fileSize;
         this.fileStartIndex = fileStartIndex;
         this.authToken = authToken;
-        this.fileData = fileData;
+        setFileData(fileData);
     }
     
     public String getFileName() {
@@ -94,7 +111,71 @@ public class LargeFileUploadRequest {
     }
     
     public void setFileData(byte[] fileData) {
+        setFileData(fileData, 0, fileData != null ? fileData.length : 0);
+    }
+    
+    /**
+     * 以数组的一段作为分片数据，不复制数组
+     * 
+     * @param fileData 数据数组，发送完成前不能修改
+     * @param offset 分片在数组中的起始位置
+     * @param length 分片长度
+     */
+    public void setFileData(byte[] fileData, int offset, int length) {
         this.fileData = fileData;
+        this.fileDataOffset = offset;
+        this.fileDataLength = length;
+        this.fileChannel = null;
+    }
+    
+    /**
+     * 分片数据在{@link #getFileData()}中的起始位置
+     */
+    public int getFileDataOffset() {
+        return fileDataOffset;
+    }
+    
+    /**
+     * 设置文件区间作为分片数据（替代fileData，数据直接从通道写入连接）
+     * 
+     * @param fileChannel 已打开的文件通道，由调用方负责关闭
+     * @param position 区间起始位置
+     * @param length 区间长度
+     */
+    public void setFileRegion(FileChannel fileChannel, long position, long length) {
+        this.fileChannel = fileChannel;
+        this.regionPosition = position;
+        this.regionLength = length;
+        this.fileData = null;
+    }
+    
+    public FileChannel getFileChannel() {
+        return fileChannel;
+    }
+    
+    public long getRegionPosition() {
+        return regionPosition;
+    }
+    
+    public long getRegionLength() {
+        return regionLength;
+    }
+    
+    /**
+     * 是否以文件区间方式携带分片数据
+     */
+    public boolean hasFileRegion() {
+        return fileChannel != null;
+    }
+    
+    /**
+     * 获取分片数据长度（字节）
+     */
+    public long getChunkLength() {
+        if (hasFileRegion()) {
+            return regionLength;
+        }
+        return fileData != null ? fileDataLength : 0;
     }
     
     @Override
@@ -106,7 +187,8 @@ public class LargeFileUploadRequest {
                 ", fileStartIndex=" + fileStartIndex +
                 ", authToken='" + authToken + '\'' +
                 ", notificationLink='" + notificationLink + '\'' +
-                ", fileDataSize=" + (fileData != null ? fileData.length : 0) +
+                ", fileDataSize=" + getChunkLength() +
+                ", fileRegion=" + hasFileRegion() +
                 '}';
     }
 }
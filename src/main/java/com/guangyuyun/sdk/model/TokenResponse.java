@@ -2,6 +2,8 @@ package com.guangyuyun.sdk.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Map;
+
 /**
  * Token响应结果
  */
@@ -51,16 +53,31 @@ public class TokenResponse {
             return (String) data;
         } else if (data instanceof TokenData) {
             return ((TokenData) data).getToken();
+        } else if (data instanceof Map) {
+            // JSON对象格式的data反序列化为Map
+            Object token = ((Map<?, ?>) data).get("token");
+            return token != null ? token.toString() : null;
         }
         return null;
     }
     
     /**
-     * 获取过期时间（兼容TokenData格式的响应）
+     * 获取过期时间（兼容TokenData与JSON对象格式的响应）
      */
     public Long getExpireTime() {
         if (data instanceof TokenData) {
             return ((TokenData) data).getExpireTime();
+        } else if (data instanceof Map) {
+            Object expireTime = ((Map<?, ?>) data).get("expireTime");
+            if (expireTime instanceof Number) {
+                return ((Number) expireTime).longValue();
+            } else if (expireTime instanceof String) {
+                try {
+                    return Long.parseLong((String) expireTime);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
         }
         return null;
     }
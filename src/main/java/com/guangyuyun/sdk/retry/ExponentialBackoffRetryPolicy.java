@@ -0,0 +1,83 @@
+package com.guangyuyun.sdk.retry;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指数退避加随机抖动的重试策略
+ *
+ * 第n次重试的退避上限为min(maxDelay, baseDelay * 2^(n-1))，实际等待时间在上限的一半到上限之间随机选取，
+ * 避免大量客户端在同一时刻重试。
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 200;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 10 * 1000;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * 默认策略：最多尝试5次，退避从200ms开始，最长10秒
+     */
+    public ExponentialBackoffRetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxAttempts 最多尝试次数（包括第一次），1表示不重试
+     * @param baseDelay 第一次重试的退避上限
+     * @param maxDelay 退避上限的最大值
+     * @param unit 时间单位
+     */
+    public ExponentialBackoffRetryPolicy(int maxAttempts, long baseDelay, long maxDelay, TimeUnit unit) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be a positive number");
+        }
+        if (baseDelay < 0 || maxDelay < baseDelay) {
+            throw new IllegalArgumentException("Invalid backoff range: " + baseDelay + "-" + maxDelay);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = unit.toMillis(baseDelay);
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+    }
+
+    @Override
+    public long nextDelayMillis(int attempt, GuangYuYunException error) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        long cap = maxDelayMillis;
+        int shift = attempt - 1;
+        if (shift < 62 && baseDelayMillis <= (maxDelayMillis >> shift)) {
+            cap = baseDelayMillis << shift;
+        }
+        long half = cap / 2;
+        return half + (cap - half > 0 ? ThreadLocalRandom.current().nextLong(cap - half + 1) : 0);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ExponentialBackoffRetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", baseDelayMillis=" + baseDelayMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                '}';
+    }
+}
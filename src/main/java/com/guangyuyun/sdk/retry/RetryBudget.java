@@ -0,0 +1,73 @@
+package com.guangyuyun.sdk.retry;
+
+/**
+ * 重试预算
+ *
+ * 令牌桶：每次重试消耗一个令牌，每次成功的请求归还一定比例的令牌，令牌数不超过上限。
+ * 服务端整体不可用时，重试次数被限制在成功请求数的固定比例内，避免重试放大故障；
+ * 偶发的连接重置则总能从积累的令牌中得到重试。
+ */
+public class RetryBudget {
+
+    public static final int DEFAULT_MAX_TOKENS = 20;
+    public static final double DEFAULT_TOKEN_RATIO = 0.1;
+
+    private static final int SCALE = 1000; // 令牌以千分之一为单位记账
+
+    private final long maxTokens;
+    private final long refillPerSuccess;
+    private long tokens;
+
+    /**
+     * 默认预算：最多积累20次重试，每10次成功请求恢复一次重试
+     */
+    public RetryBudget() {
+        this(DEFAULT_MAX_TOKENS, DEFAULT_TOKEN_RATIO);
+    }
+
+    /**
+     * @param maxTokens 最多积累的重试次数
+     * @param tokenRatio 每次成功请求恢复的重试次数
+     */
+    public RetryBudget(int maxTokens, double tokenRatio) {
+        if (maxTokens < 0 || tokenRatio < 0) {
+            throw new IllegalArgumentException("Retry budget cannot be negative");
+        }
+        this.maxTokens = (long) maxTokens * SCALE;
+        this.refillPerSuccess = (long) (tokenRatio * SCALE);
+        this.tokens = this.maxTokens;
+    }
+
+    /**
+     * 申请一次重试，预算不足时返回false
+     */
+    public synchronized boolean tryAcquire() {
+        if (tokens < SCALE) {
+            return false;
+        }
+        tokens -= SCALE;
+        return true;
+    }
+
+    /**
+     * 记录一次成功的请求
+     */
+    public synchronized void recordSuccess() {
+        tokens = Math.min(maxTokens, tokens + refillPerSuccess);
+    }
+
+    /**
+     * 当前可用的重试次数
+     */
+    public synchronized double getAvailable() {
+        return (double) tokens / SCALE;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RetryBudget{" +
+                "available=" + getAvailable() +
+                ", max=" + maxTokens / SCALE +
+                '}';
+    }
+}
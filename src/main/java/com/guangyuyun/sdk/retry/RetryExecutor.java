@@ -0,0 +1,164 @@
+package com.guangyuyun.sdk.retry;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+
+/**
+ * 按重试策略与预算执行请求
+ *
+ * 同步调用使用{@link #execute}；异步调用在失败后通过{@link #retryDelay}决定是否以及何时重新发出请求。
+ * 重复执行会产生副作用的请求（如小文件上传）使用{@link #executeNonIdempotent}，只在请求确定未发出时重试。
+ */
+public class RetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryExecutor.class);
+
+    /**
+     * 一次尝试
+     */
+    public interface Attempt<T> {
+        /**
+         * @param attempt 尝试序号，从1开始
+         */
+        T run(int attempt) throws GuangYuYunException;
+    }
+
+    /**
+     * 重试通知
+     */
+    public interface RetryListener {
+        /**
+         * 等待结束、即将重试时调用
+         *
+         * @param attempt 即将进行的尝试序号，从2开始
+         * @param error 上一次尝试的失败原因
+         */
+        void onRetry(int attempt, GuangYuYunException error);
+    }
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+
+    /**
+     * @param policy 重试策略，null表示不重试
+     * @param budget 重试预算，null表示不限
+     */
+    public RetryExecutor(RetryPolicy policy, RetryBudget budget) {
+        this.policy = policy;
+        this.budget = budget;
+    }
+
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * 执行请求，可重试的失败按策略等待后重新执行
+     *
+     * @param operation 操作描述，用于日志
+     */
+    public <T> T execute(String operation, Attempt<T> attempt) throws GuangYuYunException {
+        return execute(operation, attempt, null);
+    }
+
+    /**
+     * 执行请求，每次重试前通知listener
+     *
+     * @param operation 操作描述，用于日志
+     * @param listener 重试通知，可为null
+     */
+    public <T> T execute(String operation, Attempt<T> attempt, RetryListener listener) throws GuangYuYunException {
+        return execute(operation, attempt, listener, true);
+    }
+
+    /**
+     * 执行非幂等请求：服务端可能已处理了超时或连接中断的请求，重试会产生重复数据，
+     * 因此只在连接未能建立（请求确定没有发出）时按策略重试
+     *
+     * @param operation 操作描述，用于日志
+     */
+    public <T> T executeNonIdempotent(String operation, Attempt<T> attempt) throws GuangYuYunException {
+        return execute(operation, attempt, null, false);
+    }
+
+    private <T> T execute(String operation, Attempt<T> attempt, RetryListener listener,
+                          boolean idempotent) throws GuangYuYunException {
+        for (int n = 1; ; n++) {
+            try {
+                T result = attempt.run(n);
+                recordSuccess();
+                return result;
+            } catch (GuangYuYunException e) {
+                long delay = idempotent || notSent(e) ? retryDelay(n, e) : -1;
+                if (delay < 0) {
+                    throw e;
+                }
+                logger.warn("{} failed (attempt {}): {}, retrying in {} ms", operation, n, e.getMessage(), delay);
+                sleep(delay);
+                if (listener != null) {
+                    listener.onRetry(n + 1, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 第attempt次尝试失败后是否重试
+     *
+     * @return 重试前等待的毫秒数，负数表示不重试（不可重试的错误、策略终止或预算耗尽）
+     */
+    public long retryDelay(int attempt, Throwable error) {
+        if (policy == null || !(error instanceof GuangYuYunException) || !((GuangYuYunException) error).isRetryable()) {
+            return -1;
+        }
+        long delay = policy.nextDelayMillis(attempt, (GuangYuYunException) error);
+        if (delay < 0) {
+            return -1;
+        }
+        if (budget != null && !budget.tryAcquire()) {
+            logger.warn("Retry budget exhausted, not retrying: {}", error.getMessage());
+            return -1;
+        }
+        return delay;
+    }
+
+    /**
+     * 失败发生在连接建立之前，服务端没有收到请求
+     */
+    private static boolean notSent(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof ConnectionPoolTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次成功的请求，恢复重试预算
+     */
+    public void recordSuccess() {
+        if (budget != null) {
+            budget.recordSuccess();
+        }
+    }
+
+    private static void sleep(long millis) throws GuangYuYunException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GuangYuYunException("Interrupted while waiting to retry", e);
+        }
+    }
+}
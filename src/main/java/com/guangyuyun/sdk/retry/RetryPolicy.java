@@ -0,0 +1,21 @@
+package com.guangyuyun.sdk.retry;
+
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+
+/**
+ * 重试策略
+ *
+ * 只有{@link GuangYuYunException#isRetryable()}为true的失败才会询问策略，
+ * 策略决定是否重试以及重试前的等待时间。
+ */
+public interface RetryPolicy {
+
+    /**
+     * 第attempt次尝试失败后，计算下一次尝试前的等待时间
+     *
+     * @param attempt 已失败的尝试次数，从1开始
+     * @param error 本次失败的异常
+     * @return 等待的毫秒数，负数表示不再重试
+     */
+    long nextDelayMillis(int attempt, GuangYuYunException error);
+}
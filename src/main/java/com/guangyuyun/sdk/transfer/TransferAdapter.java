@@ -0,0 +1,39 @@
+package com.guangyuyun.sdk.transfer;
+
+/**
+ * {@link TransferListener}的空实现，按需覆盖关心的事件
+ */
+public abstract class TransferAdapter implements TransferListener {
+
+    @Override
+    public void onStarted(TransferEvent event) {
+    }
+
+    @Override
+    public void onChunkSent(TransferEvent event) {
+    }
+
+    @Override
+    public void onChunkReceived(TransferEvent event) {
+    }
+
+    @Override
+    public void onResynced(TransferEvent event) {
+    }
+
+    @Override
+    public void onRetried(TransferEvent event) {
+    }
+
+    @Override
+    public void onProgress(TransferEvent event) {
+    }
+
+    @Override
+    public void onCompleted(TransferEvent event) {
+    }
+
+    @Override
+    public void onFailed(TransferEvent event) {
+    }
+}
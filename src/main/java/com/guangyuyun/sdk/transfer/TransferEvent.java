@@ -0,0 +1,145 @@
+package com.guangyuyun.sdk.transfer;
+
+/**
+ * 传输事件
+ *
+ * 各字段在事件发生时确定，不随后续传输变化。与事件类型无关的字段为0或null。
+ */
+public class TransferEvent {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        STARTED, CHUNK_SENT, CHUNK_RECEIVED, RESYNCED, RETRIED, PROGRESS, COMPLETED, FAILED
+    }
+
+    /**
+     * 传输方向
+     */
+    public enum Direction {
+        UPLOAD, DOWNLOAD
+    }
+
+    private final Type type;
+    private final Direction direction;
+    private final String name;
+    private final String fileId;
+    private final long totalBytes;
+    private final long transferredBytes;
+    private final long offset;
+    private final long length;
+    private final int attempt;
+    private final long elapsedMillis;
+    private final Throwable error;
+
+    TransferEvent(Type type, Direction direction, String name, String fileId, long totalBytes, long transferredBytes,
+                  long offset, long length, int attempt, long elapsedMillis, Throwable error) {
+        this.type = type;
+        this.direction = direction;
+        this.name = name;
+        this.fileId = fileId;
+        this.totalBytes = totalBytes;
+        this.transferredBytes = transferredBytes;
+        this.offset = offset;
+        this.length = length;
+        this.attempt = attempt;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * 上传时为文件名，下载时为输出路径
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 下载的文件ID；上传完成后为服务端返回的文件ID，之前为null
+     */
+    public String getFileId() {
+        return fileId;
+    }
+
+    /**
+     * 文件大小，尚未确定时为-1
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 已完成的字节数，包括续传前已完成的部分
+     */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /**
+     * 分片或区间的起始位置，重新同步时为新的上传位置
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 分片或区间的字节数
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 重试时即将进行的尝试序号（从2开始）
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * 自传输开始经过的毫秒数
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 重试与失败事件的原因
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * 完成百分比，文件大小未知时为0
+     */
+    public double getPercent() {
+        return totalBytes > 0 ? transferredBytes * 100.0 / totalBytes : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferEvent{" +
+                "type=" + type +
+                ", direction=" + direction +
+                ", name='" + name + '\'' +
+                ", fileId='" + fileId + '\'' +
+                ", totalBytes=" + totalBytes +
+                ", transferredBytes=" + transferredBytes +
+                ", offset=" + offset +
+                ", length=" + length +
+                ", attempt=" + attempt +
+                ", elapsedMillis=" + elapsedMillis +
+                ", error=" + error +
+                '}';
+    }
+}
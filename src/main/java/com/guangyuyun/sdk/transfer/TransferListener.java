@@ -0,0 +1,51 @@
+package com.guangyuyun.sdk.transfer;
+
+/**
+ * 大文件上传与文件下载的过程回调
+ *
+ * 在传输线程中同步调用，分段并行下载时多个分段的回调可能并发执行，实现需线程安全且尽快返回。
+ * 回调抛出的运行时异常只记录日志，不影响传输。只关心部分事件时可继承{@link TransferAdapter}。
+ */
+public interface TransferListener {
+
+    /**
+     * 传输开始，此时已知文件大小；续传时transferredBytes为已完成的字节数。
+     * 开始前失败（如文件不存在）时只有失败事件
+     */
+    void onStarted(TransferEvent event);
+
+    /**
+     * 上传分片被服务端确认，offset与length为该分片的区间
+     */
+    void onChunkSent(TransferEvent event);
+
+    /**
+     * 下载区间写入完成，offset与length为该区间
+     */
+    void onChunkReceived(TransferEvent event);
+
+    /**
+     * 服务端返回码7，上传位置按服务端期望的索引重新同步，offset为新的位置
+     */
+    void onResynced(TransferEvent event);
+
+    /**
+     * 分片或区间请求失败后重试，attempt为即将进行的尝试序号，error为上一次的失败原因
+     */
+    void onRetried(TransferEvent event);
+
+    /**
+     * 传输进度，按客户端设置的间隔节流，相邻两次之间至少间隔该时长
+     */
+    void onProgress(TransferEvent event);
+
+    /**
+     * 传输完成，上传时fileId为服务端返回的文件ID
+     */
+    void onCompleted(TransferEvent event);
+
+    /**
+     * 传输失败
+     */
+    void onFailed(TransferEvent event);
+}
@@ -0,0 +1,170 @@
+package com.guangyuyun.sdk.transfer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一次传输的事件发布，记录已完成的字节数并按间隔节流进度事件
+ *
+ * 只在设置了监听器时创建，未设置时客户端不创建本对象，也不创建任何事件。
+ * 分段并行下载的多个线程可同时报告区间完成，进度事件由CAS选出一个线程发布。
+ */
+public class TransferTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferTracker.class);
+
+    private final TransferListener listener;
+    private final TransferEvent.Direction direction;
+    private final String name;
+    private final long progressIntervalNanos;
+    private final long startNanos;
+    private final AtomicLong transferred = new AtomicLong();
+    private final AtomicLong nextProgressNanos;
+    private volatile String fileId;
+    private volatile long totalBytes = -1;
+
+    /**
+     * @param listener 监听器
+     * @param direction 传输方向
+     * @param name 上传的文件名或下载的输出路径
+     * @param fileId 下载的文件ID，上传时为null
+     * @param progressIntervalMillis 进度事件的最小间隔（毫秒），0表示每个分片都发布
+     */
+    public TransferTracker(TransferListener listener, TransferEvent.Direction direction, String name, String fileId,
+                           long progressIntervalMillis) {
+        this.listener = listener;
+        this.direction = direction;
+        this.name = name;
+        this.fileId = fileId;
+        this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis);
+        this.startNanos = System.nanoTime();
+        this.nextProgressNanos = new AtomicLong(startNanos);
+    }
+
+    /**
+     * @param totalBytes 文件大小
+     * @param transferredBytes 续传前已完成的字节数
+     */
+    public void started(long totalBytes, long transferredBytes) {
+        this.totalBytes = totalBytes;
+        transferred.set(transferredBytes);
+        publish(TransferEvent.Type.STARTED, 0, 0, 0, null);
+    }
+
+    /**
+     * 上传分片被确认
+     *
+     * @param confirmedIndex 服务端确认的位置
+     */
+    public void chunkSent(long offset, long length, long confirmedIndex) {
+        transferred.set(confirmedIndex);
+        publish(TransferEvent.Type.CHUNK_SENT, offset, length, 0, null);
+        progress();
+    }
+
+    /**
+     * 下载区间写入完成
+     */
+    public void chunkReceived(long offset, long length) {
+        transferred.addAndGet(length);
+        publish(TransferEvent.Type.CHUNK_RECEIVED, offset, length, 0, null);
+        progress();
+    }
+
+    /**
+     * 上传位置按服务端返回的索引重新同步
+     */
+    public void resynced(long fileIndex) {
+        transferred.set(fileIndex);
+        publish(TransferEvent.Type.RESYNCED, fileIndex, 0, 0, null);
+    }
+
+    /**
+     * @param attempt 即将进行的尝试序号
+     * @param error 上一次的失败原因
+     */
+    public void retried(long offset, int attempt, Throwable error) {
+        publish(TransferEvent.Type.RETRIED, offset, 0, attempt, error);
+    }
+
+    /**
+     * @param fileId 上传时为服务端返回的文件ID，下载时为null
+     */
+    public void completed(String fileId) {
+        if (fileId != null) {
+            this.fileId = fileId;
+        }
+        if (totalBytes >= 0) {
+            transferred.set(totalBytes);
+        }
+        publish(TransferEvent.Type.COMPLETED, 0, 0, 0, null);
+    }
+
+    public void failed(Throwable error) {
+        publish(TransferEvent.Type.FAILED, 0, 0, 0, error);
+    }
+
+    private void progress() {
+        long now = System.nanoTime();
+        long next = nextProgressNanos.get();
+        if (now - next >= 0 && nextProgressNanos.compareAndSet(next, now + progressIntervalNanos)) {
+            publish(TransferEvent.Type.PROGRESS, 0, 0, 0, null);
+        }
+    }
+
+    private void publish(TransferEvent.Type type, long offset, long length, int attempt, Throwable error) {
+        TransferEvent event = new TransferEvent(type, direction, name, fileId, totalBytes, transferred.get(),
+                offset, length, attempt, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), error);
+        try {
+            switch (type) {
+                case STARTED:
+                    listener.onStarted(event);
+                    break;
+                case CHUNK_SENT:
+                    listener.onChunkSent(event);
+                    break;
+                case CHUNK_RECEIVED:
+                    listener.onChunkReceived(event);
+                    break;
+                case RESYNCED:
+                    listener.onResynced(event);
+                    break;
+                case RETRIED:
+                    listener.onRetried(event);
+                    break;
+                case PROGRESS:
+                    listener.onProgress(event);
+                    break;
+                case COMPLETED:
+                    listener.onCompleted(event);
+                    break;
+                default:
+                    listener.onFailed(event);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Transfer listener failed on {} event", type, e);
+        }
+    }
+
+    /**
+     * 已完成的字节数
+     */
+    public long getTransferredBytes() {
+        return transferred.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TransferTracker{" +
+                "direction=" + direction +
+                ", name='" + name + '\'' +
+                ", fileId='" + fileId + '\'' +
+                ", totalBytes=" + totalBytes +
+                ", transferredBytes=" + transferred.get() +
+                '}';
+    }
+}
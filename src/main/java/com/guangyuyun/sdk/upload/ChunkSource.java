@@ -0,0 +1,25 @@
+package com.guangyuyun.sdk.upload;
+
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 大文件分片数据来源
+ *
+ * 上传循环按服务端返回的fileIndex向数据来源索取[offset, offset + length)区间，
+ * 由实现决定以fileData还是文件区间的方式填充到请求中。
+ */
+public interface ChunkSource extends Closeable {
+
+    /**
+     * 将指定区间的数据填充到分片请求中
+     */
+    void fill(LargeFileUploadRequest request, long offset, int length) throws IOException;
+
+    /**
+     * 分片请求已完成（无论成功与否），可回收其占用的资源
+     */
+    void release(LargeFileUploadRequest request);
+}
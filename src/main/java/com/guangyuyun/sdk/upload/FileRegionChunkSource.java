@@ -0,0 +1,35 @@
+package com.guangyuyun.sdk.upload;
+
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 以文件区间方式提供分片，整个上传过程只打开一次文件
+ */
+public class FileRegionChunkSource implements ChunkSource {
+
+    private final FileChannel channel;
+
+    public FileRegionChunkSource(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    @Override
+    public void fill(LargeFileUploadRequest request, long offset, int length) {
+        request.setFileRegion(channel, offset, length);
+    }
+
+    @Override
+    public void release(LargeFileUploadRequest request) {
+        // 文件区间不占用额外资源
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,248 @@
+package com.guangyuyun.sdk.upload;
+
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 预读分片数据来源
+ *
+ * 后台线程在分片N发送期间读取分片N+1（预算允许时继续读取N+2...），
+ * 使磁盘读取与网络发送重叠。已暂存与正在发送的字节总数始终不超过预读预算，
+ * 因此预算不能小于最大分片大小；预算小于两个分片时读取与发送不再重叠。
+ * 当服务端返回码7要求从其他位置继续时，丢弃已暂存的分片并从新位置重新预读；
+ * 索取的长度与已暂存的不同（末片合并、自适应分片大小变化）时，按索取的长度重新读取该位置。
+ */
+public class ReadAheadChunkSource implements ChunkSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadAheadChunkSource.class);
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long budgetBytes;
+
+    private final Deque<StagedChunk> staged = new ArrayDeque<StagedChunk>();
+    private final Deque<byte[]> freeBuffers = new ArrayDeque<byte[]>();
+    private final Thread reader;
+
+    private int chunkSize;
+    private long readPosition;
+    private long generation;
+    private long outstandingBytes; // 已暂存 + 已取出尚未释放
+    private long requestedOffset = -1; // 上传循环正在等待的位置
+    private int requestedLength;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * @param file 要上传的文件
+     * @param startIndex 起始预读位置
+     * @param chunkSize 分片大小
+     * @param budgetBytes 预读预算（字节），不小于分片大小，建议至少为2倍分片大小
+     */
+    public ReadAheadChunkSource(File file, long startIndex, int chunkSize, long budgetBytes) throws IOException {
+        if (budgetBytes < chunkSize) {
+            throw new IllegalArgumentException("Read-ahead budget " + budgetBytes + " is smaller than chunk size " + chunkSize);
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.chunkSize = chunkSize;
+        this.budgetBytes = budgetBytes;
+        this.readPosition = startIndex;
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readLoop();
+            }
+        }, "guangyuyun-upload-readahead");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * 调整后续预读的分片大小
+     */
+    public synchronized void setChunkSize(int chunkSize) {
+        if (chunkSize != this.chunkSize) {
+            // 池中的缓冲区是旧分片大小，不能再用于新的分片
+            freeBuffers.clear();
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void fill(LargeFileUploadRequest request, long offset, int length) throws IOException {
+        request.setFileData(take(offset, length));
+    }
+
+    @Override
+    public void release(LargeFileUploadRequest request) {
+        byte[] data = request.getFileData();
+        if (data == null) {
+            return;
+        }
+        synchronized (this) {
+            outstandingBytes -= data.length;
+            if (data.length == chunkSize && freeBuffers.size() < maxPooledBuffers()) {
+                freeBuffers.push(data);
+            }
+            notifyAll();
+        }
+        request.setFileData(null);
+    }
+
+    private synchronized byte[] take(long offset, int length) throws IOException {
+        try {
+            while (true) {
+                if (failure != null) {
+                    throw new IOException("Read-ahead failed: " + failure.getMessage(), failure);
+                }
+                if (closed) {
+                    throw new IOException("Chunk source is closed");
+                }
+                if (length > budgetBytes) {
+                    throw new IOException("Chunk of " + length + " bytes exceeds the read-ahead budget of " + budgetBytes);
+                }
+                StagedChunk head = staged.peekFirst();
+                if (head != null) {
+                    if (head.offset == offset && head.data.length == length) {
+                        staged.removeFirst();
+                        requestedOffset = -1;
+                        notifyAll();
+                        return head.data;
+                    }
+                    resetTo(offset);
+                } else if (readPosition != offset) {
+                    resetTo(offset);
+                }
+                // 后台线程按索取的长度读取这个位置，避免长度不同时反复丢弃重读
+                requestedOffset = offset;
+                requestedLength = length;
+                notifyAll();
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk at " + offset);
+        }
+    }
+
+    /**
+     * 丢弃已暂存的分片，从新位置重新预读（码7重新同步或分片大小变化时发生）
+     */
+    private void resetTo(long offset) {
+        logger.debug("Read-ahead reset from {} to {}, discarding {} staged chunks", readPosition, offset, staged.size());
+        for (StagedChunk chunk : staged) {
+            outstandingBytes -= chunk.data.length;
+        }
+        staged.clear();
+        readPosition = offset;
+        generation++;
+        notifyAll();
+    }
+
+    private int maxPooledBuffers() {
+        return (int) Math.max(2, budgetBytes / Math.max(1, chunkSize));
+    }
+
+    private void readLoop() {
+        try {
+            while (true) {
+                long position;
+                long readGeneration;
+                byte[] buffer;
+                synchronized (this) {
+                    while (!closed && (readPosition >= fileSize || !hasBudget(nextLength()))) {
+                        wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    position = readPosition;
+                    readGeneration = generation;
+                    int length = nextLength();
+                    buffer = !freeBuffers.isEmpty() && freeBuffers.peek().length == length ? freeBuffers.pop() : new byte[length];
+                    outstandingBytes += length;
+                }
+
+                readFully(buffer, position);
+
+                synchronized (this) {
+                    if (readGeneration == generation && !closed) {
+                        staged.addLast(new StagedChunk(position, buffer));
+                        readPosition = position + buffer.length;
+                    } else {
+                        outstandingBytes -= buffer.length;
+                    }
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        }
+    }
+
+    private int nextLength() {
+        if (readPosition == requestedOffset) {
+            return requestedLength;
+        }
+        return (int) Math.min(chunkSize, fileSize - readPosition);
+    }
+
+    /**
+     * 预算内可继续暂存；正在发送的分片释放后预算总能容纳下一个分片
+     */
+    private boolean hasBudget(int length) {
+        return outstandingBytes + length <= budgetBytes;
+    }
+
+    private void readFully(byte[] buffer, long position) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        while (byteBuffer.hasRemaining()) {
+            int bytesRead = channel.read(byteBuffer, position + byteBuffer.position());
+            if (bytesRead < 0) {
+                throw new IOException("Unexpected end of file at position " + (position + byteBuffer.position()));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            staged.clear();
+            freeBuffers.clear();
+            notifyAll();
+        }
+        try {
+            reader.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private static class StagedChunk {
+        private final long offset;
+        private final byte[] data;
+
+        private StagedChunk(long offset, byte[] data) {
+            this.offset = offset;
+            this.data = data;
+        }
+    }
+}
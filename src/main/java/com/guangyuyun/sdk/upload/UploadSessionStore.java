@@ -0,0 +1,419 @@
+package com.guangyuyun.sdk.upload;
+
+import com.guangyuyun.sdk.cache.FileIdentity;
+import com.guangyuyun.sdk.hash.HexFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 大文件上传会话持久化存储
+ *
+ * 记录每个进行中的上传（文件标识、fileMd5、分片大小、服务端已确认的fileIndex、通知链接），
+ * 进程重启后再次上传同一文件时直接从已确认位置继续，无需重新计算MD5，也不需要先用一个分片换取码7。
+ *
+ * 所有会话存放在同一个文件中，每个会话占用一个固定大小的槽位，槽位内有两个交替写入的记录，
+ * 每条记录带序号和CRC32校验。更新进度只覆盖一条记录（1KB）并落盘，写入中途崩溃时另一条记录仍然有效。
+ * 并发更新的落盘请求会合并为一次force，数千个会话同时上传时也不会逐个等待磁盘。
+ * 存储文件由当前进程独占，会话完成后槽位释放并复用。
+ */
+public class UploadSessionStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionStore.class);
+
+    private static final int MAGIC = 0x47595553; // "GYUS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 1024;
+    private static final int SLOT_SIZE = 2 * RECORD_SIZE;
+    private static final int MAX_PAYLOAD = RECORD_SIZE - 8; // 长度与CRC各4字节
+    private static final int MD5_LENGTH = 16;
+
+    private final Path storeFile;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final Map<String, Session> sessions = new HashMap<String, Session>();
+    private final BitSet usedSlots = new BitSet();
+    private final BitSet latestInSecond = new BitSet(); // 槽位的最新记录是否为第二条
+    private long sequence; // 全局递增，槽位复用后新会话的记录总是比旧记录新
+
+    // 合并落盘：写入完成后领取序号，force后记录已落盘的最大序号
+    private final Object syncLock = new Object();
+    private final AtomicLong writeTicket = new AtomicLong();
+    private long syncedTicket;
+
+    /**
+     * 打开存储文件，不存在时创建
+     *
+     * @param storeFile 存储文件路径
+     * @throws IOException 文件无法打开或已被其他进程使用
+     */
+    public UploadSessionStore(Path storeFile) throws IOException {
+        if (storeFile == null) {
+            throw new IllegalArgumentException("Store file cannot be null");
+        }
+        this.storeFile = storeFile;
+        this.channel = FileChannel.open(storeFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.lock = tryLock(channel);
+            if (lock == null) {
+                throw new IOException("Upload session store is in use by another process: " + storeFile);
+            }
+            load();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    public Path getStoreFile() {
+        return storeFile;
+    }
+
+    /**
+     * 查找文件的上传会话，文件已变化（大小、修改时间、inode不一致）时丢弃旧会话并返回null
+     */
+    public Session find(File file) throws IOException {
+        FileIdentity identity = FileIdentity.of(file);
+        Session session;
+        synchronized (this) {
+            session = sessions.get(identity.getPath());
+        }
+        if (session == null) {
+            return null;
+        }
+        if (!session.identity.equals(identity)) {
+            logger.debug("Discarding upload session of modified file {}", identity.getPath());
+            remove(session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * 为文件创建上传会话，替换该文件已有的会话
+     *
+     * @param file 要上传的文件
+     * @param fileMd5 文件MD5
+     * @param chunkSize 分片大小
+     * @param notificationLink 异步通知链接，可为null
+     * @return 新会话；路径或通知链接过长无法存入槽位时返回null
+     */
+    public Session begin(File file, String fileMd5, int chunkSize, String notificationLink) throws IOException {
+        byte[] md5 = HexFormat.fromHex(fileMd5);
+        if (md5.length != MD5_LENGTH) {
+            throw new IllegalArgumentException("Invalid MD5: " + fileMd5);
+        }
+        FileIdentity identity = FileIdentity.of(file);
+        Session session = new Session(this, identity, md5, chunkSize, notificationLink);
+        if (session.encode().length > MAX_PAYLOAD) {
+            logger.debug("Upload session of {} does not fit in a slot, not persisted", identity.getPath());
+            return null;
+        }
+
+        Session previous;
+        synchronized (this) {
+            previous = sessions.remove(identity.getPath());
+            session.slot = usedSlots.nextClearBit(0);
+            usedSlots.set(session.slot);
+            sessions.put(identity.getPath(), session);
+        }
+        if (previous != null) {
+            release(previous);
+        }
+        session.write(true);
+        return session;
+    }
+
+    /**
+     * 删除会话并释放槽位
+     */
+    public void remove(Session session) throws IOException {
+        synchronized (this) {
+            if (sessions.get(session.identity.getPath()) != session) {
+                return;
+            }
+            sessions.remove(session.identity.getPath());
+        }
+        release(session);
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void release(Session session) throws IOException {
+        session.write(false);
+        synchronized (this) {
+            usedSlots.clear(session.slot);
+        }
+    }
+
+    private void writeSession(Session session) throws IOException {
+        int record;
+        synchronized (this) {
+            session.sequence = ++sequence;
+            // 覆盖较旧的一条记录，始终保留上一条完整记录
+            record = latestInSecond.get(session.slot) ? 0 : 1;
+            latestInSecond.set(session.slot, record == 1);
+        }
+        byte[] payload = session.encode();
+        long position = slotOffset(session.slot) + (long) record * RECORD_SIZE;
+
+        // 总是写满整条记录，文件长度保持为槽位大小的整数倍
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putInt(payload.length);
+        buffer.put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 4 + payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+
+        sync(writeTicket.incrementAndGet());
+    }
+
+    private void sync(long ticket) throws IOException {
+        synchronized (syncLock) {
+            // 其他线程的force已覆盖本次写入
+            if (syncedTicket >= ticket) {
+                return;
+            }
+            long covered = writeTicket.get();
+            channel.force(false);
+            syncedTicket = covered;
+        }
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size >= HEADER_SIZE) {
+            readFully(header, 0);
+            header.flip();
+            if (header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == SLOT_SIZE) {
+                loadSlots(size);
+                return;
+            }
+            logger.warn("Upload session store {} has unknown format, starting empty", storeFile);
+        }
+        channel.truncate(0);
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putInt(SLOT_SIZE);
+        header.clear();
+        channel.write(header, 0);
+        channel.force(true);
+    }
+
+    private void loadSlots(long size) throws IOException {
+        int slotCount = (int) ((size - HEADER_SIZE + SLOT_SIZE - 1) / SLOT_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(SLOT_SIZE);
+        for (int slot = 0; slot < slotCount; slot++) {
+            // 最后一个槽位可能只写过第一条记录
+            Arrays.fill(buffer.array(), (byte) 0);
+            buffer.clear();
+            readFully(buffer, slotOffset(slot));
+            Session first = decode(buffer.array(), 0, slot);
+            Session second = decode(buffer.array(), RECORD_SIZE, slot);
+            Session latest = first == null ? second
+                    : second == null || first.sequence > second.sequence ? first : second;
+            if (latest == null) {
+                continue;
+            }
+            latestInSecond.set(slot, latest == second);
+            sequence = Math.max(sequence, Math.max(first != null ? first.sequence : 0, second != null ? second.sequence : 0));
+            if (latest.active && !sessions.containsKey(latest.identity.getPath())) {
+                sessions.put(latest.identity.getPath(), latest);
+                usedSlots.set(slot);
+            }
+        }
+        logger.debug("Loaded {} upload sessions from {}", sessions.size(), storeFile);
+    }
+
+    private Session decode(byte[] slot, int offset, int slotIndex) {
+        ByteBuffer record = ByteBuffer.wrap(slot, offset, RECORD_SIZE);
+        int length = record.getInt();
+        if (length <= 0 || length > MAX_PAYLOAD) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(slot, offset, 4 + length);
+        if (ByteBuffer.wrap(slot, offset + 4 + length, 4).getInt() != (int) crc.getValue()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(slot, offset + 4, length));
+            long sequence = in.readLong();
+            boolean active = in.readBoolean();
+            String path = in.readUTF();
+            long fileSize = in.readLong();
+            long lastModified = in.readLong();
+            String fileKey = in.readUTF();
+            byte[] md5 = new byte[MD5_LENGTH];
+            in.readFully(md5);
+            int chunkSize = in.readInt();
+            long fileIndex = in.readLong();
+            String notificationLink = in.readUTF();
+            FileIdentity identity = new FileIdentity(path, fileSize, lastModified, fileKey.isEmpty() ? null : fileKey);
+            Session session = new Session(this, identity, md5, chunkSize, notificationLink.isEmpty() ? null : notificationLink);
+            session.slot = slotIndex;
+            session.sequence = sequence;
+            session.active = active;
+            session.fileIndex = fileIndex;
+            return session;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    private static long slotOffset(int slot) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    /**
+     * 一次进行中的大文件上传
+     */
+    public static final class Session {
+
+        private final UploadSessionStore store;
+        private final FileIdentity identity;
+        private final byte[] md5;
+        private final int chunkSize;
+        private final String notificationLink;
+        private int slot;
+        private long sequence;
+        private boolean active = true;
+        private volatile long fileIndex;
+
+        private Session(UploadSessionStore store, FileIdentity identity, byte[] md5, int chunkSize,
+                        String notificationLink) {
+            this.store = store;
+            this.identity = identity;
+            this.md5 = md5;
+            this.chunkSize = chunkSize;
+            this.notificationLink = notificationLink;
+        }
+
+        public FileIdentity getIdentity() {
+            return identity;
+        }
+
+        public String getFileMd5() {
+            return HexFormat.toHex(md5);
+        }
+
+        public long getFileSize() {
+            return identity.getSize();
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * 服务端已确认的上传位置
+         */
+        public long getFileIndex() {
+            return fileIndex;
+        }
+
+        public String getNotificationLink() {
+            return notificationLink;
+        }
+
+        /**
+         * 记录服务端确认的上传位置并落盘
+         */
+        public void acknowledge(long fileIndex) throws IOException {
+            this.fileIndex = fileIndex;
+            write(true);
+        }
+
+        /**
+         * 上传完成，删除会话
+         */
+        public void complete() throws IOException {
+            store.remove(this);
+        }
+
+        private synchronized void write(boolean activeState) throws IOException {
+            active = activeState;
+            store.writeSession(this);
+        }
+
+        private byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(sequence);
+            out.writeBoolean(active);
+            out.writeUTF(identity.getPath());
+            out.writeLong(identity.getSize());
+            out.writeLong(identity.getLastModified());
+            out.writeUTF(identity.getFileKey() != null ? identity.getFileKey() : "");
+            out.write(md5);
+            out.writeInt(chunkSize);
+            out.writeLong(fileIndex);
+            out.writeUTF(notificationLink != null ? notificationLink : "");
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public String toString() {
+            return "UploadSession{" +
+                    "path='" + identity.getPath() + '\'' +
+                    ", fileMd5='" + getFileMd5() + '\'' +
+                    ", fileSize=" + identity.getSize() +
+                    ", chunkSize=" + chunkSize +
+                    ", fileIndex=" + fileIndex +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.guangyuyun.sdk.upload;
+
+import com.guangyuyun.sdk.hash.DigestingChannel;
+import com.guangyuyun.sdk.hash.HashAlgorithm;
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 流式数据源的上传暂存区
+ *
+ * 从流中读取数据时同步计算MD5，数据先暂存在内存中，超过内存阈值后整体转存到临时文件继续写入。
+ * 读取结束后即可得到文件大小与MD5，再通过{@link #chunkSource()}按分片协议回放，
+ * 数据只写入一次、读取一次。关闭时删除临时文件。
+ */
+public class UploadSpool implements Closeable {
+
+    private static final int TRANSFER_BUFFER_SIZE = 256 * 1024; // 256KB
+
+    private final int memoryThreshold;
+    private final Path tempDirectory;
+
+    private byte[] memory = new byte[0];
+    private int memorySize;
+    private Path spillFile;
+    private FileChannel spillChannel;
+    private long size;
+    private String md5;
+    private boolean closed;
+
+    /**
+     * @param memoryThreshold 内存暂存上限（字节），超过后转存到临时文件
+     * @param tempDirectory 临时文件目录，null表示使用系统临时目录
+     */
+    public UploadSpool(int memoryThreshold, Path tempDirectory) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("Memory threshold cannot be negative");
+        }
+        this.memoryThreshold = memoryThreshold;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * 读取数据源直至结束，同时计算MD5
+     *
+     * @return 暂存的字节数
+     */
+    public long spool(ReadableByteChannel source) throws IOException {
+        if (md5 != null) {
+            throw new IllegalStateException("Spool already filled");
+        }
+        DigestingChannel digesting = DigestingChannel.writing(new SpoolWriter(), HashAlgorithm.MD5);
+        ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                digesting.write(buffer);
+            }
+            buffer.clear();
+        }
+        md5 = digesting.digests().getMd5();
+        return size;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    /**
+     * 是否已转存到临时文件
+     */
+    public boolean isSpilled() {
+        return spillChannel != null;
+    }
+
+    /**
+     * 按分片回放暂存数据的数据来源，由暂存区负责关闭底层资源
+     */
+    public ChunkSource chunkSource() {
+        if (md5 == null) {
+            throw new IllegalStateException("Spool not filled yet");
+        }
+        if (spillChannel != null) {
+            return new ChunkSource() {
+                @Override
+                public void fill(LargeFileUploadRequest request, long offset, int length) {
+                    request.setFileRegion(spillChannel, offset, length);
+                }
+
+                @Override
+                public void release(LargeFileUploadRequest request) {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return new ChunkSource() {
+            @Override
+            public void fill(LargeFileUploadRequest request, long offset, int length) {
+                // 直接引用暂存数组中的区间，不复制
+                request.setFileData(memory, (int) offset, length);
+            }
+
+            @Override
+            public void release(LargeFileUploadRequest request) {
+                request.setFileData(null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        memory = null;
+        try {
+            if (spillChannel != null) {
+                spillChannel.close();
+            }
+        } finally {
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        }
+    }
+
+    private void write(ByteBuffer src) throws IOException {
+        int length = src.remaining();
+        if (spillChannel == null && (long) memorySize + length > memoryThreshold) {
+            spill();
+        }
+        if (spillChannel != null) {
+            while (src.hasRemaining()) {
+                spillChannel.write(src);
+            }
+        } else {
+            ensureMemoryCapacity(memorySize + length);
+            src.get(memory, memorySize, length);
+            memorySize += length;
+        }
+        size += length;
+    }
+
+    private void ensureMemoryCapacity(int required) {
+        if (required > memory.length) {
+            int capacity = Math.max(required, Math.min(memoryThreshold, Math.max(memory.length * 2, TRANSFER_BUFFER_SIZE)));
+            memory = Arrays.copyOf(memory, capacity);
+        }
+    }
+
+    /**
+     * 超出内存阈值：把已暂存的内存数据写入临时文件，之后的数据直接写文件
+     */
+    private void spill() throws IOException {
+        spillFile = tempDirectory != null
+                ? Files.createTempFile(tempDirectory, "guangyuyun-upload-", ".spool")
+                : Files.createTempFile("guangyuyun-upload-", ".spool");
+        spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer buffered = ByteBuffer.wrap(memory, 0, memorySize);
+        while (buffered.hasRemaining()) {
+            spillChannel.write(buffered);
+        }
+        memory = new byte[0];
+        memorySize = 0;
+    }
+
+    /**
+     * 暂存区写入端，供DigestingChannel包装
+     */
+    private class SpoolWriter implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            int length = src.remaining();
+            UploadSpool.this.write(src);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
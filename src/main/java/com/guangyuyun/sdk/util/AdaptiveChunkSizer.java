@@ -0,0 +1,166 @@
+package com.guangyuyun.sdk.util;
+
+/**
+ * 根据实测吞吐自适应调整分片大小
+ *
+ * 每个分片完成后记录耗时（包含往返延迟）与字节数，按指数加权平均估算吞吐，
+ * 并让下一分片的预计耗时接近目标时长：高延迟链路上小分片的吞吐被往返时间拖低，分片随之增大，
+ * 直到单个请求足以填满带宽时延积；链路变慢或请求失败时分片减小，降低重传代价。
+ * 每次调整最多翻倍或减半，变化不超过当前大小的1/4时保持不变，分片大小始终是对齐单位的整数倍。
+ *
+ * 线程安全，但每个连接（顺序请求序列）应使用独立的实例。
+ */
+public class AdaptiveChunkSizer {
+
+    public static final long DEFAULT_TARGET_MILLIS = 2000;
+
+    private static final double ALPHA = 0.3; // 新样本权重
+    private static final double HYSTERESIS = 0.25;
+
+    private final int minSize;
+    private final int maxSize;
+    private final int alignment;
+    private final long targetMillis;
+
+    private int chunkSize;
+    private double throughput; // 字节/秒
+    private double latencyMillis; // 单个分片请求耗时
+    private long samples;
+
+    /**
+     * @param initialSize 初始分片大小
+     * @param minSize 最小分片大小
+     * @param maxSize 最大分片大小
+     * @param alignment 对齐单位，分片大小为其整数倍
+     */
+    public AdaptiveChunkSizer(int initialSize, int minSize, int maxSize, int alignment) {
+        this(initialSize, minSize, maxSize, alignment, DEFAULT_TARGET_MILLIS);
+    }
+
+    /**
+     * @param initialSize 初始分片大小
+     * @param minSize 最小分片大小
+     * @param maxSize 最大分片大小
+     * @param alignment 对齐单位，分片大小为其整数倍
+     * @param targetMillis 单个分片请求的目标耗时（毫秒）
+     */
+    public AdaptiveChunkSizer(int initialSize, int minSize, int maxSize, int alignment, long targetMillis) {
+        if (alignment <= 0 || minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid chunk size range: " + minSize + "-" + maxSize + "/" + alignment);
+        }
+        if (targetMillis <= 0) {
+            throw new IllegalArgumentException("Target duration must be a positive number");
+        }
+        // 对齐后的上下限：下限向上取整，上限向下取整（但不低于一个对齐单位）
+        this.minSize = (int) Math.max(alignment, (minSize + (long) alignment - 1) / alignment * alignment);
+        this.maxSize = Math.max(this.minSize, maxSize / alignment * alignment);
+        this.alignment = alignment;
+        this.targetMillis = targetMillis;
+        this.chunkSize = clamp(initialSize);
+    }
+
+    /**
+     * 大文件上传分片：1MB-10MB，按64KB对齐
+     */
+    public static AdaptiveChunkSizer forUpload(int initialSize) {
+        return new AdaptiveChunkSizer(initialSize, FileUtils.getMinChunkSize(), FileUtils.getMaxChunkSize(), 64 * 1024);
+    }
+
+    /**
+     * 下载Range请求：64KB-10MB，按续传日志分段大小对齐
+     */
+    public static AdaptiveChunkSizer forDownload(int initialSize, int segmentSize) {
+        return new AdaptiveChunkSizer(initialSize, DownloadUtils.getMinChunkSize(), DownloadUtils.getMaxChunkSize(),
+                segmentSize);
+    }
+
+    /**
+     * 当前分片大小
+     */
+    public synchronized int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 计算从当前位置开始的下一分片大小
+     *
+     * @param remaining 剩余字节数
+     * @param minLastChunk 最后一片的最小字节数（0表示不限），剩余数据不足时合并到本片或为最后一片预留
+     */
+    public synchronized int nextChunk(long remaining, int minLastChunk) {
+        int size = chunkSize;
+        if (remaining <= size) {
+            return (int) remaining;
+        }
+        if (remaining - size >= minLastChunk) {
+            return size;
+        }
+        // 本片之后剩余不足最小值：能一次发完则合并，否则为最后一片留出最小值
+        if (remaining <= maxSize) {
+            return (int) remaining;
+        }
+        return (int) (remaining - minLastChunk);
+    }
+
+    /**
+     * 记录一个分片的传输结果
+     *
+     * @param bytes 传输字节数，明显小于当前分片大小的样本（如最后一片）不参与调整
+     * @param elapsedNanos 请求耗时（纳秒）
+     */
+    public synchronized void record(long bytes, long elapsedNanos) {
+        if (bytes <= 0 || bytes < chunkSize / 2) {
+            return;
+        }
+        double millis = Math.max(1.0, elapsedNanos / 1000000.0);
+        double sample = bytes * 1000.0 / millis;
+        if (samples++ == 0) {
+            throughput = sample;
+            latencyMillis = millis;
+        } else {
+            throughput = ALPHA * sample + (1 - ALPHA) * throughput;
+            latencyMillis = ALPHA * millis + (1 - ALPHA) * latencyMillis;
+        }
+
+        double target = throughput * targetMillis / 1000.0;
+        target = Math.max(chunkSize / 2.0, Math.min(chunkSize * 2.0, target));
+        if (Math.abs(target - chunkSize) > chunkSize * HYSTERESIS) {
+            chunkSize = clamp((long) target);
+        }
+    }
+
+    /**
+     * 分片请求失败，分片大小减半
+     */
+    public synchronized void recordFailure() {
+        chunkSize = clamp(chunkSize / 2);
+    }
+
+    /**
+     * 吞吐估计（字节/秒），尚无样本时为0
+     */
+    public synchronized long getThroughput() {
+        return (long) throughput;
+    }
+
+    /**
+     * 单个分片请求耗时估计（毫秒），尚无样本时为0
+     */
+    public synchronized long getLatencyMillis() {
+        return (long) latencyMillis;
+    }
+
+    private int clamp(long size) {
+        long aligned = size / alignment * alignment;
+        return (int) Math.max(minSize, Math.min(maxSize, aligned));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveChunkSizer{" +
+                "chunkSize=" + chunkSize +
+                ", throughput=" + (long) throughput +
+                ", latencyMillis=" + (long) latencyMillis +
+                '}';
+    }
+}
@@ -1,6 +1,10 @@
 package com.guangyuyun.sdk.util;
 
+import com.guangyuyun.sdk.exception.GuangYuYunException;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -14,6 +18,15 @@ public class DownloadUtils {
     private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024; // 1MB
     private static final int MIN_CHUNK_SIZE = 64 * 1024; // 64KB
     private static final int MAX_CHUNK_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024; // 64KB
+    
+    // 每个线程复用一个传输缓冲区，流式下载的内存占用与分片大小无关
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[TRANSFER_BUFFER_SIZE];
+        }
+    };
     
     /**
      * 获取默认分片大小
@@ -22,6 +35,20 @@ public class DownloadUtils {
         return DEFAULT_CHUNK_SIZE;
     }
     
+    /**
+     * 获取最小分片大小
+     */
+    public static int getMinChunkSize() {
+        return MIN_CHUNK_SIZE;
+    }
+    
+    /**
+     * 获取最大分片大小
+     */
+    public static int getMaxChunkSize() {
+        return MAX_CHUNK_SIZE;
+    }
+    
     /**
      * 验证分片大小是否在有效范围内
      */
@@ -104,6 +131,36 @@ public class DownloadUtils {
     
     
     
+    /**
+     * 把输入流中的数据经复用缓冲区写入通道
+     * 
+     * @param in 输入流（如响应体）
+     * @param out 目标通道
+     * @param maxBytes 允许的最大字节数
+     * @return 写入的字节数
+     * @throws GuangYuYunException 流中数据超出maxBytes（服务端返回了请求区间以外的数据），不可重试
+     */
+    public static long transfer(InputStream in, WritableByteChannel out, long maxBytes) throws IOException, GuangYuYunException {
+        byte[] buffer = TRANSFER_BUFFER.get();
+        long total = 0;
+        while (total < maxBytes) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, maxBytes - total));
+            if (n < 0) {
+                return total;
+            }
+            ByteBuffer src = ByteBuffer.wrap(buffer, 0, n);
+            while (src.hasRemaining()) {
+                out.write(src);
+            }
+            total += n;
+        }
+        if (in.read() != -1) {
+            // 重试只会从请求区间之后继续，同样得到多余的数据
+            throw new GuangYuYunException("Received more data than requested: response body exceeds " + maxBytes + " bytes");
+        }
+        return total;
+    }
+    
     /**
      * 格式化文件大小
      */
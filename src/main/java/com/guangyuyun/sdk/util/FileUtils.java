@@ -1,10 +1,10 @@
 package com.guangyuyun.sdk.util;
 
+import com.guangyuyun.sdk.hash.HashingEngine;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 /**
  * 文件工具类
@@ -19,27 +19,7 @@ public class FileUtils {
      * 计算文件的MD5值
      */
     public static String calculateMD5(File file) throws IOException {
-        MessageDigest md;
-        try {
-            md = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new IOException("MD5 algorithm not available", e);
-        }
-        
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                md.update(buffer, 0, bytesRead);
-            }
-        }
-        
-        byte[] digest = md.digest();
-        StringBuilder sb = new StringBuilder();
-        for (byte b : digest) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+        return HashingEngine.md5(file);
     }
     
     
@@ -51,6 +31,13 @@ public class FileUtils {
         return MIN_CHUNK_SIZE;
     }
     
+    /**
+     * 获取最大分片大小
+     */
+    public static int getMaxChunkSize() {
+        return MAX_CHUNK_SIZE;
+    }
+    
     /**
      * 验证分片大小是否在有效范围内
      */
@@ -0,0 +1,93 @@
+package com.guangyuyun.sdk.upload;
+
+import com.guangyuyun.sdk.model.LargeFileUploadRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class ReadAheadChunkSourceTest {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private byte[] content;
+    private ReadAheadChunkSource source;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[2500];
+        new Random(42).nextBytes(content);
+        file = folder.newFile("upload.bin");
+        Files.write(file.toPath(), content);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTailMergedIntoLastChunk() throws IOException {
+        source = new ReadAheadChunkSource(file, 0, CHUNK_SIZE, 4 * CHUNK_SIZE);
+
+        assertChunk(0, CHUNK_SIZE);
+        // 剩余1500字节作为一片发送，与预读的1000字节分片长度不同
+        assertChunk(CHUNK_SIZE, content.length - CHUNK_SIZE);
+    }
+
+    @Test(timeout = 10000)
+    public void testChunkSizeChangedAfterStaging() throws IOException {
+        source = new ReadAheadChunkSource(file, 0, CHUNK_SIZE, 4 * CHUNK_SIZE);
+
+        assertChunk(0, CHUNK_SIZE);
+        source.setChunkSize(600);
+        assertChunk(CHUNK_SIZE, 600);
+        assertChunk(CHUNK_SIZE + 600, 600);
+        assertChunk(CHUNK_SIZE + 1200, content.length - CHUNK_SIZE - 1200);
+    }
+
+    @Test(timeout = 10000)
+    public void testChunkSizeShrunkNearEndOfFile() throws IOException {
+        source = new ReadAheadChunkSource(file, 0, CHUNK_SIZE, 4 * CHUNK_SIZE);
+
+        assertChunk(0, CHUNK_SIZE);
+        assertChunk(CHUNK_SIZE, CHUNK_SIZE);
+        // 分片失败后减小分片，池中旧大小的缓冲区不能用于最后的短分片
+        source.setChunkSize(300);
+        assertChunk(2 * CHUNK_SIZE, 300);
+        assertChunk(2 * CHUNK_SIZE + 300, 200);
+    }
+
+    @Test(timeout = 10000)
+    public void testResyncToEarlierOffset() throws IOException {
+        source = new ReadAheadChunkSource(file, 0, CHUNK_SIZE, 4 * CHUNK_SIZE);
+
+        assertChunk(0, CHUNK_SIZE);
+        assertChunk(CHUNK_SIZE, CHUNK_SIZE);
+        // 码7要求从较早的位置继续
+        assertChunk(500, CHUNK_SIZE);
+        assertChunk(1500, content.length - 1500);
+    }
+
+    private void assertChunk(long offset, int length) throws IOException {
+        LargeFileUploadRequest request = new LargeFileUploadRequest();
+        source.fill(request, offset, length);
+        assertArrayEquals(Arrays.copyOfRange(content, (int) offset, (int) offset + length), request.getFileData());
+        source.release(request);
+    }
+}